@@ -7,7 +7,6 @@
 package ElementosGraficos;
 
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 
 /**
  *
@@ -15,67 +14,48 @@ import java.util.ArrayList;
  */
 public class Animacao {
     
-    //Array de imagens da animação
-    private BufferedImage[] frames;
+    /*Tick global do jogo, avançado uma vez por atualização pelo GerenciadorEstado. Todas as animações calculam
+    o frame atual a partir dele, então avançar todas elas é só incrementar esse número*/
+    private static long tick;
     
-    //Imagem atual da animação
-    private int frameAtual;
+    //Clipe que está tocando
+    private ClipeAnimacao clipe;
     
-    //Tempo do sistema de início
-    private long tempoInicio;
-    
-    //Intervalo entre as imagens da animação
-    private int intervalo;
-    
-    //Se toda a animação foi executada
-    private boolean foiExecutado;
+    //Tick em que o clipe começou a tocar
+    private long tickInicio;
     
     public Animacao(){
-        foiExecutado = false;
     }
     
-    //Definir o array de imagens da animação
-    public void mudarFramesPara(BufferedImage[] frames){
-        this.frames = frames;
-        frameAtual = 0;
-        tempoInicio = System.nanoTime();
-        foiExecutado = false;
+    //avança o tick global de todas as animações
+    public static void avancaTick(){tick++;}
+    public static long tickAtual(){return tick;}
+    /*tempo de jogo em milissegundos, contado pelos ticks (60 por segundo nas fases). Para junto com o tick na pausa,
+    então os tempos de imunidade e de atingido não passam enquanto o jogo está pausado, como passariam pelo relógio*/
+    public static long milissegundos(){return tick*1000/60;}
+    
+    //começa a tocar o clipe a partir do primeiro frame
+    public void tocar(ClipeAnimacao clipe){
+        this.clipe = clipe;
+        tickInicio = tick;
     }
     
-    //muda o intervalo entre as imagens da animação
-    public void mudarIntervaloPara(int intervalo){this.intervalo = intervalo;}
-    
-    //caso precise acessar o frame que está executando
-    public void mudarFrameAtualPara(int frame){ frameAtual = frame;}
-    
-    //atualiza a imagem, tornando-a animada
-    public void atualiza(){
-        //caso o intervalo for -1, então a imagem ficará parada
-        if(intervalo==-1) return;
-        
-        /*pega o tempo atual do sistema e diminui pelo tempo de inicio, e diminui por 1000000, assim
-        é obtido os segundos da imagem*/
-        long tempoDecorrido = (System.nanoTime()-tempoInicio)/1000000;
-        //checa se o tempo que já foi executado foi maior que o intervalo
-        if(tempoDecorrido>intervalo){
-            frameAtual++;//se sim, incrementa para a próxima imagem
-            tempoInicio = System.nanoTime();//atualiza o tempo de início do frame
-        }
-        
-        //se todos os frames foram executados então
-        if(frameAtual==frames.length){
-            frameAtual = 0;//volta o frameAtual para o primeiro frame
-            foiExecutado = true;//torna verdadeiro que já foi executada toda a animação
-        }
+    //começa a tocar o clipe a partir de um frame qualquer
+    public void tocar(ClipeAnimacao clipe, int frame){
+        tocar(clipe);
+        if(clipe.qualTicksPorFrame()>0) tickInicio -= frame*clipe.qualTicksPorFrame();
     }
     
-    
+    //retorna o clipe que está tocando
+    public ClipeAnimacao qualClipe(){return clipe;}
     //retorna o frame atual
-    public int qualFrameAtual() {return frameAtual;}
+    public int qualFrameAtual() {return clipe.frame(tick-tickInicio);}
     //retorna as imagens da animação
-    public BufferedImage[] quaisSaoOsFrames() {return frames;}
+    public BufferedImage[] quaisSaoOsFrames() {return clipe.quaisSaoOsFrames();}
     //retorna a imagem atual da animação
-    public BufferedImage imagemAtual(){return frames[frameAtual];}
+    public BufferedImage imagemAtual(){return clipe.imagem(qualFrameAtual());}
+    //retorna a imagem atual espelhada horizontalmente
+    public BufferedImage imagemAtualEspelhada(){return clipe.imagemEspelhada(qualFrameAtual());}
     //retorna se a animação já foi executada uma vez por completo
-    public boolean checaFoiExecutado() {return foiExecutado;}
+    public boolean checaFoiExecutado() {return clipe.foiExecutado(tick-tickInicio);}
 }
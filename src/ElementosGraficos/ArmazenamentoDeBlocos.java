@@ -0,0 +1,70 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+/**
+ *
+ * @author Gabriel
+ */
+public abstract class ArmazenamentoDeBlocos {
+    /*Onde o MapaDeBlocos guarda o número de cada bloco. Há três formas, escolhidas com
+    -Dexplorador.armazenamento=<nome>:
+        matriz   - um int[][] como era antes, 4 bytes por bloco e um vetor por linha
+        compacto - um vetor só, de byte (ou short, se algum número passar de 255), 1 ou 2 bytes por bloco
+        rle      - cada linha guardada como trechos de blocos iguais, para mapas com muito vazio e muita terra
+                   repetida; o acesso a um bloco começa no trecho guardado para a âncora mais próxima (uma a
+                   cada poucas colunas) e anda pelos trechos seguintes até a coluna
+    O padrão é o compacto. O RelatorioDeMemoria compara as três em fases geradas*/
+
+    public static final String MATRIZ = "matriz", COMPACTO = "compacto", RLE = "rle";
+
+    protected final int linhas, colunas;
+
+    protected ArmazenamentoDeBlocos(int linhas, int colunas){
+        this.linhas = linhas;
+        this.colunas = colunas;
+    }
+
+    public int qualNumDeLinhas(){return linhas;}
+    public int qualNumDeColunas(){return colunas;}
+
+    //número do bloco na linha e coluna
+    public abstract int valor(int linha, int coluna);
+    //muda o número do bloco na linha e coluna
+    public abstract void muda(int linha, int coluna, int valor);
+    //memória ocupada pelos vetores, em bytes, contando o cabeçalho de cada vetor
+    public abstract long bytesUsados();
+    public abstract String qualNome();
+
+    //cabeçalho de um vetor e tamanho de uma referência na JVM de 64 bits com referências comprimidas
+    protected static final int CABECALHO = 16, REFERENCIA = 4;
+
+    //tamanho de um vetor com a quantidade de elementos do tamanho informado, alinhado em 8 bytes
+    protected static long bytesDoVetor(long elementos, int tamanho){
+        return (CABECALHO+elementos*tamanho+7)/8*8;
+    }
+
+    //guarda uma cópia do mapa na forma escolhida
+    public static ArmazenamentoDeBlocos cria(String nome, int[][] mapa){
+        int linhas = mapa.length, colunas = mapa[0].length;
+        int maior = 0;
+        for(int l=0;l<linhas;l++){
+            for(int c=0;c<colunas;c++) maior = Math.max(maior, mapa[l][c]);
+        }
+        switch(nome){
+            case MATRIZ: return new BlocosEmMatriz(mapa);
+            case RLE: return new BlocosRLE(mapa);
+            case COMPACTO: return new BlocosCompactos(mapa, maior);
+            default: throw new IllegalArgumentException("Armazenamento desconhecido: "+nome);
+        }
+    }
+
+    //forma escolhida pela propriedade explorador.armazenamento
+    public static String escolhido(){
+        return System.getProperty("explorador.armazenamento", COMPACTO);
+    }
+}
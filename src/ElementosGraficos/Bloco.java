@@ -21,6 +21,8 @@ public class Bloco {//Classe para fazer o mapa de blocos
     
     //Imagem individual de cada bloco
     private BufferedImage bloco;
+    //a mesma imagem preparada para o Rasterizador
+    private ImagemRaster raster;
     //tipo do bloco, que pode ser normal ou bloqueado
     private int tipo;
     
@@ -28,10 +30,13 @@ public class Bloco {//Classe para fazer o mapa de blocos
     public Bloco(BufferedImage bloco, int tipo){
         this.bloco=bloco;
         this.tipo=tipo;
+        raster = new ImagemRaster(bloco);
     }
     
     //pega o tipo do bloco
     public int Tipo(){return tipo;}
     //pega a imagem do bloco
     public BufferedImage Imagem(){return bloco;}
+    //pega a imagem do bloco preparada para o Rasterizador
+    public ImagemRaster Raster(){return raster;}
 }
@@ -0,0 +1,58 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BlocosCompactos extends ArmazenamentoDeBlocos {
+    /*Todos os blocos em um vetor só, linha após linha (o bloco da linha l e coluna c fica em l*colunas+c). Usa um
+    byte por bloco enquanto os números cabem em 0..255 (o blocos.gif tem 20 blocos) e passa para short se algum
+    número maior for colocado depois*/
+
+    private byte[] bytes;
+    private short[] shorts;
+
+    //mapa vazio; maiorValor é o maior número que se espera guardar
+    public BlocosCompactos(int linhas, int colunas, int maiorValor){
+        super(linhas, colunas);
+        if(maiorValor>255) shorts = new short[linhas*colunas];
+        else bytes = new byte[linhas*colunas];
+    }
+
+    public BlocosCompactos(int[][] mapa, int maiorValor){
+        this(mapa.length, mapa[0].length, maiorValor);
+        for(int l=0;l<linhas;l++){
+            for(int c=0;c<colunas;c++) muda(l, c, mapa[l][c]);
+        }
+    }
+
+    public int valor(int linha, int coluna){
+        int i = linha*colunas+coluna;
+        return bytes!=null ? bytes[i]&0xFF : shorts[i]&0xFFFF;
+    }
+
+    public void muda(int linha, int coluna, int valor){
+        if(valor<0 || valor>0xFFFF) throw new IllegalArgumentException("Bloco inválido: "+valor);
+        if(bytes!=null && valor>255){
+            //passa a usar dois bytes por bloco
+            shorts = new short[bytes.length];
+            for(int i=0;i<bytes.length;i++) shorts[i] = (short)(bytes[i]&0xFF);
+            bytes = null;
+        }
+        int i = linha*colunas+coluna;
+        if(bytes!=null) bytes[i] = (byte)valor;
+        else shorts[i] = (short)valor;
+    }
+
+    public long bytesUsados(){
+        return bytes!=null ? bytesDoVetor(bytes.length, 1) : bytesDoVetor(shorts.length, 2);
+    }
+
+    public String qualNome(){return COMPACTO;}
+}
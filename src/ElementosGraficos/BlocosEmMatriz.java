@@ -0,0 +1,32 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BlocosEmMatriz extends ArmazenamentoDeBlocos {
+    //a forma original: uma matriz de int, com um vetor por linha
+
+    private final int[][] mapa;
+
+    public BlocosEmMatriz(int[][] mapa){
+        super(mapa.length, mapa[0].length);
+        this.mapa = new int[linhas][];
+        for(int l=0;l<linhas;l++) this.mapa[l] = mapa[l].clone();
+    }
+
+    public int valor(int linha, int coluna){return mapa[linha][coluna];}
+    public void muda(int linha, int coluna, int valor){mapa[linha][coluna] = valor;}
+
+    public long bytesUsados(){
+        return bytesDoVetor(linhas, REFERENCIA)+linhas*bytesDoVetor(colunas, 4);
+    }
+
+    public String qualNome(){return MATRIZ;}
+}
@@ -0,0 +1,145 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BlocosRLE extends ArmazenamentoDeBlocos {
+    /*Cada linha é guardada como trechos de blocos iguais: o trecho t começa na coluna inicio[t] e vai até o começo do
+    próximo, com o número valorDoTrecho[t]. Os trechos de todas as linhas ficam nos mesmos vetores, e os da linha l vão
+    de primeiroTrecho[l] até primeiroTrecho[l+1] (exclusivo). Para achar um bloco sem percorrer a linha, a cada
+    ANCORA colunas é guardado o trecho que contém aquela coluna; o acesso começa na âncora e anda no máximo pelos
+    trechos dessas ANCORA colunas, que costumam ser um ou dois.
+
+    Fica pequeno quando as linhas têm longas sequências iguais (céu vazio, terra embaixo do chão), como no
+    level1-1. Mudar um bloco troca só o trecho da coluna, mas desloca todos os trechos seguintes, então serve para
+    mudanças ocasionais (uma flecha quebrando um bloco), e não para preencher o mapa bloco a bloco*/
+
+    private int[] primeiroTrecho;
+    private int[] inicio;
+    private short[] valorDoTrecho;
+    //trecho que contém a coluna a*ANCORA da linha l, na posição l*ancorasPorLinha+a
+    private static final int ANCORA = 64;
+    private final int ancorasPorLinha;
+    private final int[] ancora;
+    //trechos que substituem o trecho mudado no muda, guardados aqui para não alocar a cada mudança
+    private final int[] novoInicio = new int[3];
+    private final short[] novoValor = new short[3];
+
+    public BlocosRLE(int[][] mapa){
+        super(mapa.length, mapa[0].length);
+        ancorasPorLinha = (colunas+ANCORA-1)/ANCORA;
+        ancora = new int[linhas*ancorasPorLinha];
+        int trechos = 0;
+        for(int l=0;l<linhas;l++) trechos += contaTrechos(mapa[l]);
+        primeiroTrecho = new int[linhas+1];
+        inicio = new int[trechos];
+        valorDoTrecho = new short[trechos];
+        int t = 0;
+        for(int l=0;l<linhas;l++){
+            primeiroTrecho[l] = t;
+            t = codifica(mapa[l], t);
+        }
+        primeiroTrecho[linhas] = t;
+        for(int l=0;l<linhas;l++) calculaAncoras(l);
+    }
+    
+    private void calculaAncoras(int linha){
+        int t = primeiroTrecho[linha], fim = primeiroTrecho[linha+1];
+        for(int a=0;a<ancorasPorLinha;a++){
+            int coluna = a*ANCORA;
+            while(t+1<fim && inicio[t+1]<=coluna) t++;
+            ancora[linha*ancorasPorLinha+a] = t;
+        }
+    }
+
+    private static int contaTrechos(int[] linha){
+        int trechos = 1;
+        for(int c=1;c<linha.length;c++) if(linha[c]!=linha[c-1]) trechos++;
+        return trechos;
+    }
+
+    //escreve os trechos da linha a partir da posição t e retorna a posição seguinte
+    private int codifica(int[] linha, int t){
+        for(int c=0;c<linha.length;c++){
+            if(c>0 && linha[c]==linha[c-1]) continue;
+            if(linha[c]<0 || linha[c]>Short.MAX_VALUE) throw new IllegalArgumentException("Bloco inválido: "+linha[c]);
+            inicio[t] = c;
+            valorDoTrecho[t] = (short)linha[c];
+            t++;
+        }
+        return t;
+    }
+
+    //trecho da linha que contém a coluna
+    private int trecho(int linha, int coluna){
+        int t = ancora[linha*ancorasPorLinha+coluna/ANCORA];
+        int fim = primeiroTrecho[linha+1];
+        while(t+1<fim && inicio[t+1]<=coluna) t++;
+        return t;
+    }
+
+    public int valor(int linha, int coluna){
+        return valorDoTrecho[trecho(linha, coluna)];
+    }
+
+    /*troca só o trecho que contém a coluna por no máximo três (o pedaço antes da coluna, o bloco novo e o pedaço
+    depois), juntando o bloco novo ao trecho vizinho quando ele tem o mesmo número, e desloca os trechos seguintes
+    pela diferença. Não aloca nada, a não ser quando os vetores enchem, e aí eles crescem com folga*/
+    public void muda(int linha, int coluna, int valor){
+        if(valor<0 || valor>Short.MAX_VALUE) throw new IllegalArgumentException("Bloco inválido: "+valor);
+        int t = trecho(linha, coluna);
+        int antigo = valorDoTrecho[t];
+        if(antigo==valor) return;
+        int comecoDaLinha = primeiroTrecho[linha], fimDaLinha = primeiroTrecho[linha+1];
+        int fimDoTrecho = t+1<fimDaLinha ? inicio[t+1] : colunas;
+
+        //trechos de a até b (exclusivo) são trocados pelos n trechos novos
+        int a = t, b = t+1, n = 0;
+        if(coluna>inicio[t]) guardaNovo(n++, inicio[t], antigo);
+        else if(t>comecoDaLinha && valorDoTrecho[t-1]==valor) a = t-1;
+        guardaNovo(n++, a<t ? inicio[t-1] : coluna, valor);
+        if(coluna+1<fimDoTrecho) guardaNovo(n++, coluna+1, antigo);
+        else if(t+1<fimDaLinha && valorDoTrecho[t+1]==valor) b = t+2;
+
+        int diferenca = n-(b-a);
+        int total = primeiroTrecho[linhas];
+        if(total+diferenca>inicio.length){
+            int tamanho = Math.max(total+diferenca, inicio.length+inicio.length/2);
+            inicio = Arrays.copyOf(inicio, tamanho);
+            valorDoTrecho = Arrays.copyOf(valorDoTrecho, tamanho);
+        }
+        //desloca os trechos que vêm depois, nesta linha e nas seguintes
+        System.arraycopy(inicio, b, inicio, b+diferenca, total-b);
+        System.arraycopy(valorDoTrecho, b, valorDoTrecho, b+diferenca, total-b);
+        System.arraycopy(novoInicio, 0, inicio, a, n);
+        System.arraycopy(novoValor, 0, valorDoTrecho, a, n);
+        if(diferenca!=0){
+            for(int l=linha+1;l<=linhas;l++) primeiroTrecho[l] += diferenca;
+            for(int i=(linha+1)*ancorasPorLinha;i<ancora.length;i++) ancora[i] += diferenca;
+        }
+        calculaAncoras(linha);
+    }
+
+    private void guardaNovo(int i, int comeco, int valor){
+        novoInicio[i] = comeco;
+        novoValor[i] = (short)valor;
+    }
+
+    public int quantidadeDeTrechos(){return primeiroTrecho[linhas];}
+
+    public long bytesUsados(){
+        return bytesDoVetor(primeiroTrecho.length, 4)+bytesDoVetor(inicio.length, 4)+bytesDoVetor(valorDoTrecho.length, 2)
+                +bytesDoVetor(ancora.length, 4);
+    }
+
+    public String qualNome(){return RLE;}
+}
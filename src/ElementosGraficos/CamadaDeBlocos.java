@@ -0,0 +1,249 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import Principal.JogoPanel;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class CamadaDeBlocos {
+    /*Camada de enfeite de uma fase, atrás ou na frente da camada de colisão (o MapaDeBlocos), com os blocos do
+    mesmo blocos.gif e a mesma numeração. Ela não participa da colisão e não muda durante o jogo, então é desenhada
+    em pedaços de PEDACO colunas, que ficam guardados; por frame só são copiados os um ou dois pedaços visíveis, em
+    vez de um drawImage por bloco. A camada anda com a tela multiplicada pela sua velocidade (menor que 1 fica mais
+    longe, maior que 1 fica mais perto).
+
+    Os pedaços são montados no atualiza, na thread do jogo, um pouco antes de aparecerem, e os que ficam longe da
+    tela são descartados. As imagens dos pedaços (e as suas versões para o Rasterizador) não são criadas a cada
+    montagem: ficam em uma pilha de imagens livres, criada no prepara com o suficiente para a tela, e um pedaço
+    descartado devolve a sua para a pilha. Assim a memória não depende do tamanho da camada, e andar pela fase não
+    cria imagens na thread do jogo*/
+
+    //colunas de cada pedaço guardado
+    public static final int PEDACO = 16;
+    //pedaços mantidos além dos visíveis, de cada lado
+    private static final int MARGEM = 1;
+
+    private final MapaDeBlocos mb;
+    private final int[][] mapa;
+    private final int numLinhas, numCols, tamanhoBloco;
+    private final double velocidade;
+
+    //imagem de cada pedaço montado (null se não está montado, ou se está vazio) e a sua versão para o Rasterizador
+    private final BufferedImage[] pedacos;
+    private final ImagemRaster[] rasters;
+    private final boolean[] montado;
+    //altura, em pixels, da primeira linha com blocos de cada pedaço, e altura das linhas com blocos (0 se vazio)
+    private final int[] yPedaco, alturaPedaco;
+    //blocos animados de cada pedaço (veja prepara), ou null se não houver
+    private final int[][] animados;
+
+    /*imagens livres, todas do tamanho do pedaço mais alto, e uma imagem vazia do mesmo tipo, copiada sobre uma
+    imagem livre para limpá-la antes de montar outro pedaço nela*/
+    private BufferedImage[] livres;
+    private ImagemRaster[] rastersLivres;
+    private int quantLivres;
+    private BufferedImage vazia;
+    private boolean preparada;
+
+    //posição da camada na tela, calculada no atualiza, e os pedaços montados agora (de primeiro até ultimo)
+    private int x, y;
+    private int primeiro, ultimo = -1;
+
+    //lê a camada do arquivo, no mesmo formato do .mapa
+    public CamadaDeBlocos(MapaDeBlocos mb, String s, double velocidade) throws IOException{
+        this.mb = mb;
+        this.velocidade = velocidade;
+        mapa = MapaDeBlocos.leMapa(s);
+        numLinhas = mapa.length;
+        numCols = mapa[0].length;
+        tamanhoBloco = mb.qualTamanhoDoBloco();
+        int quantidade = (numCols+PEDACO-1)/PEDACO;
+        pedacos = new BufferedImage[quantidade];
+        rasters = new ImagemRaster[quantidade];
+        montado = new boolean[quantidade];
+        yPedaco = new int[quantidade];
+        alturaPedaco = new int[quantidade];
+        animados = new int[quantidade][];
+    }
+
+    public double qualVelocidade(){return velocidade;}
+
+    /*acha as linhas com blocos e os blocos animados de cada pedaço e cria as imagens livres. Precisa dos blocos
+    animados da fase já definidos, então a Fase chama depois de ler todo o .spawns (se não chamar, o primeiro
+    atualiza chama)*/
+    public void prepara(){
+        preparada = true;
+        int maisAlto = 0;
+        for(int i=0;i<pedacos.length;i++){
+            int inicio = i*PEDACO, fim = Math.min(numCols, inicio+PEDACO);
+            int linhaInicio = -1, linhaFim = -1, quantAnimados = 0;
+            for(int linha=0;linha<numLinhas;linha++){
+                for(int coluna=inicio;coluna<fim;coluna++){
+                    int v = mapa[linha][coluna];
+                    if(v==0) continue;
+                    if(mb.ehAnimado(v)){
+                        quantAnimados++;
+                        continue;
+                    }
+                    if(linhaInicio<0) linhaInicio = linha;
+                    linhaFim = linha;
+                }
+            }
+            animados[i] = null;
+            if(quantAnimados>0){
+                //coluna, linha e valor de cada bloco animado, em sequência
+                int[] a = new int[quantAnimados*3];
+                int n = 0;
+                for(int linha=0;linha<numLinhas;linha++){
+                    for(int coluna=inicio;coluna<fim;coluna++){
+                        int v = mapa[linha][coluna];
+                        if(v==0 || !mb.ehAnimado(v)) continue;
+                        a[n++] = coluna-inicio;
+                        a[n++] = linha;
+                        a[n++] = v;
+                    }
+                }
+                animados[i] = a;
+            }
+            yPedaco[i] = linhaInicio<0 ? 0 : linhaInicio*tamanhoBloco;
+            alturaPedaco[i] = linhaInicio<0 ? 0 : (linhaFim-linhaInicio+1)*tamanhoBloco;
+            maisAlto = Math.max(maisAlto, alturaPedaco[i]);
+        }
+
+        //os pedaços que cabem na tela, mais um de cada lado da margem e um parcial
+        quantLivres = 0;
+        livres = new BufferedImage[JogoPanel.qualLargura()/(PEDACO*tamanhoBloco)+2+2*MARGEM];
+        rastersLivres = new ImagemRaster[livres.length];
+        if(maisAlto==0) return;
+        vazia = criaPedaco(maisAlto);
+        while(quantLivres<livres.length) criaLivre();
+    }
+
+    //cria mais uma imagem livre, limpa, e a põe na pilha
+    private void criaLivre(){
+        if(quantLivres==livres.length){
+            livres = Arrays.copyOf(livres, livres.length*2);
+            rastersLivres = Arrays.copyOf(rastersLivres, livres.length);
+        }
+        BufferedImage imagem = criaPedaco(vazia.getHeight());
+        imagem.getRaster().setRect(vazia.getRaster());
+        livres[quantLivres] = imagem;
+        rastersLivres[quantLivres] = new ImagemRaster(imagem);
+        quantLivres++;
+    }
+
+    //acompanha a tela e monta os pedaços que vão aparecer, descartando os que ficaram longe
+    public void atualiza(){
+        if(!preparada) prepara();
+        x = (int)(mb.posX()*velocidade);
+        y = (int)(mb.posY()*velocidade);
+
+        int larguraPedaco = PEDACO*tamanhoBloco;
+        int novoPrimeiro = Math.max(0, -x/larguraPedaco-MARGEM);
+        int novoUltimo = Math.min(pedacos.length-1, (-x+JogoPanel.qualLargura())/larguraPedaco+MARGEM);
+        //descarta os que saíram do intervalo, devolvendo as imagens, e monta os que entraram
+        for(int i=primeiro;i<=ultimo;i++){
+            if(i<novoPrimeiro || i>novoUltimo){
+                if(pedacos[i]!=null){
+                    livres[quantLivres] = pedacos[i];
+                    rastersLivres[quantLivres] = rasters[i];
+                    quantLivres++;
+                }
+                pedacos[i] = null;
+                rasters[i] = null;
+                montado[i] = false;
+            }
+        }
+        for(int i=novoPrimeiro;i<=novoUltimo;i++){
+            if(!montado[i]) monta(i);
+        }
+        primeiro = novoPrimeiro;
+        ultimo = novoUltimo;
+    }
+
+    /*desenha os blocos do pedaço em uma imagem livre, a partir da primeira linha com blocos; um pedaço sem blocos
+    não usa imagem. Os blocos animados não entram na imagem: ficam na lista do pedaço e são desenhados por cima,
+    com o quadro do tick. Só cria uma imagem nova se a pilha estiver vazia, o que só acontece se a resolução
+    interna aumentar depois do prepara*/
+    private void monta(int i){
+        montado[i] = true;
+        if(alturaPedaco[i]==0) return;
+        if(quantLivres==0) criaLivre();
+        quantLivres--;
+        BufferedImage imagem = livres[quantLivres];
+        ImagemRaster raster = rastersLivres[quantLivres];
+        livres[quantLivres] = null;
+        rastersLivres[quantLivres] = null;
+
+        imagem.getRaster().setRect(vazia.getRaster());
+        int inicio = i*PEDACO, fim = Math.min(numCols, inicio+PEDACO);
+        int linhaInicio = yPedaco[i]/tamanhoBloco, linhaFim = linhaInicio+alturaPedaco[i]/tamanhoBloco-1;
+        Graphics2D g = imagem.createGraphics();
+        for(int linha=linhaInicio;linha<=linhaFim;linha++){
+            for(int coluna=inicio;coluna<fim;coluna++){
+                int v = mapa[linha][coluna];
+                if(v!=0 && !mb.ehAnimado(v)) g.drawImage(mb.bloco(v).Imagem(), (coluna-inicio)*tamanhoBloco, (linha-linhaInicio)*tamanhoBloco, null);
+            }
+        }
+        g.dispose();
+        raster.recarrega(imagem);
+        pedacos[i] = imagem;
+        rasters[i] = raster;
+    }
+    
+    /*imagem vazia para um pedaço. Se os blocos usam uma paleta com cor transparente (como o blocos.gif), o pedaço usa
+    a mesma paleta: a cópia com transparência de um bit é bem mais rápida que a mistura de uma imagem ARGB quando
+    não há placa de vídeo, e ocupa um byte por pixel. O tipo depende só da imagem dos blocos, então é o mesmo com
+    ou sem tela*/
+    private BufferedImage criaPedaco(int altura){
+        int largura = PEDACO*tamanhoBloco;
+        ColorModel cm = mb.bloco(0).Imagem().getColorModel();
+        if(cm instanceof IndexColorModel && ((IndexColorModel) cm).getTransparentPixel()>=0){
+            IndexColorModel icm = (IndexColorModel) cm;
+            BufferedImage imagem = new BufferedImage(largura, altura, BufferedImage.TYPE_BYTE_INDEXED, icm);
+            byte[] transparente = new byte[largura];
+            Arrays.fill(transparente, (byte) icm.getTransparentPixel());
+            for(int l=0;l<altura;l++) imagem.getRaster().setDataElements(0, l, largura, 1, transparente);
+            return imagem;
+        }
+        return ImagemDeFundo.criaImagemCompativel(largura, altura, Transparency.BITMASK);
+    }
+
+    //desenha os pedaços visíveis
+    public void desenha(Graphics2D g){
+        Rasterizador rasterizador = Rasterizador.atual();
+        int larguraPedaco = PEDACO*tamanhoBloco;
+        int visivelPrimeiro = Math.max(primeiro, -x/larguraPedaco);
+        int visivelUltimo = Math.min(ultimo, (-x+JogoPanel.qualLargura())/larguraPedaco);
+        for(int i=visivelPrimeiro;i<=visivelUltimo;i++){
+            if(pedacos[i]!=null){
+                //as imagens têm a altura do pedaço mais alto, então só as linhas deste pedaço são copiadas
+                int px = x+i*larguraPedaco, py = y+yPedaco[i], altura = alturaPedaco[i];
+                if(rasterizador!=null) rasterizador.desenha(rasters[i], px, py, false);
+                else g.drawImage(pedacos[i], px, py, px+larguraPedaco, py+altura, 0, 0, larguraPedaco, altura, null);
+            }
+            int[] a = animados[i];
+            if(a==null) continue;
+            for(int j=0;j<a.length;j+=3){
+                Bloco b = mb.bloco(mb.quadroDe(a[j+2]));
+                int bx = x+i*larguraPedaco+a[j]*tamanhoBloco, by = y+a[j+1]*tamanhoBloco;
+                if(rasterizador!=null) rasterizador.desenha(b.Raster(), bx, by, false);
+                else g.drawImage(b.Imagem(), bx, by, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class CampoDeFluxo {
+    /*Campo de distâncias até o jogador para hordas de inimigos que andam e caem (sem pular). Guarda, para cada
+    bloco livre do mapa, quantos passos faltam até o bloco em que o jogador está apoiado, contando os passos que
+    um inimigo consegue dar: andar para o lado a partir de um bloco com chão embaixo e cair de um bloco sem chão
+    para o de baixo. Cada inimigo só compara a distância do seu bloco com a dos vizinhos (veja direcao), então o
+    custo por inimigo é o mesmo com dez ou dez mil inimigos.
+
+    O campo é recalculado (uma busca em largura a partir do jogador) só quando o jogador muda de bloco ou quando o
+    lote de mudanças do mapa tem um bloco que passou de livre para bloqueado ou o contrário. Em mapas pequenos a
+    busca roda na hora; nos grandes (mais de LIMITE_NA_HORA blocos) roda em uma thread separada, sobre uma cópia
+    dos blocos bloqueados, e os inimigos continuam seguindo o campo anterior até o novo ficar pronto. Só serve
+    para fases de arquivo, e não para a janela do mundo sem fim*/
+
+    //mapas até esse número de blocos têm o campo calculado na hora
+    public static final int LIMITE_NA_HORA = 1<<16;
+    //distância de um bloco que não chega ao jogador
+    public static final int INALCANCAVEL = Integer.MAX_VALUE;
+
+    //thread das buscas dos mapas grandes, criada só quando algum mapa grande precisa
+    private static ExecutorService calculador;
+    private static final Object travaDoCalculador = new Object();
+
+    private final MapaDeBlocos mb;
+    private final int linhas, colunas, tamanhoBloco;
+
+    //blocos bloqueados, atualizados pelos lotes de mudanças, e a cópia usada pela busca em andamento
+    private final boolean[] bloqueado, copia;
+    //campo em uso e campo sendo calculado, trocados quando o cálculo termina
+    private int[] distancia, calculando;
+    private final int[] fila;
+    //bloco de destino do campo em uso e do cálculo em andamento
+    private int alvo = -1, alvoCalculando = -1;
+    //se um bloco mudou depois do último cálculo começar
+    private boolean mapaMudou;
+    private Future<?> trabalho;
+    private final Runnable busca = new Runnable(){
+        public void run(){
+            calcula(copia, alvoCalculando, calculando);
+        }
+    };
+    private int calculos;
+
+    public CampoDeFluxo(MapaDeBlocos mb){
+        if(mb.ehJanela()) throw new IllegalArgumentException("O campo de fluxo não funciona no mundo sem fim");
+        this.mb = mb;
+        linhas = mb.qualNumDeLinhas();
+        colunas = mb.qualNumDeCols();
+        tamanhoBloco = mb.qualTamanhoDoBloco();
+        int blocos = linhas*colunas;
+        bloqueado = new boolean[blocos];
+        for(int l=0;l<linhas;l++){
+            for(int c=0;c<colunas;c++) bloqueado[l*colunas+c] = mb.estaBloqueado(l, c);
+        }
+        boolean grande = blocos>LIMITE_NA_HORA;
+        copia = grande ? new boolean[blocos] : bloqueado;
+        distancia = new int[blocos];
+        calculando = new int[blocos];
+        fila = new int[blocos];
+        Arrays.fill(distancia, INALCANCAVEL);
+    }
+
+    /*chamado uma vez por atualização, depois do fechaMudancas: aplica as mudanças do lote, troca o campo se o
+    cálculo em andamento terminou e começa outro se o jogador (com o centro em x, y e a base da caixa meiaAltura
+    pixels abaixo) mudou de bloco*/
+    public void atualiza(double x, double y, int meiaAltura){
+        for(int i=0;i<mb.quantidadeDeMudancas();i++){
+            int l = mb.mudancaLinha(i), c = mb.mudancaColuna(i);
+            boolean b = mb.estaBloqueado(l, c);
+            if(bloqueado[l*colunas+c]!=b){
+                bloqueado[l*colunas+c] = b;
+                mapaMudou = true;
+            }
+        }
+
+        if(trabalho!=null){
+            if(!trabalho.isDone()) return;
+            try{
+                trabalho.get();
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+            trabalho = null;
+            troca();
+        }
+
+        int destino = apoioAbaixo(x, y, meiaAltura);
+        if(destino<0 || (destino==alvo && !mapaMudou)) return;
+        mapaMudou = false;
+        alvoCalculando = destino;
+        if(copia==bloqueado){
+            calcula(bloqueado, destino, calculando);
+            troca();
+            return;
+        }
+        System.arraycopy(bloqueado, 0, copia, 0, bloqueado.length);
+        trabalho = calculador().submit(busca);
+    }
+
+    private void troca(){
+        int[] d = distancia;
+        distancia = calculando;
+        calculando = d;
+        alvo = alvoCalculando;
+        calculos++;
+    }
+
+    private static ExecutorService calculador(){
+        synchronized(travaDoCalculador){
+            if(calculador==null){
+                calculador = Executors.newSingleThreadExecutor(new ThreadFactory(){
+                    public Thread newThread(Runnable r){
+                        Thread t = new Thread(r, "Campo-de-fluxo");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+            return calculador;
+        }
+    }
+
+    /*busca em largura a partir do destino pelos passos ao contrário: chega-se a um bloco andando de um vizinho do
+    lado que tem chão, ou caindo do bloco de cima, se ele não tem chão*/
+    private void calcula(boolean[] b, int destino, int[] d){
+        Arrays.fill(d, INALCANCAVEL);
+        d[destino] = 0;
+        int inicio = 0, fim = 0;
+        fila[fim++] = destino;
+        while(inicio<fim){
+            int i = fila[inicio++];
+            int l = i/colunas, c = i%colunas;
+            int prox = d[i]+1;
+            if(c>0 && d[i-1]==INALCANCAVEL && apoio(b, l, c-1)){
+                d[i-1] = prox;
+                fila[fim++] = i-1;
+            }
+            if(c+1<colunas && d[i+1]==INALCANCAVEL && apoio(b, l, c+1)){
+                d[i+1] = prox;
+                fila[fim++] = i+1;
+            }
+            if(l>0 && d[i-colunas]==INALCANCAVEL && !b[i-colunas] && !apoio(b, l-1, c)){
+                d[i-colunas] = prox;
+                fila[fim++] = i-colunas;
+            }
+        }
+    }
+
+    private boolean apoio(boolean[] b, int l, int c){
+        int i = l*colunas+c;
+        return !b[i] && l+1<linhas && b[i+colunas];
+    }
+
+    //bloco com chão em que fica a base do objeto, ou o primeiro abaixo dela se ele estiver no ar; -1 se não houver
+    private int apoioAbaixo(double x, double y, int meiaAltura){
+        int c = (int)Math.floor(x/tamanhoBloco), l = (int)Math.floor((y+meiaAltura-1)/tamanhoBloco);
+        if(c<0 || c>=colunas) return -1;
+        if(l<0) l = 0;
+        for(;l<linhas;l++){
+            if(bloqueado[l*colunas+c]) return -1;
+            if(apoio(bloqueado, l, c)) return l*colunas+c;
+        }
+        return -1;
+    }
+
+    //bloco da base do objeto com o centro em (x, y) e a base meiaAltura pixels abaixo, ou -1 fora do mapa
+    private int blocoDaBase(double x, double y, int meiaAltura){
+        int c = (int)Math.floor(x/tamanhoBloco), l = (int)Math.floor((y+meiaAltura-1)/tamanhoBloco);
+        if(c<0 || c>=colunas || l<0 || l>=linhas) return -1;
+        return l*colunas+c;
+    }
+
+    //se o objeto tem caminho até o jogador e ainda não chegou ao bloco dele
+    public boolean temCaminho(double x, double y, int meiaAltura){
+        int i = blocoDaBase(x, y, meiaAltura);
+        return i>=0 && distancia[i]!=INALCANCAVEL && distancia[i]!=0;
+    }
+
+    /*lado para onde o objeto deve andar para chegar ao jogador: -1 para a esquerda, 1 para a direita, ou 0 se ele
+    não estiver apoiado (no ar ou passando da beira, quando deve só continuar), já estiver no bloco do jogador ou
+    não tiver caminho*/
+    public int direcao(double x, double y, int meiaAltura){
+        int i = blocoDaBase(x, y, meiaAltura);
+        if(i<0) return 0;
+        int l = i/colunas, c = i-l*colunas;
+        int d = distancia[i];
+        if(d==INALCANCAVEL || d==0 || !apoio(bloqueado, l, c)) return 0;
+        int esquerda = c>0 ? distancia[i-1] : INALCANCAVEL;
+        int direita = c+1<colunas ? distancia[i+1] : INALCANCAVEL;
+        if(esquerda<d && esquerda<=direita) return -1;
+        if(direita<d) return 1;
+        return 0;
+    }
+
+    //passos até o jogador a partir do bloco, ou INALCANCAVEL
+    public int distanciaDoBloco(int linha, int coluna){return distancia[linha*colunas+coluna];}
+    //se o campo ainda está sendo recalculado em outra thread
+    public boolean estaCalculando(){return trabalho!=null;}
+    public int quantidadeDeCalculos(){return calculos;}
+}
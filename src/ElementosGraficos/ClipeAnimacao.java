@@ -0,0 +1,103 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * @author Gabriel
+ */
+public final class ClipeAnimacao {
+    /*Definição imutável de uma animação: as imagens e quantos ticks cada uma fica na tela. É criada uma vez e
+    compartilhada por todos os objetos que usam a mesma animação; cada objeto só guarda qual clipe está tocando e
+    em que tick começou (veja Animacao)*/
+    
+    private final BufferedImage[] frames;
+    //ticks que cada imagem fica na tela, ou -1 para uma imagem parada
+    private final int ticksPorFrame;
+    //duração de uma volta completa da animação, em ticks
+    private final int duracao;
+    //imagens espelhadas horizontalmente, criadas na primeira vez que forem pedidas
+    private volatile BufferedImage[] espelhados;
+    //imagens preparadas para o Rasterizador, também criadas só quando forem pedidas
+    private volatile ImagemRaster[] rasters;
+    
+    public ClipeAnimacao(BufferedImage[] frames, int ticksPorFrame){
+        this.frames = frames;
+        this.ticksPorFrame = ticksPorFrame;
+        duracao = ticksPorFrame<=0 ? Integer.MAX_VALUE : frames.length*ticksPorFrame;
+    }
+    
+    //converte um intervalo em milissegundos para ticks do jogo (60 por segundo)
+    public static int ticksDe(int milissegundos){
+        if(milissegundos<0) return -1;
+        return milissegundos*60/1000 + 1;
+    }
+    
+    //retorna o número da imagem depois de decorrido ticks desde o começo, repetindo a animação
+    public int frame(long decorrido){
+        if(ticksPorFrame<=0 || decorrido<0) return 0;
+        return (int)((decorrido/ticksPorFrame) % frames.length);
+    }
+    
+    //retorna se, depois de decorrido ticks, a animação já foi executada uma vez por completo
+    public boolean foiExecutado(long decorrido){
+        return decorrido>=duracao;
+    }
+    
+    public int quantidadeDeFrames(){return frames.length;}
+    public int qualTicksPorFrame(){return ticksPorFrame;}
+    public int qualDuracao(){return duracao;}
+    public BufferedImage imagem(int frame){return frames[frame];}
+    public BufferedImage[] quaisSaoOsFrames(){return frames;}
+    
+    /*retorna a imagem espelhada horizontalmente. Desenhar com largura negativa faz o Java2D criar transformações a
+    cada frame, então é melhor desenhar a imagem já espelhada*/
+    public BufferedImage imagemEspelhada(int frame){
+        BufferedImage[] e = espelhados;
+        if(e==null) e = criaEspelhados();
+        return e[frame];
+    }
+    
+    private synchronized BufferedImage[] criaEspelhados(){
+        if(espelhados==null) espelhados = espelha(frames);
+        return espelhados;
+    }
+    
+    //retorna a imagem preparada para o Rasterizador (que já tem a versão espelhada)
+    public ImagemRaster raster(int frame){
+        ImagemRaster[] r = rasters;
+        if(r==null) r = criaRasters();
+        return r[frame];
+    }
+    
+    //sincronizado porque os clipes são compartilhados, e o desenho pode ser feito por mais de uma thread
+    private synchronized ImagemRaster[] criaRasters(){
+        if(rasters==null){
+            ImagemRaster[] r = new ImagemRaster[frames.length];
+            for(int i=0;i<frames.length;i++){
+                r[i] = new ImagemRaster(frames[i]);
+            }
+            rasters = r;
+        }
+        return rasters;
+    }
+    
+    private static BufferedImage[] espelha(BufferedImage[] frames){
+        BufferedImage[] e = new BufferedImage[frames.length];
+        for(int i=0;i<frames.length;i++){
+            BufferedImage f = frames[i];
+            e[i] = new BufferedImage(f.getWidth(), f.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = e[i].createGraphics();
+            g.drawImage(f, f.getWidth(), 0, -f.getWidth(), f.getHeight(), null);
+            g.dispose();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class FonteBitmap {
+    /*Fonte desenhada a partir de imagens. Cada caractere é desenhado uma única vez em uma imagem (atlas) quando a
+    fonte é criada, e depois escrever um texto é só desenhar os pedaços dessa imagem, sem o Java2D ter que montar
+    e rasterizar as letras a cada frame*/
+
+    //caracteres que ficam no atlas (tabela ASCII imprimível)
+    private static final int PRIMEIRO = 32, ULTIMO = 126;
+    //espaço em volta de cada letra, para partes que saem da largura do caractere
+    private static final int MARGEM = 2;
+
+    //imagem com todas as letras, e as subimagens de cada uma
+    private BufferedImage atlas;
+    private BufferedImage[] glifos;
+    //largura que cada letra avança o texto
+    private int[] avancos;
+    //distância entre o topo da letra e a linha base
+    private int ascendente, altura;
+
+    //cria a fonte a partir de uma fonte do sistema e de uma cor
+    public FonteBitmap(Font fonte, Color cor){
+        //usa uma imagem pequena só para pegar as medidas da fonte
+        BufferedImage medida = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D gm = medida.createGraphics();
+        FontMetrics fm = gm.getFontMetrics(fonte);
+        gm.dispose();
+
+        ascendente = fm.getAscent();
+        altura = fm.getAscent()+fm.getDescent();
+
+        int quantidade = ULTIMO-PRIMEIRO+1;
+        avancos = new int[quantidade];
+        int larguraAtlas = 0;
+        for(int i=0;i<quantidade;i++){
+            avancos[i] = fm.charWidth((char)(PRIMEIRO+i));
+            larguraAtlas += avancos[i]+MARGEM*2;
+        }
+
+        //desenha todas as letras lado a lado no atlas
+        atlas = new BufferedImage(larguraAtlas, altura+MARGEM*2, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        g.setFont(fonte);
+        g.setColor(cor);
+        glifos = new BufferedImage[quantidade];
+        int x = 0;
+        for(int i=0;i<quantidade;i++){
+            int largura = avancos[i]+MARGEM*2;
+            g.drawString(String.valueOf((char)(PRIMEIRO+i)), x+MARGEM, MARGEM+ascendente);
+            glifos[i] = atlas.getSubimage(x, 0, largura, altura+MARGEM*2);
+            x += largura;
+        }
+        g.dispose();
+    }
+
+    //desenha uma letra com a linha base em y e retorna a posição x da próxima
+    public int desenha(Graphics2D g, char c, int x, int y){
+        int i = c-PRIMEIRO;
+        if(i<0 || i>=glifos.length) i = 0;//caracteres fora da tabela viram espaço
+        if(c!=' ') g.drawImage(glifos[i], x-MARGEM, y-ascendente-MARGEM, null);
+        return x+avancos[i];
+    }
+
+    //desenha o texto com a linha base em y, como o drawString, e retorna a posição x do fim do texto
+    public int desenha(Graphics2D g, String s, int x, int y){
+        for(int i=0;i<s.length();i++){
+            x = desenha(g, s.charAt(i), x, y);
+        }
+        return x;
+    }
+
+    //desenha um número inteiro sem transformá-lo em String, e retorna a posição x do fim do número
+    public int desenhaNumero(Graphics2D g, int n, int x, int y){
+        if(n==0) return desenha(g, '0', x, y);
+        long v = n;
+        if(v<0){
+            x = desenha(g, '-', x, y);
+            v = -v;
+        }
+        /*desenha do dígito mais significativo para o menos, sem buffer, assim a mesma fonte pode ser usada por
+        mais de uma thread ao mesmo tempo*/
+        long divisor = 1;
+        while(divisor*10<=v) divisor *= 10;
+        for(;divisor>0;divisor/=10){
+            x = desenha(g, (char)('0'+v/divisor%10), x, y);
+        }
+        return x;
+    }
+
+    //retorna a largura do texto em pixels
+    public int larguraDe(String s){
+        int largura = 0;
+        for(int i=0;i<s.length();i++){
+            int c = s.charAt(i)-PRIMEIRO;
+            largura += avancos[c<0 || c>=avancos.length ? 0 : c];
+        }
+        return largura;
+    }
+
+    public int qualAltura(){return altura;}
+    public int qualAscendente(){return ascendente;}
+}
@@ -0,0 +1,56 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class FundoParallax {
+    /*Conjunto de camadas de fundo, desenhadas da primeira (mais distante) para a última (mais próxima). Cada camada
+    tem sua própria velocidade em relação à tela e seu próprio movimento automático*/
+    
+    private ArrayList<ImagemDeFundo> camadas;
+    
+    public FundoParallax(){
+        camadas = new ArrayList<>();
+    }
+    
+    //adiciona uma camada na frente das outras e a retorna, para poder ajustar o movimento automático
+    public ImagemDeFundo adicionaCamada(String s, double velocidade){
+        ImagemDeFundo camada = new ImagemDeFundo(s, velocidade);
+        camadas.add(camada);
+        return camada;
+    }
+    
+    public int quantidadeDeCamadas(){return camadas.size();}
+    public ImagemDeFundo camada(int i){return camadas.get(i);}
+    
+    //muda a posição de todas as camadas de acordo com a posição da tela
+    public void mudarPosicaoPara(double x, double y){
+        for(int i=0;i<camadas.size();i++){
+            camadas.get(i).mudarPosicaoPara(x, y);
+        }
+    }
+    
+    //atualiza o movimento automático de todas as camadas
+    public void atualiza(){
+        for(int i=0;i<camadas.size();i++){
+            camadas.get(i).atualiza();
+        }
+    }
+    
+    //desenha as camadas de trás para frente
+    public void desenha(Graphics2D g){
+        for(int i=0;i<camadas.size();i++){
+            camadas.get(i).desenha(g);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class GeradorDeTerreno {
+    /*Gera mapas de blocos a partir de uma semente, seguindo a numeração do blocos.gif (10 blocos por linha; de 0 a 9
+    são enfeites sem colisão, de 10 a 19 são bloqueados). O terreno é um chão de altura variável, com buracos e
+    plataformas flutuantes, entre duas paredes nas pontas, como no level1-1. A mesma semente sempre gera o mesmo
+    mapa*/
+
+    //números dos blocos no blocos.gif
+    public static final int VAZIO = 0;
+    public static final int BORDA_GRAMA_DIREITA = 1, BORDA_GRAMA_ESQUERDA = 2;
+    public static final int BORDA_PAREDE_DIREITA = 3, BORDA_PAREDE_ESQUERDA = 4;
+    public static final int GRAMA = 10, TERRA = 11;
+    public static final int CANTO_PAREDE_ESQUERDA = 12, CANTO_PAREDE_DIREITA = 13;
+    public static final int PLATAFORMA_MEIO = 14, PLATAFORMA_FIM = 15, PLATAFORMA_INICIO = 16;
+
+    //colunas de parede em cada ponta, e colunas sem buracos no começo e no fim (para o jogador e o portal)
+    private static final int PAREDE = 2, MARGEM = 8;
+
+    private final int linhas;
+    //chance (de 0 a 1) de cada trecho de chão ter uma plataforma em cima
+    private final double densidadePlataformas;
+    //chance de cada trecho de chão ser seguido por um buraco
+    private double chanceBuraco = 0.15;
+    private final Random r;
+
+    public GeradorDeTerreno(long semente, int linhas, double densidadePlataformas){
+        if(linhas<6) throw new IllegalArgumentException("O mapa precisa de pelo menos 6 linhas");
+        this.linhas = linhas;
+        this.densidadePlataformas = densidadePlataformas;
+        r = new Random(semente);
+    }
+
+    public void mudarChanceDeBuraco(double c){chanceBuraco = c;}
+
+    /*gera as linhas do topo do chão de cada coluna. O valor linhas significa buraco (sem chão), e -1 significa
+    parede (terra na coluna inteira)*/
+    public int[] geraAlturas(int colunas){
+        int[] topo = new int[colunas];
+        int alturaMin = Math.max(2, linhas-5), alturaMax = linhas-1;
+        int h = linhas-2;
+        int c = 0;
+        for(;c<PAREDE && c<colunas;c++) topo[c] = -1;
+        while(c<colunas-PAREDE){
+            //um trecho de chão com a mesma altura
+            int tamanho = 4+r.nextInt(7);
+            for(int i=0;i<tamanho && c<colunas-PAREDE;i++) topo[c++] = h;
+
+            //o próximo trecho pode começar depois de um buraco, e sobe ou desce no máximo um bloco
+            if(c>MARGEM && c<colunas-MARGEM-3 && r.nextDouble()<chanceBuraco){
+                int buraco = 2+r.nextInt(2);
+                for(int i=0;i<buraco;i++) topo[c++] = linhas;
+            }
+            h += r.nextInt(3)-1;
+            if(h<alturaMin) h = alturaMin;
+            if(h>alturaMax) h = alturaMax;
+        }
+        //as últimas colunas antes da parede não têm buraco
+        for(int i=colunas-MARGEM;i<colunas-PAREDE;i++){
+            if(i>=0 && topo[i]==linhas) topo[i] = h;
+        }
+        for(;c<colunas;c++) topo[c] = -1;
+        return topo;
+    }
+
+    /*altura do chão na primeira coluna do trecho k de um mundo infinito. Depende só da semente e de k, então os
+    trechos podem ser gerados em qualquer ordem (e em threads diferentes) e ainda assim se encaixam*/
+    public static int alturaDaBorda(long semente, int linhas, int k){
+        if(k==0) return linhas-2;
+        Random r = new Random(semente*0x9E3779B97F4A7C15L+k);
+        int alturaMin = Math.max(2, linhas-5), alturaMax = linhas-1;
+        return alturaMin+r.nextInt(alturaMax-alturaMin+1);
+    }
+    
+    /*gera as alturas de um trecho de um mundo infinito, com uma coluna a mais em cada ponta: a última do trecho
+    anterior (alturaInicio) e a primeira do seguinte (alturaFim). O trecho começa na alturaInicio, não tem buracos
+    perto das pontas e termina subindo ou descendo até a alturaFim; com paredeEsquerda, começa com a parede do
+    começo do mundo*/
+    public int[] geraAlturasDoTrecho(int colunas, int alturaInicio, int alturaFim, boolean paredeEsquerda){
+        int[] topo = new int[colunas+2];
+        int alturaMin = Math.max(2, linhas-5), alturaMax = linhas-1;
+        //colunas no fim do trecho usadas para chegar na alturaFim, um bloco a cada duas colunas
+        int limite = colunas+1-(alturaMax-alturaMin)*2;
+        int h = alturaInicio;
+        int c = 1;
+        topo[0] = paredeEsquerda ? -1 : alturaInicio;
+        if(paredeEsquerda) for(;c<=PAREDE;c++) topo[c] = -1;
+        while(c<limite){
+            int tamanho = 4+r.nextInt(7);
+            for(int i=0;i<tamanho && c<limite;i++) topo[c++] = h;
+            
+            if(c>MARGEM && c<limite-3 && r.nextDouble()<chanceBuraco){
+                int buraco = 2+r.nextInt(2);
+                for(int i=0;i<buraco;i++) topo[c++] = linhas;
+            }
+            h += r.nextInt(3)-1;
+            if(h<alturaMin) h = alturaMin;
+            if(h>alturaMax) h = alturaMax;
+        }
+        for(int i=0;c<=colunas;c++,i++){
+            if(i%2==0 && h!=alturaFim) h += h<alturaFim ? 1 : -1;
+            topo[c] = h;
+        }
+        topo[colunas+1] = alturaFim;
+        return topo;
+    }
+    
+    //monta os blocos do trecho a partir das alturas do geraAlturasDoTrecho, sem as colunas das pontas
+    public int[][] montaTrecho(int[] topo){
+        int colunas = topo.length-2;
+        int[][] mapa = new int[linhas][topo.length];
+        montaChao(mapa, topo, 0, topo.length);
+        colocaPlataformas(mapa, topo, 1, colunas+1);
+        int[][] trecho = new int[linhas][colunas];
+        for(int l=0;l<linhas;l++){
+            System.arraycopy(mapa[l], 1, trecho[l], 0, colunas);
+        }
+        return trecho;
+    }
+    
+    //gera um mapa completo, já com os blocos de borda e as plataformas
+    public int[][] geraMapa(int colunas){
+        int[] topo = geraAlturas(colunas);
+        int[][] mapa = new int[linhas][colunas];
+        montaChao(mapa, topo, 0, colunas);
+        colocaPlataformas(mapa, topo, 0, colunas);
+        return mapa;
+    }
+
+    //preenche as colunas de inicio até fim com o chão e os enfeites das bordas, a partir das alturas
+    public void montaChao(int[][] mapa, int[] topo, int inicio, int fim){
+        for(int c=inicio;c<fim;c++){
+            int t = topo[c];
+            for(int l=0;l<linhas;l++){
+                if(t<0) mapa[l][c] = TERRA;//parede
+                else if(l==t) mapa[l][c] = GRAMA;
+                else if(l>t) mapa[l][c] = TERRA;
+                else mapa[l][c] = VAZIO;
+            }
+            if(t<0 || t>=linhas) continue;
+            //no pé de um degrau, a grama encosta na parede mais alta
+            boolean paredeEsquerda = c>0 && topo[c-1]<t;
+            boolean paredeDireita = c+1<topo.length && topo[c+1]<t;
+            if(paredeEsquerda) mapa[t][c] = CANTO_PAREDE_ESQUERDA;
+            else if(paredeDireita) mapa[t][c] = CANTO_PAREDE_DIREITA;
+        }
+        //enfeites sem colisão no ar, ao lado de blocos mais altos
+        for(int c=inicio;c<fim;c++){
+            int t = topo[c];
+            int topoDireita = c+1<topo.length ? topo[c+1] : linhas;
+            int topoEsquerda = c>0 ? topo[c-1] : linhas;
+            for(int l=0;l<Math.min(t<0 ? 0 : t, linhas);l++){
+                if(topoDireita<=l) mapa[l][c] = l==topoDireita ? BORDA_GRAMA_ESQUERDA : BORDA_PAREDE_ESQUERDA;
+                else if(topoEsquerda<=l) mapa[l][c] = l==topoEsquerda ? BORDA_GRAMA_DIREITA : BORDA_PAREDE_DIREITA;
+            }
+        }
+    }
+
+    //coloca plataformas flutuantes três blocos acima do chão, onde houver espaço livre
+    public void colocaPlataformas(int[][] mapa, int[] topo, int inicio, int fim){
+        int c = Math.max(inicio, PAREDE+MARGEM);
+        while(c<fim-MARGEM){
+            int tamanho = 3+r.nextInt(4);
+            if(r.nextDouble()<densidadePlataformas){
+                //a plataforma fica acima do chão mais alto embaixo dela
+                int maisAlto = linhas;
+                for(int i=c;i<c+tamanho && i<fim;i++) maisAlto = Math.min(maisAlto, topo[i]<0 ? 0 : topo[i]);
+                int l = Math.min(maisAlto, linhas-1)-3;
+                if(l>=1 && livre(mapa, l, c-1, c+tamanho+1)){
+                    mapa[l][c] = PLATAFORMA_INICIO;
+                    for(int i=c+1;i<c+tamanho-1;i++) mapa[l][i] = PLATAFORMA_MEIO;
+                    mapa[l][c+tamanho-1] = PLATAFORMA_FIM;
+                }
+            }
+            c += tamanho+2+r.nextInt(6);
+        }
+    }
+
+    //confere se as colunas de inicio até fim estão vazias na linha e nas linhas vizinhas
+    private boolean livre(int[][] mapa, int linha, int inicio, int fim){
+        for(int l=linha-1;l<=linha+1;l++){
+            for(int c=inicio;c<fim;c++){
+                if(l<0 || l>=linhas || c<0 || c>=mapa[0].length) return false;
+                if(mapa[l][c]!=VAZIO) return false;
+            }
+        }
+        return true;
+    }
+
+    //sorteia uma coluna com chão a partir de inicio, ou -1 se não encontrar
+    public int sorteiaColunaComChao(int[] topo, int inicio, int fim){
+        for(int tentativa=0;tentativa<32;tentativa++){
+            int c = inicio+r.nextInt(fim-inicio);
+            if(topo[c]>=0 && topo[c]<linhas) return c;
+        }
+        return -1;
+    }
+
+    public Random qualRandom(){return r;}
+}
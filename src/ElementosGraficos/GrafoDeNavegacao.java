@@ -0,0 +1,550 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class GrafoDeNavegacao {
+    /*Grafo para inimigos que andam pelas plataformas atrás de um destino, montado uma vez a partir dos blocos
+    bloqueados do MapaDeBlocos. Cada nó é um trecho: uma sequência de blocos livres na mesma linha com um bloco
+    bloqueado embaixo de cada um, onde dá para andar de uma ponta à outra. As ligações saem das pontas dos trechos:
+        queda - anda para fora da ponta e cai reto até o trecho de baixo
+        pulo  - até alturaPulo linhas para cima ou para baixo e alcancePulo colunas da coluna de saída até a de
+                chegada (um buraco de n colunas precisa de alcance n+1), com o caminho livre (sobe na coluna de
+                saída, atravessa na linha mais alta e desce na coluna de chegada)
+    O custo de uma ligação conta a caminhada do meio do trecho até a coluna de saída, a ligação em si e a
+    caminhada da chegada até o meio do trecho de destino, então não depende de onde o inimigo está no trecho.
+
+    Os caminhos são guardados por destino: para um trecho de destino, uma busca de Dijkstra no grafo invertido
+    calcula, de uma vez, qual ligação tomar em cada trecho do mapa. Assim a consulta (início, destino) é uma
+    leitura de vetor, e centenas de perseguidores indo para o mesmo lugar (o trecho do jogador) custam uma busca
+    só; consultaLote responde todos de uma vez. Ficam guardados os últimos CACHE destinos.
+
+    Quando blocos mudam (veja MapaDeBlocos.fechaMudancas), atualiza olha só os blocos do lote e anota os que
+    passaram de livre para bloqueado ou o contrário. Na próxima consulta o grafo é refeito só em volta deles (veja
+    refaz): os trechos das linhas mudadas são procurados de novo só nas colunas mudadas, as ligações são
+    calculadas de novo só para os trechos que podem passar por um bloco mudado, e as outras são copiadas, com o
+    trecho de chegada e o custo corrigidos. Com mais de MUDANCAS_POR_VEZ blocos anotados o grafo é montado
+    inteiro. Os caminhos guardados são descartados nos dois casos. Só serve para fases de arquivo, e não para a
+    janela do mundo sem fim*/
+
+    public static final int CACHE = 8;
+    //blocos mudados que ainda são refeitos só em volta; acima disso o grafo é montado inteiro
+    public static final int MUDANCAS_POR_VEZ = 64;
+    //custo de um trecho que não chega ao destino
+    public static final int INALCANCAVEL = Integer.MAX_VALUE;
+    //custo extra de um pulo em relação a andar e cair a mesma distância
+    private static final int CUSTO_DO_PULO = 2;
+
+    private final MapaDeBlocos mb;
+    private final int alturaPulo, alcancePulo;
+    private final int linhas, colunas;
+
+    //bloqueado de cada bloco, já com as mudanças anotadas, para saber se uma mudança importa
+    private boolean[] bloqueado;
+    private boolean sujo = true;
+    //blocos (linha*colunas+coluna) que mudaram desde a última montagem
+    private final int[] mudados = new int[MUDANCAS_POR_VEZ];
+    private int quantMudados;
+
+    //trechos: linha, primeira e última coluna; os da linha l vão de primeiroDaLinha[l] até primeiroDaLinha[l+1]
+    private int quantTrechos;
+    private int[] linhaDoTrecho = new int[64], inicioDoTrecho = new int[64], fimDoTrecho = new int[64];
+    private int[] primeiroDaLinha;
+
+    //ligações, com as que saem do trecho t de primeiraLigacao[t] até primeiraLigacao[t+1]
+    private int quantLigacoes;
+    private int[] origem = new int[64], destino = new int[64], saida = new int[64], chegada = new int[64];
+    private int[] custo = new int[64];
+    private boolean[] pulo = new boolean[64];
+    private int[] primeiraLigacao;
+    //as mesmas ligações agrupadas pelo destino, para a busca a partir do destino
+    private int[] primeiraQueChega, queChega;
+
+    //caminhos guardados: para cada destino, a ligação a tomar e o custo a partir de cada trecho
+    private final int[] destinoGuardado = new int[CACHE];
+    private final int[][] ligacaoGuardada = new int[CACHE][], custoGuardado = new int[CACHE][];
+    private final long[] usoGuardado = new long[CACHE];
+    private long usos;
+    private int acertos, faltas, montagens, refeitos;
+
+    //heap da busca, com o trecho e o custo de cada item
+    private int[] heapTrecho = new int[64], heapCusto = new int[64];
+    private int tamanhoHeap;
+
+    public GrafoDeNavegacao(MapaDeBlocos mb, int alturaPulo, int alcancePulo){
+        if(mb.ehJanela()) throw new IllegalArgumentException("O grafo de navegação não funciona no mundo sem fim");
+        this.mb = mb;
+        this.alturaPulo = alturaPulo;
+        this.alcancePulo = alcancePulo;
+        linhas = mb.qualNumDeLinhas();
+        colunas = mb.qualNumDeCols();
+        Arrays.fill(destinoGuardado, -1);
+    }
+
+    //olha o lote de mudanças fechado agora há pouco; chamado uma vez por atualização, depois do fechaMudancas
+    public void atualiza(){
+        if(sujo) return;
+        for(int i=0;i<mb.quantidadeDeMudancas();i++){
+            int l = mb.mudancaLinha(i), c = mb.mudancaColuna(i);
+            boolean b = mb.estaBloqueado(l, c);
+            if(b==bloqueado[l*colunas+c]) continue;
+            if(quantMudados==MUDANCAS_POR_VEZ){
+                sujo = true;
+                return;
+            }
+            bloqueado[l*colunas+c] = b;
+            mudados[quantMudados++] = l*colunas+c;
+        }
+    }
+
+    private void garanteMontado(){
+        if(sujo){
+            monta();
+            sujo = false;
+            montagens++;
+        }
+        else if(quantMudados>0) refaz();
+        else return;
+        quantMudados = 0;
+        Arrays.fill(destinoGuardado, -1);
+    }
+
+    private boolean livre(int l, int c){
+        return l>=0 && c>=0 && l<linhas && c<colunas && !bloqueado[l*colunas+c];
+    }
+    //dá para ficar em pé no bloco: ele é livre e o de baixo é bloqueado
+    private boolean apoio(int l, int c){
+        return livre(l, c) && l+1<linhas && bloqueado[(l+1)*colunas+c];
+    }
+
+    private void monta(){
+        if(bloqueado==null){
+            bloqueado = new boolean[linhas*colunas];
+            primeiroDaLinha = new int[linhas+1];
+        }
+        for(int l=0;l<linhas;l++){
+            for(int c=0;c<colunas;c++) bloqueado[l*colunas+c] = mb.estaBloqueado(l, c);
+        }
+
+        //trechos, linha por linha e da esquerda para a direita
+        quantTrechos = 0;
+        for(int l=0;l<linhas;l++){
+            primeiroDaLinha[l] = quantTrechos;
+            procuraTrechos(l, 0, colunas-1);
+        }
+        primeiroDaLinha[linhas] = quantTrechos;
+
+        //ligações, já em ordem de origem
+        quantLigacoes = 0;
+        primeiraLigacao = new int[quantTrechos+1];
+        for(int t=0;t<quantTrechos;t++){
+            primeiraLigacao[t] = quantLigacoes;
+            liga(t);
+        }
+        primeiraLigacao[quantTrechos] = quantLigacoes;
+        agrupaPorDestino();
+    }
+
+    //acrescenta os trechos da linha l que ficam entre as colunas de e ate
+    private void procuraTrechos(int l, int de, int ate){
+        int c = de;
+        while(c<=ate){
+            if(!apoio(l, c)){
+                c++;
+                continue;
+            }
+            int inicio = c;
+            while(c<=ate && apoio(l, c)) c++;
+            adicionaTrecho(l, inicio, c-1);
+        }
+    }
+
+    private void adicionaTrecho(int l, int inicio, int fim){
+        if(quantTrechos==linhaDoTrecho.length){
+            linhaDoTrecho = Arrays.copyOf(linhaDoTrecho, quantTrechos*2);
+            inicioDoTrecho = Arrays.copyOf(inicioDoTrecho, quantTrechos*2);
+            fimDoTrecho = Arrays.copyOf(fimDoTrecho, quantTrechos*2);
+        }
+        linhaDoTrecho[quantTrechos] = l;
+        inicioDoTrecho[quantTrechos] = inicio;
+        fimDoTrecho[quantTrechos] = fim;
+        quantTrechos++;
+    }
+
+    private void liga(int t){
+        ligaQueda(t, inicioDoTrecho[t]-1);
+        ligaQueda(t, fimDoTrecho[t]+1);
+        ligaPulos(t);
+    }
+
+    /*refaz o grafo em volta dos blocos anotados pelo atualiza. Uma mudança no bloco (l, c) só muda o apoio dos
+    blocos (l, c) e (l-1, c), então nas linhas l e l-1 só os trechos que encostam nas colunas mudadas são
+    procurados de novo; os outros trechos são copiados (com outro número, se a quantidade antes deles mudou). As
+    ligações são calculadas de novo para os trechos novos e para os que podem passar por um bloco mudado: as
+    quedas pela coluna c das linhas de cima e os pulos dos trechos a até alturaPulo+1 linhas e alcancePulo+1
+    colunas dele. As ligações dos outros trechos não passam por nenhum bloco mudado e são copiadas; só o trecho
+    de chegada pode ter sido refeito, e então é procurado pela linha e coluna de chegada, e o custo corrigido
+    pelo meio do trecho novo*/
+    private void refaz(){
+        //colunas mudadas de cada linha, da primeira à última
+        int[] deLinha = new int[linhas], ateLinha = new int[linhas];
+        Arrays.fill(deLinha, colunas);
+        Arrays.fill(ateLinha, -1);
+        for(int i=0;i<quantMudados;i++){
+            int l = mudados[i]/colunas, c = mudados[i]%colunas;
+            for(int k=Math.max(0, l-1);k<=l;k++){
+                deLinha[k] = Math.min(deLinha[k], c);
+                ateLinha[k] = Math.max(ateLinha[k], c);
+            }
+        }
+
+        //trechos, guardando o número novo de cada trecho antigo (-1 se foi refeito) e o antigo de cada novo
+        int quantAntes = quantTrechos;
+        int[] linhaAntes = linhaDoTrecho, inicioAntes = inicioDoTrecho, fimAntes = fimDoTrecho;
+        int[] primeiroAntes = primeiroDaLinha;
+        int[] novoNumero = new int[quantAntes], numeroAntigo = new int[quantAntes+quantMudados*2+1];
+        linhaDoTrecho = new int[linhaAntes.length];
+        inicioDoTrecho = new int[linhaAntes.length];
+        fimDoTrecho = new int[linhaAntes.length];
+        primeiroDaLinha = new int[linhas+1];
+        quantTrechos = 0;
+        for(int l=0;l<linhas;l++){
+            primeiroDaLinha[l] = quantTrechos;
+            int de = deLinha[l], ate = ateLinha[l];
+            //os trechos refeitos vão até onde o apoio continua, fora das colunas mudadas
+            if(ate>=0){
+                while(de>0 && apoio(l, de-1)) de--;
+                while(ate<colunas-1 && apoio(l, ate+1)) ate++;
+            }
+            int t = primeiroAntes[l];
+            for(;t<primeiroAntes[l+1] && (ate<0 || fimAntes[t]<de);t++) copiaTrecho(t, linhaAntes, inicioAntes, fimAntes, novoNumero, numeroAntigo);
+            if(ate<0) continue;
+            for(;t<primeiroAntes[l+1] && inicioAntes[t]<=ate;t++) novoNumero[t] = -1;
+            int antes = quantTrechos;
+            procuraTrechos(l, de, ate);
+            if(numeroAntigo.length<quantTrechos+quantAntes) numeroAntigo = Arrays.copyOf(numeroAntigo, quantTrechos+quantAntes);
+            for(int n=antes;n<quantTrechos;n++) numeroAntigo[n] = -1;
+            for(;t<primeiroAntes[l+1];t++) copiaTrecho(t, linhaAntes, inicioAntes, fimAntes, novoNumero, numeroAntigo);
+        }
+        primeiroDaLinha[linhas] = quantTrechos;
+
+        //trechos que têm as ligações calculadas de novo
+        boolean[] recalcula = new boolean[quantTrechos];
+        for(int t=0;t<quantTrechos;t++) recalcula[t] = numeroAntigo[t]<0;
+        for(int i=0;i<quantMudados;i++){
+            int l = mudados[i]/colunas, c = mudados[i]%colunas;
+            for(int k=0;k<=l;k++){
+                int t = primeiroNaLinha(k, c-1);
+                if(t<primeiroDaLinha[k+1] && fimDoTrecho[t]==c-1) recalcula[t] = true;
+                t = primeiroNaLinha(k, c+1);
+                if(t<primeiroDaLinha[k+1] && inicioDoTrecho[t]==c+1) recalcula[t] = true;
+            }
+            for(int k=Math.max(0, l-alturaPulo-1);k<=Math.min(linhas-1, l+alturaPulo+1);k++){
+                for(int t=primeiroNaLinha(k, c-alcancePulo-1);t<primeiroDaLinha[k+1] && inicioDoTrecho[t]<=c+alcancePulo+1;t++){
+                    recalcula[t] = true;
+                }
+            }
+        }
+
+        //ligações, já em ordem de origem
+        int[] primeiraAntes = primeiraLigacao, destinoAntes = destino, saidaAntes = saida, chegadaAntes = chegada;
+        int[] custoAntes = custo;
+        boolean[] puloAntes = pulo;
+        origem = new int[origem.length];
+        destino = new int[origem.length];
+        saida = new int[origem.length];
+        chegada = new int[origem.length];
+        custo = new int[origem.length];
+        pulo = new boolean[origem.length];
+        quantLigacoes = 0;
+        primeiraLigacao = new int[quantTrechos+1];
+        for(int t=0;t<quantTrechos;t++){
+            primeiraLigacao[t] = quantLigacoes;
+            if(recalcula[t]){
+                liga(t);
+                continue;
+            }
+            int a = numeroAntigo[t];
+            for(int i=primeiraAntes[a];i<primeiraAntes[a+1];i++){
+                int b = destinoAntes[i], cheg = chegadaAntes[i];
+                int nb = novoNumero[b];
+                if(nb<0) nb = trechoNoBloco(linhaAntes[b], cheg);
+                int meioAntes = inicioAntes[b]+fimAntes[b], meioB = inicioDoTrecho[nb]+fimDoTrecho[nb];
+                int novoCusto = custoAntes[i]-Math.abs(2*cheg-meioAntes)+Math.abs(2*cheg-meioB);
+                copiaLigacao(t, nb, saidaAntes[i], cheg, novoCusto, puloAntes[i]);
+            }
+        }
+        primeiraLigacao[quantTrechos] = quantLigacoes;
+        agrupaPorDestino();
+        refeitos++;
+    }
+
+    private void copiaTrecho(int t, int[] linhaAntes, int[] inicioAntes, int[] fimAntes, int[] novoNumero, int[] numeroAntigo){
+        novoNumero[t] = quantTrechos;
+        numeroAntigo[quantTrechos] = t;
+        adicionaTrecho(linhaAntes[t], inicioAntes[t], fimAntes[t]);
+    }
+
+    //agrupa as ligações pelo destino e ajusta os vetores que dependem do número de trechos e de ligações
+    private void agrupaPorDestino(){
+        primeiraQueChega = new int[quantTrechos+1];
+        queChega = new int[quantLigacoes];
+        for(int i=0;i<quantLigacoes;i++) primeiraQueChega[destino[i]+1]++;
+        for(int t=0;t<quantTrechos;t++) primeiraQueChega[t+1] += primeiraQueChega[t];
+        int[] proxima = Arrays.copyOf(primeiraQueChega, quantTrechos);
+        for(int i=0;i<quantLigacoes;i++) queChega[proxima[destino[i]]++] = i;
+
+        for(int i=0;i<CACHE;i++){
+            if(ligacaoGuardada[i]==null || ligacaoGuardada[i].length<quantTrechos){
+                ligacaoGuardada[i] = new int[quantTrechos];
+                custoGuardado[i] = new int[quantTrechos];
+            }
+        }
+        if(heapTrecho.length<quantLigacoes+quantTrechos){
+            heapTrecho = new int[quantLigacoes+quantTrechos];
+            heapCusto = new int[quantLigacoes+quantTrechos];
+        }
+    }
+
+    //anda para fora do trecho pela coluna c e cai reto até o primeiro apoio
+    private void ligaQueda(int t, int c){
+        int l = linhaDoTrecho[t];
+        if(!livre(l, c)) return;
+        int r = l;
+        while(r<linhas && livre(r, c) && !apoio(r, c)) r++;
+        if(r>=linhas || !apoio(r, c)) return;
+        adicionaLigacao(t, trechoNoBloco(r, c), c<inicioDoTrecho[t] ? inicioDoTrecho[t] : fimDoTrecho[t], c, 1+r-l, false);
+    }
+
+    //pulos para os trechos próximos, procurados só nas linhas ao alcance e a partir da primeira coluna que alcança
+    private void ligaPulos(int a){
+        int la = linhaDoTrecho[a], ia = inicioDoTrecho[a], fa = fimDoTrecho[a];
+        for(int lb=Math.max(0, la-alturaPulo);lb<=Math.min(linhas-1, la+alturaPulo);lb++){
+            int fim = primeiroDaLinha[lb+1];
+            for(int b=primeiroNaLinha(lb, ia-alcancePulo);b<fim && inicioDoTrecho[b]<=fa+alcancePulo;b++){
+                if(b==a) continue;
+                int ib = inicioDoTrecho[b], fb = fimDoTrecho[b];
+                int colunaSaida, colunaChegada;
+                if(ib>fa){
+                    colunaSaida = fa;
+                    colunaChegada = ib;
+                }
+                else if(fb<ia){
+                    colunaSaida = ia;
+                    colunaChegada = fb;
+                }
+                //por cima do trecho: sobe por fora de uma das pontas do trecho de cima
+                else if(lb<la && fb+1<=fa){
+                    colunaSaida = fb+1;
+                    colunaChegada = fb;
+                }
+                else if(lb<la && ib-1>=ia){
+                    colunaSaida = ib-1;
+                    colunaChegada = ib;
+                }
+                else continue;
+                if(!caminhoLivre(la, colunaSaida, lb, colunaChegada)) continue;
+                int distancia = Math.abs(colunaChegada-colunaSaida)+Math.abs(lb-la)+CUSTO_DO_PULO;
+                adicionaLigacao(a, b, colunaSaida, colunaChegada, distancia, true);
+            }
+        }
+    }
+
+    //trecho em que fica o bloco, ou -1
+    private int trechoNoBloco(int l, int c){
+        int t = primeiroNaLinha(l, c);
+        return t<primeiroDaLinha[l+1] && inicioDoTrecho[t]<=c ? t : -1;
+    }
+
+    //primeiro trecho da linha que termina na coluna c ou depois (os trechos de uma linha estão em ordem)
+    private int primeiroNaLinha(int l, int c){
+        int baixo = primeiroDaLinha[l], alto = primeiroDaLinha[l+1];
+        while(baixo<alto){
+            int meio = (baixo+alto)>>>1;
+            if(fimDoTrecho[meio]<c) baixo = meio+1;
+            else alto = meio;
+        }
+        return baixo;
+    }
+
+    //sobe na coluna de saída até a linha mais alta, atravessa e desce na coluna de chegada
+    private boolean caminhoLivre(int la, int ca, int lb, int cb){
+        int topo = Math.min(la, lb);
+        for(int l=topo;l<=la;l++) if(!livre(l, ca)) return false;
+        for(int c=Math.min(ca, cb);c<=Math.max(ca, cb);c++) if(!livre(topo, c)) return false;
+        for(int l=topo;l<=lb;l++) if(!livre(l, cb)) return false;
+        return true;
+    }
+
+    private void adicionaLigacao(int a, int b, int colunaSaida, int colunaChegada, int distancia, boolean ehPulo){
+        //meio dos trechos em dobro, para não perder a metade nos trechos de largura par
+        int meioA = inicioDoTrecho[a]+fimDoTrecho[a], meioB = inicioDoTrecho[b]+fimDoTrecho[b];
+        copiaLigacao(a, b, colunaSaida, colunaChegada,
+                2*distancia+Math.abs(2*colunaSaida-meioA)+Math.abs(2*colunaChegada-meioB), ehPulo);
+    }
+
+    private void copiaLigacao(int a, int b, int colunaSaida, int colunaChegada, int custoDaLigacao, boolean ehPulo){
+        if(quantLigacoes==origem.length){
+            int n = quantLigacoes*2;
+            origem = Arrays.copyOf(origem, n);
+            destino = Arrays.copyOf(destino, n);
+            saida = Arrays.copyOf(saida, n);
+            chegada = Arrays.copyOf(chegada, n);
+            custo = Arrays.copyOf(custo, n);
+            pulo = Arrays.copyOf(pulo, n);
+        }
+        int i = quantLigacoes++;
+        origem[i] = a;
+        destino[i] = b;
+        saida[i] = colunaSaida;
+        chegada[i] = colunaChegada;
+        pulo[i] = ehPulo;
+        custo[i] = custoDaLigacao;
+    }
+
+    //posição dos caminhos guardados para o destino, calculando se ainda não estiverem guardados
+    private int caminhosPara(int alvo){
+        garanteMontado();
+        usos++;
+        int livre = 0;
+        for(int i=0;i<CACHE;i++){
+            if(destinoGuardado[i]==alvo){
+                usoGuardado[i] = usos;
+                acertos++;
+                return i;
+            }
+            if(usoGuardado[i]<usoGuardado[livre]) livre = i;
+        }
+        faltas++;
+        busca(alvo, ligacaoGuardada[livre], custoGuardado[livre]);
+        destinoGuardado[livre] = alvo;
+        usoGuardado[livre] = usos;
+        return livre;
+    }
+
+    //Dijkstra a partir do destino pelas ligações invertidas
+    private void busca(int alvo, int[] ligacao, int[] custoAte){
+        Arrays.fill(custoAte, 0, quantTrechos, INALCANCAVEL);
+        Arrays.fill(ligacao, 0, quantTrechos, -1);
+        custoAte[alvo] = 0;
+        tamanhoHeap = 0;
+        empilha(alvo, 0);
+        while(tamanhoHeap>0){
+            int t = heapTrecho[0], c = heapCusto[0];
+            desempilha();
+            if(c>custoAte[t]) continue;
+            for(int j=primeiraQueChega[t];j<primeiraQueChega[t+1];j++){
+                int i = queChega[j];
+                int o = origem[i];
+                int novo = c+custo[i];
+                if(novo<custoAte[o]){
+                    custoAte[o] = novo;
+                    ligacao[o] = i;
+                    empilha(o, novo);
+                }
+            }
+        }
+    }
+
+    private void empilha(int t, int c){
+        int i = tamanhoHeap++;
+        while(i>0){
+            int pai = (i-1)>>1;
+            if(heapCusto[pai]<=c) break;
+            heapTrecho[i] = heapTrecho[pai];
+            heapCusto[i] = heapCusto[pai];
+            i = pai;
+        }
+        heapTrecho[i] = t;
+        heapCusto[i] = c;
+    }
+
+    private void desempilha(){
+        int t = heapTrecho[--tamanhoHeap], c = heapCusto[tamanhoHeap];
+        int i = 0;
+        while(true){
+            int filho = 2*i+1;
+            if(filho>=tamanhoHeap) break;
+            if(filho+1<tamanhoHeap && heapCusto[filho+1]<heapCusto[filho]) filho++;
+            if(heapCusto[filho]>=c) break;
+            heapTrecho[i] = heapTrecho[filho];
+            heapCusto[i] = heapCusto[filho];
+            i = filho;
+        }
+        heapTrecho[i] = t;
+        heapCusto[i] = c;
+    }
+
+    //ligação a tomar no trecho de início para chegar ao destino, ou -1 se já estiver nele ou não houver caminho
+    public int proximaLigacao(int inicio, int alvo){
+        return ligacaoGuardada[caminhosPara(alvo)][inicio];
+    }
+
+    //custo do caminho do início até o destino, ou INALCANCAVEL
+    public int custoAte(int inicio, int alvo){
+        return custoGuardado[caminhosPara(alvo)][inicio];
+    }
+
+    /*responde vários perseguidores indo para o mesmo destino: escreve em ligacoes[i] a ligação a tomar a partir de
+    inicios[i] (ou -1, como no proximaLigacao); um início -1 (fora de qualquer trecho) também dá -1. Retorna
+    quantos têm caminho até o destino*/
+    public int consultaLote(int[] inicios, int quantidade, int alvo, int[] ligacoes){
+        int g = caminhosPara(alvo);
+        int[] ligacao = ligacaoGuardada[g], custoAte = custoGuardado[g];
+        int alcancam = 0;
+        for(int i=0;i<quantidade;i++){
+            int t = inicios[i];
+            if(t<0){
+                ligacoes[i] = -1;
+                continue;
+            }
+            ligacoes[i] = ligacao[t];
+            if(custoAte[t]!=INALCANCAVEL) alcancam++;
+        }
+        return alcancam;
+    }
+
+    /*trecho em que fica um objeto com o centro em (x, y) e a base da caixa de colisão meiaAltura pixels abaixo:
+    o do bloco da base ou, se ele estiver no ar, o primeiro apoio abaixo dele; -1 se não houver nenhum*/
+    public int trechoEm(double x, double y, int meiaAltura){
+        garanteMontado();
+        int t = mb.qualTamanhoDoBloco();
+        int c = (int)Math.floor(x/t), l = (int)Math.floor((y+meiaAltura-1)/t);
+        if(c<0 || c>=colunas) return -1;
+        if(l<0) l = 0;
+        for(;l<linhas;l++){
+            if(!livre(l, c)) return -1;
+            int trecho = trechoNoBloco(l, c);
+            if(trecho>=0) return trecho;
+        }
+        return -1;
+    }
+
+    public int quantidadeDeTrechos(){garanteMontado(); return quantTrechos;}
+    public int quantidadeDeLigacoes(){garanteMontado(); return quantLigacoes;}
+    public int linhaDoTrecho(int t){return linhaDoTrecho[t];}
+    public int inicioDoTrecho(int t){return inicioDoTrecho[t];}
+    public int fimDoTrecho(int t){return fimDoTrecho[t];}
+
+    //trecho de chegada, colunas de saída e de chegada e tipo da ligação
+    public int destinoDaLigacao(int i){return destino[i];}
+    public int colunaDeSaida(int i){return saida[i];}
+    public int colunaDeChegada(int i){return chegada[i];}
+    public boolean ehPulo(int i){return pulo[i];}
+
+    //consultas respondidas com caminhos já guardados, buscas feitas, montagens do grafo inteiro e refeitos em volta
+    //de blocos mudados
+    public int quantidadeDeAcertos(){return acertos;}
+    public int quantidadeDeFaltas(){return faltas;}
+    public int quantidadeDeMontagens(){return montagens;}
+    public int quantidadeDeRefeitos(){return refeitos;}
+}
@@ -7,7 +7,11 @@
 package ElementosGraficos;
 
 import Principal.JogoPanel;
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 
@@ -17,20 +21,32 @@ import javax.imageio.ImageIO;
  */
 public class ImagemDeFundo {
 /*Classe para padronizar as imagens de fundo, por exemplo, o fundo de uma fase, ou a imagem de fundo do
-    menu*/
+    menu. Cada imagem é uma camada de parallax: ela é copiada uma vez, lado a lado, para uma faixa compatível com
+    a tela que cobre a largura da tela mais uma imagem. Assim qualquer posição da rolagem é um único pedaço
+    contínuo da faixa, e só a parte visível é desenhada*/
     
-    //a imagem do fundo
-    private BufferedImage imagem;
+    //a imagem original, e a imagem do fundo já repetida na faixa
+    private BufferedImage imagem, faixa;
+    //se a imagem não tem nenhum pixel transparente, a faixa é opaca e o desenho não precisa misturar cores
+    private boolean opaca;
     
     //as posições em que serão desenhadas a imagem, e sua movimentação, caso tenha
     private double x, y, dx, dy;
+    //deslocamento causado pela rolagem da tela, que é somado ao movimento automático
+    private double xrolagem, yrolagem;
     //velocidade do movimento da imagem em relação a algum objeto
     private double velocidadeMovimento;
     
+    //posição em pixels em que a imagem foi vista na última atualização, para saber se o desenho mudou
+    private int ultimaColuna, ultimaLinha;
+    private boolean mudouDePixel = true;
+    
+    //dimensões da imagem original, que é o período da repetição
     private int largura, altura;
     
     //Construtor que lê a imagem, e determina a velocidade de movimento
     public ImagemDeFundo(String s, double vm){
+        BufferedImage imagem = null;
         try{
             imagem = ImageIO.read(getClass().getResourceAsStream(s));
         }
@@ -38,16 +54,56 @@ public class ImagemDeFundo {
             e.printStackTrace();
         }
         
+        this.imagem = imagem;
         largura = imagem.getWidth();
         altura = imagem.getHeight();
+        opaca = checaOpaca(imagem);
+        criaFaixa();
         
         this.velocidadeMovimento=vm;
     }
     
-    //Muda a posição inicial da imagem de fundo
+    //confere pixel por pixel se a imagem é opaca, já que GIFs com cor transparente nem sempre a usam
+    private static boolean checaOpaca(BufferedImage imagem){
+        if(imagem.getColorModel().getTransparency()==Transparency.OPAQUE) return true;
+        for(int j=0;j<imagem.getHeight();j++){
+            for(int i=0;i<imagem.getWidth();i++){
+                if((imagem.getRGB(i, j)>>>24)!=0xFF) return false;
+            }
+        }
+        return true;
+    }
+    
+    //número de cópias da imagem necessárias para cobrir a largura atual da tela a partir de qualquer ponto
+    private int copiasNecessarias(){
+        return (JogoPanel.qualLargura()+largura-1)/largura + 1;
+    }
+    
+    //monta a faixa com cópias suficientes da imagem para cobrir a tela a partir de qualquer ponto da imagem
+    private void criaFaixa(){
+        int copias = copiasNecessarias();
+        faixa = criaImagemCompativel(largura*copias, altura, opaca ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+        Graphics2D g = faixa.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        for(int i=0;i<copias;i++){
+            g.drawImage(imagem, i*largura, 0, null);
+        }
+        g.dispose();
+    }
+    
+    //cria uma imagem no formato da tela, que pode ser acelerada pela placa de vídeo
+    static BufferedImage criaImagemCompativel(int largura, int altura, int transparencia){
+        if(!GraphicsEnvironment.isHeadless()){
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(largura, altura, transparencia);
+        }
+        return new BufferedImage(largura, altura, transparencia==Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+    
+    //Muda a posição da imagem de fundo de acordo com a rolagem da tela, sem perder o movimento automático
     public void mudarPosicaoPara(double x, double y){
-        this.x = (x*velocidadeMovimento) % JogoPanel.LARGURA;
-        this.y = (y*0);
+        xrolagem = (x*velocidadeMovimento) % largura;
+        yrolagem = (y*0);
     }
     
     //muda o movimento automático
@@ -59,27 +115,36 @@ public class ImagemDeFundo {
     /*a imagem sempre irá incrementar o dx e dy, que serão os valores que indicarão a velocidade de movimento
     da imagem*/
     public void atualiza(){
+        //se a resolução aumentou, a faixa é remontada aqui, e não no desenha, que pode rodar em várias threads
+        if(faixa.getWidth()<largura*copiasNecessarias()) criaFaixa();
         x += dx;
 		while(x <= -largura) x += largura;
 		while(x >= largura) x -= largura;
 		y += dy;
 		while(y <= -altura) y += altura;
 		while(y >= altura) y -= altura;
+        
+        int coluna = (int)(x+xrolagem), linha = (int)(y+yrolagem);
+        mudouDePixel = coluna!=ultimaColuna || linha!=ultimaLinha;
+        ultimaColuna = coluna;
+        ultimaLinha = linha;
     }
     
+    //se na última atualização a imagem andou o suficiente para mudar de pixel na tela
+    public boolean mudouDePixel(){return mudouDePixel;}
+    
+    public boolean ehOpaca(){return opaca;}
+    
     
     //desenha a imagem
     public void desenha(Graphics2D g){
-        //desenha ela normalmente em suas posições
-        g.drawImage(imagem, (int)x, (int)y, null);
+        //coluna da imagem que aparece na borda esquerda da tela
+        int inicio = -(int)(x+xrolagem) % largura;
+        if(inicio<0) inicio += largura;
         
-        //caso ela saia pela esquerda, então redesenhará ela à direita do fim da imagem
-        if(x<0){
-            g.drawImage(imagem, (int)x+JogoPanel.LARGURA, (int)y, null);
-        }
-        //mesmo caso para a direita
-        if(x>0){
-            g.drawImage(imagem, (int)x-JogoPanel.LARGURA, (int)y, null);
-        }
+        //desenha só o pedaço visível da faixa, em uma única cópia
+        int yi = (int)(y+yrolagem);
+        int l = Math.min(JogoPanel.qualLargura(), faixa.getWidth()-inicio);
+        g.drawImage(faixa, 0, yi, l, yi+altura, inicio, 0, inicio+l, altura, null);
     }
 }
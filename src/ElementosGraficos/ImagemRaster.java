@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public final class ImagemRaster {
+    /*Imagem preparada para o Rasterizador: os pixels ficam em um vetor de int, e para cada linha são guardados os
+    trechos contínuos de pixels visíveis (transparência de 1 bit, como nos GIFs). Desenhar é só copiar esses trechos
+    com System.arraycopy; um bloco opaco tem um trecho por linha, que é a linha inteira. A versão espelhada já fica
+    pronta também. O vetor de trechos pode ter sobra no fim; só vale o que o inicioLinha aponta*/
+    
+    private final int largura, altura;
+    private boolean opaca;
+    //pixels normais e espelhados, linha por linha
+    private final int[] pixels, pixelsEspelhados;
+    /*trechos de cada linha: a linha l vai de inicioLinha[l] até inicioLinha[l+1] no vetor de trechos, e cada
+    trecho são dois ints, a coluna inicial e o tamanho*/
+    private final int[] inicioLinha, inicioLinhaEspelhada;
+    private int[] trechos = new int[0], trechosEspelhados = new int[0];
+    
+    public ImagemRaster(BufferedImage imagem){
+        largura = imagem.getWidth();
+        altura = imagem.getHeight();
+        pixels = new int[largura*altura];
+        pixelsEspelhados = new int[largura*altura];
+        inicioLinha = new int[altura+1];
+        inicioLinhaEspelhada = new int[altura+1];
+        recarrega(imagem);
+    }
+    
+    /*lê de novo os pixels de uma imagem do mesmo tamanho, reaproveitando os vetores (os de trechos só crescem
+    quando a imagem nova tem mais trechos que as anteriores). A CamadaDeBlocos usa isso para remontar os pedaços
+    enquanto a tela anda sem criar imagens novas*/
+    void recarrega(BufferedImage imagem){
+        if(imagem.getWidth()!=largura || imagem.getHeight()!=altura){
+            throw new IllegalArgumentException("A imagem precisa ter "+largura+"x"+altura);
+        }
+        imagem.getRGB(0, 0, largura, altura, pixels, 0, largura);
+        
+        for(int l=0;l<altura;l++){
+            for(int c=0;c<largura;c++){
+                pixelsEspelhados[l*largura+c] = pixels[l*largura+largura-1-c];
+            }
+        }
+        
+        trechos = calculaTrechos(pixels, inicioLinha, trechos);
+        trechosEspelhados = calculaTrechos(pixelsEspelhados, inicioLinhaEspelhada, trechosEspelhados);
+        
+        //o destino é TYPE_INT_RGB, que guarda o byte do alfa zerado
+        for(int i=0;i<pixels.length;i++){
+            pixels[i] &= 0xFFFFFF;
+            pixelsEspelhados[i] &= 0xFFFFFF;
+        }
+        
+        //opaca quando cada linha é um único trecho do tamanho da largura
+        boolean o = inicioLinha[altura]==altura*2;
+        for(int l=0;o && l<altura;l++){
+            if(trechos[l*2]!=0 || trechos[l*2+1]!=largura) o = false;
+        }
+        opaca = o;
+    }
+    
+    //monta em t os trechos de pixels visíveis (alfa de pelo menos 128) de cada linha, trocando t por um maior se faltar espaço
+    private int[] calculaTrechos(int[] p, int[] inicio, int[] t){
+        int n = 0;
+        for(int l=0;l<altura;l++){
+            inicio[l] = n;
+            int c = 0;
+            while(c<largura){
+                while(c<largura && (p[l*largura+c]>>>24)<128) c++;
+                int comeco = c;
+                while(c<largura && (p[l*largura+c]>>>24)>=128) c++;
+                if(c>comeco){
+                    if(n+2>t.length) t = Arrays.copyOf(t, Math.max(16, t.length*2));
+                    t[n++] = comeco;
+                    t[n++] = c-comeco;
+                }
+            }
+        }
+        inicio[altura] = n;
+        return t;
+    }
+    
+    public int qualLargura(){return largura;}
+    public int qualAltura(){return altura;}
+    public boolean ehOpaca(){return opaca;}
+    
+    int[] pixels(boolean espelhado){return espelhado ? pixelsEspelhados : pixels;}
+    int[] inicioLinha(boolean espelhado){return espelhado ? inicioLinhaEspelhada : inicioLinha;}
+    int[] trechos(boolean espelhado){return espelhado ? trechosEspelhados : trechos;}
+}
@@ -10,8 +10,10 @@ import Principal.JogoPanel;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import javax.imageio.ImageIO;
 
 /**
@@ -27,8 +29,8 @@ public class MapaDeBlocos {
     //velocidade em que a tela acompanha o jogador
     private double velocidadeTela;
     
-    //matriz dos números que identificam os blocos
-    private int[][] mapa;
+    //números que identificam os blocos, guardados na forma escolhida (veja ArmazenamentoDeBlocos)
+    private ArmazenamentoDeBlocos mapa;
     //tamanho do bloco em pixels
     private int tamanhoBloco;
     //número de linhas e número de colunas do mapa
@@ -48,14 +50,47 @@ public class MapaDeBlocos {
     //número de linhas e colunas que devem ser desenhada
     private int linhasDesenho, colunasDesenho;
     
+    /*Mapa em janela (mundo infinito, veja MundoInfinito): o mapa guarda só as últimas colunas, como um
+    buffer circular (a coluna c fica na posição c & mascara). Só as colunas de colunaInicial até colunaFinal
+    (exclusiva) são válidas; as anteriores já foram descartadas e viram parede, e as seguintes ainda não foram
+    geradas e ficam vazias*/
+    private boolean janela;
+    private int mascara, colunaInicial, colunaFinal;
+    
+    /*Mudanças de blocos durante o jogo (mudarBloco). Cada bloco mudado é anotado uma vez por atualização nos vetores
+    de pendentes; fechaMudancas, chamado uma vez no fim da atualização, entrega o lote inteiro, que fica disponível
+    em mudancaLinha e mudancaColuna até o próximo fechamento. Quem guarda algo calculado a partir dos blocos (desenho
+    em cache, caminhos) olha só esses blocos em vez de refazer o mapa inteiro*/
+    private int[] pendenteLinha = new int[16], pendenteColuna = new int[16];
+    private int quantPendentes;
+    private int[] loteLinha = new int[16], loteColuna = new int[16];
+    private int quantLote;
+    //número do lote em que cada bloco foi anotado, para não anotar o mesmo bloco duas vezes; criado na primeira mudança
+    private int[] marcaDoLote;
+    private int lote = 1;
+    
+    /*versão de cada região de REGIAO colunas, que aumenta quando algum bloco dela muda; um desenho guardado de uma
+    região continua valendo enquanto a versão for a mesma*/
+    public static final int REGIAO = 16;
+    private int[] versaoDaRegiao = new int[1];
+    //blocos que as flechas quebram, pelo valor
+    private boolean[] quebravel;
+    
+    /*Blocos animados: todos os blocos com o mesmo valor mostram o mesmo quadro, escolhido pelo tick global da
+    Animacao. quadroAtual[v] é o valor do bloco cuja imagem é desenhada no lugar de v neste tick (o próprio v, se
+    ele não for animado); atualizaAnimacoes refaz só as entradas dos valores animados, então o custo por tick
+    depende da quantidade de tipos animados e não da quantidade de blocos no mapa. A colisão continua usando o
+    valor guardado no mapa*/
+    private int[] quadroAtual;
+    private int[] animados;
+    private int[][] quadros;
+    private int[] ticksPorQuadro;
+    
     //construtor, que cria um inicializa um mapa de blocos a partir do tamanho de cada bloco
     public MapaDeBlocos(int tamanhoBloco){
         this.tamanhoBloco=tamanhoBloco;
         
-        //define a quantidade de linhas que devem ser desenhadas
-        linhasDesenho = JogoPanel.ALTURA / tamanhoBloco + 2;
-        //define a quantidade de colunas qeu devem ser desenhadas
-        colunasDesenho = JogoPanel.LARGURA / tamanhoBloco + 2;
+        ajustarAreaDeDesenho();
         //determina a velocidade em que a tela vai seguir o player
         velocidadeTela = 0.07;
     }
@@ -68,8 +103,10 @@ public class MapaDeBlocos {
             imagemblocos = ImageIO.read(getClass().getResourceAsStream(s));
             //calcula a quantidade de blocos em cada linha
             quantBlocos = imagemblocos.getWidth()/tamanhoBloco;
-            //cria uma matriz composta por 2 linhas de blocos, e quantidade de colunas através de quantBlocos
-            blocos = new Bloco[2][quantBlocos];
+            /*cria uma matriz com uma linha para cada linha de blocos da imagem (pelo menos 2), e quantidade de
+            colunas através de quantBlocos. As linhas depois da segunda só guardam quadros de blocos animados*/
+            int linhasDeBlocos = Math.max(2, imagemblocos.getHeight()/tamanhoBloco);
+            blocos = new Bloco[linhasDeBlocos][quantBlocos];
             
             //Cria uma variável auxiliar pra poder definir as imagens de bloco
             BufferedImage subimagem;
@@ -80,7 +117,17 @@ public class MapaDeBlocos {
                 //Carrega todos os blocos da segunda linha e registra-os como blocos bloqueados
                 subimagem = imagemblocos.getSubimage(tamanhoBloco*coluna, tamanhoBloco, tamanhoBloco, tamanhoBloco);
                 blocos[1][coluna] = new Bloco(subimagem, Bloco.BLOQUEADO);
+                for(int linha=2;linha<linhasDeBlocos;linha++){
+                    subimagem = imagemblocos.getSubimage(tamanhoBloco*coluna, tamanhoBloco*linha, tamanhoBloco, tamanhoBloco);
+                    blocos[linha][coluna] = new Bloco(subimagem, Bloco.NORMAL);
+                }
             }
+            //no começo nenhum bloco é animado, então cada um desenha a própria imagem
+            quadroAtual = new int[linhasDeBlocos*quantBlocos];
+            for(int i=0;i<quadroAtual.length;i++) quadroAtual[i] = i;
+            animados = new int[0];
+            quadros = new int[quadroAtual.length][];
+            ticksPorQuadro = new int[quadroAtual.length];
         }
         catch(Exception e){
             e.printStackTrace();
@@ -90,36 +137,7 @@ public class MapaDeBlocos {
     //método que carrega o mapa a partir de um diretório
     public void carregarMapa(String s){
         try{
-            //Carrega o arquivo
-            InputStream in = getClass().getResourceAsStream(s);
-            //Cria um leitor de arquivo
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-
-            //A primeira linha será o número de colunas
-            numCols = Integer.parseInt(br.readLine());
-            //A segunda linha seráo número de linhas
-            numLinhas = Integer.parseInt(br.readLine());
-            
-            //Define a quantidade de elementos da matriz de mapa, a largura e a altura
-            mapa = new int[numLinhas][numCols];
-            larguraMapa = numCols*tamanhoBloco;
-            alturaMapa = numLinhas*tamanhoBloco;
-            
-            //define os limites do mapa
-            xmin = JogoPanel.LARGURA-larguraMapa;
-            xmax = 0;
-            ymin = JogoPanel.ALTURA-alturaMapa;
-            ymax = 0;
-            
-            //cria uma string auxiliar para ler os dados do mapa
-            String divisor = "\\s+";
-            for(int linha = 0; linha < numLinhas; linha++) {//enquanto não tiver lido todas as linhas
-		String Linha = br.readLine();//lê a linha atual
-		String[] partes = Linha.split(divisor);//divide a linha em strings diferentes, onde o divisor é a tecla espaço
-		for(int coluna = 0; coluna < numCols; coluna++) {//enquanto não tiver lido todas as colunas
-			mapa[linha][coluna] = Integer.parseInt(partes[coluna]);//grava na matriz mapa os dados do mapa
-		}
-            }
+            carregarMapa(leMapa(s));
         }
         
         catch(Exception e){
@@ -127,6 +145,207 @@ public class MapaDeBlocos {
         }   
     }
     
+    //usa os blocos informados como mapa (por exemplo, os de uma fase gerada pelo GeradorDeTerreno)
+    public void carregarMapa(int[][] blocos){
+        mapa = ArmazenamentoDeBlocos.cria(ArmazenamentoDeBlocos.escolhido(), blocos);
+        numLinhas = mapa.qualNumDeLinhas();
+        numCols = mapa.qualNumDeColunas();
+        
+        //Define a largura e a altura
+        larguraMapa = numCols*tamanhoBloco;
+        alturaMapa = numLinhas*tamanhoBloco;
+        versaoDaRegiao = new int[(numCols+REGIAO-1)/REGIAO];
+        marcaDoLote = null;
+        
+        //define os limites do mapa
+        ajustarAreaDeDesenho();
+    }
+    
+    //lê um arquivo de mapa (também usado pelas camadas de enfeite, veja CamadaDeBlocos)
+    public static int[][] leMapa(String s) throws IOException{
+        //Carrega o arquivo
+        InputStream in = MapaDeBlocos.class.getResourceAsStream(s);
+        //Cria um leitor de arquivo
+        BufferedReader br = new BufferedReader(new InputStreamReader(in));
+
+        //A primeira linha será o número de colunas
+        int numCols = Integer.parseInt(br.readLine());
+        //A segunda linha seráo número de linhas
+        int numLinhas = Integer.parseInt(br.readLine());
+        
+        //Define a quantidade de elementos da matriz de mapa
+        int[][] mapa = new int[numLinhas][numCols];
+        
+        //cria uma string auxiliar para ler os dados do mapa
+        String divisor = "\\s+";
+        for(int linha = 0; linha < numLinhas; linha++) {//enquanto não tiver lido todas as linhas
+            String Linha = br.readLine();//lê a linha atual
+            String[] partes = Linha.split(divisor);//divide a linha em strings diferentes, onde o divisor é a tecla espaço
+            for(int coluna = 0; coluna < numCols; coluna++) {//enquanto não tiver lido todas as colunas
+                mapa[linha][coluna] = Integer.parseInt(partes[coluna]);//grava na matriz mapa os dados do mapa
+            }
+        }
+        br.close();
+        return mapa;
+    }
+    
+    /*prepara o mapa para receber colunas aos poucos, guardando no máximo colunasJanela colunas (uma potência de 2).
+    O mapa fica com largura praticamente infinita*/
+    public void iniciaJanela(int numLinhas, int colunasJanela){
+        if(Integer.bitCount(colunasJanela)!=1) throw new IllegalArgumentException("A janela precisa ser uma potência de 2");
+        this.numLinhas = numLinhas;
+        numCols = Integer.MAX_VALUE/tamanhoBloco/2;
+        //as colunas chegam uma a uma, então a janela sempre usa o armazenamento compacto
+        mapa = new BlocosCompactos(numLinhas, colunasJanela, blocos.length*quantBlocos-1);
+        larguraMapa = numCols*tamanhoBloco;
+        alturaMapa = numLinhas*tamanhoBloco;
+        janela = true;
+        mascara = colunasJanela-1;
+        colunaInicial = colunaFinal = 0;
+        versaoDaRegiao = new int[Math.max(1, colunasJanela/REGIAO)];
+        marcaDoLote = null;
+        ajustarAreaDeDesenho();
+    }
+    
+    //copia as colunas do trecho para o mapa, começando na coluna informada, que precisa ser a colunaFinal atual
+    public void instalaColunas(int coluna, int[][] trecho){
+        int quantidade = trecho[0].length;
+        if(coluna!=colunaFinal) throw new IllegalArgumentException("As colunas precisam ser instaladas em ordem");
+        //descarta as colunas mais antigas que não cabem mais na janela
+        if(colunaFinal+quantidade-colunaInicial>mascara+1) colunaInicial = colunaFinal+quantidade-(mascara+1);
+        for(int l=0;l<numLinhas;l++){
+            for(int i=0;i<quantidade;i++){
+                mapa.muda(l, (coluna+i) & mascara, trecho[l][i]);
+            }
+        }
+        for(int c=coluna;c<coluna+quantidade;c+=REGIAO) versaoDaRegiao[indiceDaRegiao(c)]++;
+        colunaFinal += quantidade;
+    }
+    
+    //descarta as colunas antes da coluna informada, que passam a ser parede
+    public void descartaAte(int coluna){
+        if(coluna>colunaInicial) colunaInicial = Math.min(coluna, colunaFinal);
+    }
+    
+    public boolean ehJanela(){return janela;}
+    public int qualColunaInicial(){return colunaInicial;}
+    public int qualColunaFinal(){return colunaFinal;}
+    
+    //valor do bloco na linha e coluna, considerando a janela
+    private int valor(int linha, int coluna){
+        if(!janela) return mapa.valor(linha, coluna);
+        if(coluna<colunaInicial) return PAREDE_DESCARTADA;
+        if(coluna>=colunaFinal) return 0;
+        return mapa.valor(linha, coluna & mascara);
+    }
+    //bloco usado no lugar das colunas descartadas (terra, bloqueado)
+    private static final int PAREDE_DESCARTADA = 11;
+    
+    /*muda o bloco na linha e coluna para o valor (um número do blocos.gif) e anota a mudança no lote da
+    atualização. A colisão lê os blocos direto, então já vale no mesmo tick; fora do mapa (ou em colunas do mundo
+    infinito que não estão na janela) não faz nada e retorna false*/
+    public boolean mudarBloco(int linha, int coluna, int valor){
+        if(linha<0 || coluna<0 || linha>=numLinhas || coluna>=numCols) return false;
+        if(janela && (coluna<colunaInicial || coluna>=colunaFinal)) return false;
+        int c = janela ? coluna & mascara : coluna;
+        if(mapa.valor(linha, c)==valor) return false;
+        mapa.muda(linha, c, valor);
+        versaoDaRegiao[indiceDaRegiao(coluna)]++;
+        
+        if(marcaDoLote==null) marcaDoLote = new int[mapa.qualNumDeLinhas()*mapa.qualNumDeColunas()];
+        int marca = linha*mapa.qualNumDeColunas()+c;
+        if(marcaDoLote[marca]!=lote){
+            marcaDoLote[marca] = lote;
+            if(quantPendentes==pendenteLinha.length){
+                pendenteLinha = Arrays.copyOf(pendenteLinha, quantPendentes*2);
+                pendenteColuna = Arrays.copyOf(pendenteColuna, quantPendentes*2);
+            }
+            pendenteLinha[quantPendentes] = linha;
+            pendenteColuna[quantPendentes] = coluna;
+            quantPendentes++;
+        }
+        return true;
+    }
+    
+    /*entrega as mudanças anotadas desde o último fechamento como o lote atual, que pode ser lido até o próximo
+    fechamento. Chamado uma vez no fim de cada atualização da fase*/
+    public void fechaMudancas(){
+        int[] l = loteLinha, c = loteColuna;
+        loteLinha = pendenteLinha;
+        loteColuna = pendenteColuna;
+        quantLote = quantPendentes;
+        pendenteLinha = l;
+        pendenteColuna = c;
+        quantPendentes = 0;
+        lote++;
+    }
+    
+    //valor do bloco na linha e coluna (o número do blocos.gif)
+    public int qualBloco(int linha, int coluna){
+        if(linha<0 || coluna<0 || linha>=numLinhas || coluna>=numCols) return 0;
+        return valor(linha, coluna);
+    }
+    
+    /*faz os blocos com o valor mostrarem os quadros em sequência, cada um por ticks do jogo. Os quadros são valores
+    de blocos do blocos.gif, que podem estar nas linhas depois da segunda, só de quadros*/
+    public void defineAnimacao(int valor, int[] quadrosDoBloco, int ticks){
+        if(quadros[valor]==null){
+            animados = Arrays.copyOf(animados, animados.length+1);
+            animados[animados.length-1] = valor;
+        }
+        quadros[valor] = quadrosDoBloco.clone();
+        ticksPorQuadro[valor] = Math.max(1, ticks);
+        atualizaAnimacoes();
+    }
+    
+    public boolean ehAnimado(int valor){return quadros[valor]!=null;}
+    
+    //escolhe o quadro de cada tipo de bloco animado a partir do tick global; chamado uma vez por atualização
+    public void atualizaAnimacoes(){
+        long tick = Animacao.tickAtual();
+        for(int i=0;i<animados.length;i++){
+            int v = animados[i];
+            int[] q = quadros[v];
+            quadroAtual[v] = q[(int)((tick/ticksPorQuadro[v]) % q.length)];
+        }
+    }
+    
+    //valor do bloco cuja imagem aparece no lugar do valor neste tick
+    public int quadroDe(int valor){return quadroAtual[valor];}
+    
+    //escolhe quais blocos podem ser quebrados por flechas; por padrão nenhum
+    public void mudarQuebravel(int valor, boolean b){
+        if(quebravel==null) quebravel = new boolean[blocos.length*quantBlocos];
+        quebravel[valor] = b;
+    }
+    
+    //quebra o bloco, caso ele seja quebrável, deixando o lugar vazio
+    public boolean quebraBloco(int linha, int coluna){
+        if(quebravel==null) return false;
+        int v = qualBloco(linha, coluna);
+        if(!quebravel[v]) return false;
+        return mudarBloco(linha, coluna, 0);
+    }
+    
+    public int quantidadeDeMudancas(){return quantLote;}
+    public int mudancaLinha(int i){return loteLinha[i];}
+    public int mudancaColuna(int i){return loteColuna[i];}
+    
+    private int indiceDaRegiao(int coluna){
+        return (coluna/REGIAO) % versaoDaRegiao.length;
+    }
+    //versão da região da coluna; muda sempre que um bloco dela é mudado ou instalado
+    public int qualVersaoDaRegiao(int coluna){
+        return versaoDaRegiao[indiceDaRegiao(coluna)];
+    }
+    
+    //bloco do blocos.gif com o valor informado
+    Bloco bloco(int valor){
+        return blocos[valor/quantBlocos][valor%quantBlocos];
+    }
+    
+    public ArmazenamentoDeBlocos qualArmazenamento(){return mapa;}
+    
     public int qualTamanhoDoBloco(){return tamanhoBloco;}
     public int posX(){return (int)x;}
     public int posY(){return (int)y;}
@@ -137,12 +356,102 @@ public class MapaDeBlocos {
     
     //retorna o tipo de um bloco, de acordo com sua localização na matriz blocos
     public int qualTipo(int linha, int coluna){
-        int lc = mapa[linha][coluna];
+        int lc = valor(linha, coluna);
         int l = lc / quantBlocos;
         int c = lc % quantBlocos;
         return blocos[l][c].Tipo();
     }
     
+    //retorna se o bloco na linha e coluna é bloqueado. Fora do mapa todos os blocos são normais
+    public boolean estaBloqueado(int linha, int coluna){
+        if(linha<0 || coluna<0 || linha>=numLinhas || coluna>=numCols) return false;
+        return qualTipo(linha, coluna)==Bloco.BLOQUEADO;
+    }
+    
+    /*Lança um raio a partir de (x0, y0) na direção (dirX, dirY) e retorna a distância até o primeiro bloco
+    bloqueado, ou distanciaMax caso não encontre nenhum. Usa a travessia de grade de Amanatides-Woo, que visita
+    cada bloco cruzado uma única vez, então o custo depende do número de blocos e não da distância em pixels*/
+    public double lancaRaio(double x0, double y0, double dirX, double dirY, double distanciaMax){
+        double comprimento = Math.sqrt(dirX*dirX+dirY*dirY);
+        if(comprimento==0) return estaBloqueado((int)Math.floor(y0/tamanhoBloco), (int)Math.floor(x0/tamanhoBloco)) ? 0 : distanciaMax;
+        dirX /= comprimento;
+        dirY /= comprimento;
+        
+        //bloco de partida
+        int coluna = (int)Math.floor(x0/tamanhoBloco);
+        int linha = (int)Math.floor(y0/tamanhoBloco);
+        
+        //para que lado o raio anda em cada eixo
+        int passoColuna = dirX>0 ? 1 : (dirX<0 ? -1 : 0);
+        int passoLinha = dirY>0 ? 1 : (dirY<0 ? -1 : 0);
+        
+        //distância percorrida no raio para atravessar um bloco inteiro em cada eixo
+        double deltaX = dirX!=0 ? tamanhoBloco/Math.abs(dirX) : Double.POSITIVE_INFINITY;
+        double deltaY = dirY!=0 ? tamanhoBloco/Math.abs(dirY) : Double.POSITIVE_INFINITY;
+        
+        //distância no raio até a próxima borda de bloco em cada eixo
+        double proximoX, proximoY;
+        if(dirX>0) proximoX = ((coluna+1)*tamanhoBloco-x0)/dirX;
+        else if(dirX<0) proximoX = (coluna*tamanhoBloco-x0)/dirX;
+        else proximoX = Double.POSITIVE_INFINITY;
+        if(dirY>0) proximoY = ((linha+1)*tamanhoBloco-y0)/dirY;
+        else if(dirY<0) proximoY = (linha*tamanhoBloco-y0)/dirY;
+        else proximoY = Double.POSITIVE_INFINITY;
+        
+        double t = 0;
+        while(t<=distanciaMax){
+            if(estaBloqueado(linha, coluna)) return t;
+            //avança para o bloco vizinho cuja borda está mais perto
+            if(proximoX<proximoY){
+                t = proximoX;
+                proximoX += deltaX;
+                coluna += passoColuna;
+            }
+            else{
+                t = proximoY;
+                proximoY += deltaY;
+                linha += passoLinha;
+            }
+        }
+        return distanciaMax;
+    }
+    
+    /*Lança uma caixa de centro (x, y) na direção (dirX, dirY) e retorna o quanto ela pode andar sem encostar
+    em um bloco bloqueado, até distanciaMax. Lança raios pelas bordas da frente da caixa, com no máximo um bloco
+    de distância entre eles, então nenhum bloco cruzado fica sem ser visto*/
+    public double lancaCaixa(double x, double y, int meiaLargura, int meiaAltura, double dirX, double dirY, double distanciaMax){
+        double distancia = distanciaMax;
+        
+        //borda vertical da frente, caso a caixa ande no eixo x
+        if(dirX!=0){
+            double bordaX = dirX>0 ? x+meiaLargura : x-meiaLargura;
+            double cima = y-meiaAltura, baixo = y+meiaAltura-1;
+            for(double py=cima;;py+=tamanhoBloco){
+                if(py>baixo) py = baixo;
+                distancia = Math.min(distancia, lancaRaio(bordaX, py, dirX, dirY, distancia));
+                if(py==baixo) break;
+            }
+        }
+        //borda horizontal da frente, caso a caixa ande no eixo y
+        if(dirY!=0){
+            double bordaY = dirY>0 ? y+meiaAltura : y-meiaAltura;
+            double esquerda = x-meiaLargura, direita = x+meiaLargura-1;
+            for(double px=esquerda;;px+=tamanhoBloco){
+                if(px>direita) px = direita;
+                distancia = Math.min(distancia, lancaRaio(px, bordaY, dirX, dirY, distancia));
+                if(px==direita) break;
+            }
+        }
+        return distancia;
+    }
+    
+    //retorna se não há nenhum bloco bloqueado no segmento entre os dois pontos
+    public boolean temLinhaDeVisao(double x0, double y0, double x1, double y1){
+        double vx = x1-x0, vy = y1-y0;
+        double distancia = Math.sqrt(vx*vx+vy*vy);
+        return lancaRaio(x0, y0, vx, vy, distancia)>=distancia;
+    }
+    
     //muda a velocidade em que a tela acompanha o jogador
     public void mudarVelocidadeDeTela(double v){
         velocidadeTela = v;
@@ -154,6 +463,7 @@ public class MapaDeBlocos {
         this.x += (x-this.x)*velocidadeTela;
         this.y += (y-this.y)*velocidadeTela;
         
+        ajustarAreaDeDesenho();
         /*ajusta os limites de desenho, que são os limites do mapa, ou seja, caso chegue no fim da tela
         não desenhar partes em branco*/
         ajustarLimites();
@@ -164,6 +474,22 @@ public class MapaDeBlocos {
 	colunas = (int)-this.x / tamanhoBloco;
     }
     
+    /*calcula a quantidade de linhas e colunas desenhadas e os limites da tela a partir da resolução atual, que pode
+    mudar durante o jogo*/
+    private void ajustarAreaDeDesenho(){
+        int largura = JogoPanel.qualLargura(), altura = JogoPanel.qualAltura();
+        //define a quantidade de linhas que devem ser desenhadas
+        linhasDesenho = altura / tamanhoBloco + 2;
+        //define a quantidade de colunas qeu devem ser desenhadas
+        colunasDesenho = largura / tamanhoBloco + 2;
+        xmin = largura-larguraMapa;
+        //no mapa em janela, a tela não mostra as colunas já descartadas
+        xmax = -colunaInicial*tamanhoBloco;
+        ymax = 0;
+        //com a resolução mais alta que o mapa, o mapa fica preso no topo em vez de oscilar entre os limites
+        ymin = Math.min(altura-alturaMapa, ymax);
+    }
+    
     //método auxiliar para ajustar os limites
     public void ajustarLimites(){
         if(x<xmin) x=xmin;
@@ -174,18 +500,24 @@ public class MapaDeBlocos {
     
     //desenha o mapa
     public void desenha(Graphics2D g){
+        //se a thread tiver um rasterizador ativo, os blocos são copiados direto nos pixels da imagem principal
+        Rasterizador rasterizador = Rasterizador.atual();
         //enquanto a linha atual, não for menor que a soma da linha atual com quantidade de linhas que devem ser desenhadas
         for(int linha=linhas;linha<linhas+linhasDesenho;linha++){
             if(linha>=numLinhas) break;//se a linha ultrapassar o número de linhas, interromper loop
             //enquanto o número da coluna atual for menor que a soma de colunas e colunas que devem ser desenhadas
             for(int coluna=colunas;coluna<colunas+colunasDesenho;coluna++){
                 if(coluna>=numCols) break;//se ultrapassar a quantidade de colunas, então interromper o for
-                if(mapa[linha][coluna]==0) continue;//caso o valor do mapa seja 0, então não desenhar nada
+                int rc = valor(linha, coluna); //pega o valor do bloco do mapa
+                if(rc==0) continue;//caso o valor do mapa seja 0, então não desenhar nada
+                rc = quadroAtual[rc];//blocos animados desenham o quadro do tick atual
                 
-                int rc = mapa[linha][coluna]; //pega o valor do bloco do mapa
                 int r = rc / quantBlocos; //pega a linha do bloco
                 int c = rc % quantBlocos; //pega a coluna do bloco
-                g.drawImage(blocos[r][c].Imagem(), (int)x+coluna*tamanhoBloco , (int)y+linha*tamanhoBloco, null);//desenha o bloco
+                if(rasterizador!=null)
+                    rasterizador.desenha(blocos[r][c].Raster(), (int)x+coluna*tamanhoBloco, (int)y+linha*tamanhoBloco, false);
+                else
+                    g.drawImage(blocos[r][c].Imagem(), (int)x+coluna*tamanhoBloco , (int)y+linha*tamanhoBloco, null);//desenha o bloco
             }
         }
     }    
@@ -0,0 +1,186 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class MundoInfinito {
+    /*Mundo sem fim gerado a partir de uma semente, em trechos de TRECHO colunas. Os trechos à frente do jogador são
+    gerados pelo GeradorDeTerreno em threads separadas e instalados no MapaDeBlocos (em modo janela) pela thread do
+    jogo, sem esperar, quando ficam prontos; as colunas que ficaram muito para trás são descartadas, então a
+    memória usada pelo mapa não cresce com a distância percorrida. Cada trecho usa um Random só dele, então o mundo
+    é sempre o mesmo para a mesma semente, seja qual for a ordem em que os trechos terminam.
+
+    Os inimigos de cada trecho instalado ficam em spawnX e spawnY até o estado criá-los (e chamar limpaSpawns)*/
+
+    //colunas em cada trecho, e colunas guardadas no mapa (uma potência de 2)
+    public static final int TRECHO = 64;
+    private static final int JANELA = 1024;
+    //trechos pedidos à frente do trecho do jogador, e trechos mantidos atrás dele
+    private static final int ADIANTE = 4, ATRAS = 3;
+    //máximo de inimigos guardados esperando o estado criá-los
+    private static final int MAX_SPAWNS = 256;
+
+    private final MapaDeBlocos mb;
+    private final long semente;
+    private final int linhas;
+    private final double densidade;
+    private final int inimigosPorTrecho;
+
+    //trechos sendo gerados; o trecho k fica na posição k % pendentes.size()
+    private final ArrayList<Future<Trecho>> pendentes = new ArrayList<>(Collections.<Future<Trecho>>nCopies(ADIANTE+2, null));
+    //próximo trecho a ser instalado no mapa, e próximo a ser pedido
+    private int proximoInstalar, proximoPedido;
+    private int trechoDoJogador = -1;
+    private int retornoX, retornoY;
+
+    private final int[] spawnX = new int[MAX_SPAWNS], spawnY = new int[MAX_SPAWNS];
+    private int quantidadeDeSpawns;
+
+    //threads que geram trechos, que não impedem o jogo de fechar
+    private static final ExecutorService gerador = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors()-1), new ThreadFactory(){
+        public Thread newThread(Runnable r){
+            Thread t = new Thread(r, "Gera-trecho");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    //um trecho gerado, com os blocos e as posições dos inimigos em pixels
+    private static class Trecho {
+        int[][] blocos;
+        int[] inimigoX, inimigoY;
+    }
+
+    /*prepara o mapa em modo janela e gera os primeiros trechos aqui mesmo, para o jogo começar com chão embaixo do
+    jogador; os seguintes já começam a ser gerados em segundo plano*/
+    public MundoInfinito(MapaDeBlocos mb, long semente, int linhas, double densidade, int inimigosPorTrecho){
+        this.mb = mb;
+        this.semente = semente;
+        this.linhas = linhas;
+        this.densidade = densidade;
+        this.inimigosPorTrecho = inimigosPorTrecho;
+        mb.iniciaJanela(linhas, JANELA);
+        for(;proximoInstalar<=ADIANTE;proximoInstalar++){
+            instala(geraTrecho(proximoInstalar));
+        }
+        proximoPedido = proximoInstalar;
+        atualiza(0);
+    }
+
+    //gera o trecho k; roda nas threads do gerador, ou na do jogo quando ele não pode esperar
+    private Trecho geraTrecho(int k){
+        GeradorDeTerreno g = new GeradorDeTerreno(semente*31+k*0x2545F4914F6CDD1DL, linhas, densidade);
+        int[] topo = g.geraAlturasDoTrecho(TRECHO, GeradorDeTerreno.alturaDaBorda(semente, linhas, k),
+                GeradorDeTerreno.alturaDaBorda(semente, linhas, k+1), k==0);
+        Trecho t = new Trecho();
+        t.blocos = g.montaTrecho(topo);
+
+        //no primeiro trecho, os inimigos ficam longe de onde o jogador começa
+        int quantidade = k==0 ? 0 : inimigosPorTrecho;
+        t.inimigoX = new int[quantidade];
+        t.inimigoY = new int[quantidade];
+        int n = 0, tamanho = mb.qualTamanhoDoBloco();
+        for(int i=0;i<quantidade;i++){
+            int c = g.sorteiaColunaComChao(topo, 1, TRECHO+1);
+            if(c<0) continue;
+            t.inimigoX[n] = (k*TRECHO+c-1)*tamanho+tamanho/2;
+            t.inimigoY[n] = topo[c]*tamanho-20;
+            n++;
+        }
+        if(n<quantidade){
+            t.inimigoX = Arrays.copyOf(t.inimigoX, n);
+            t.inimigoY = Arrays.copyOf(t.inimigoY, n);
+        }
+        return t;
+    }
+
+    //copia o trecho para o mapa, na próxima coluna livre, e guarda seus inimigos
+    private void instala(Trecho t){
+        mb.instalaColunas(mb.qualColunaFinal(), t.blocos);
+        for(int i=0;i<t.inimigoX.length && quantidadeDeSpawns<MAX_SPAWNS;i++){
+            spawnX[quantidadeDeSpawns] = t.inimigoX[i];
+            spawnY[quantidadeDeSpawns] = t.inimigoY[i];
+            quantidadeDeSpawns++;
+        }
+    }
+
+    /*chamado a cada atualização com a posição do jogador: pede os trechos que faltam à frente, instala os que já
+    ficaram prontos e descarta as colunas que ficaram para trás. Só espera um trecho quando o jogador já está no
+    último trecho instalado, o que só acontece se o gerador não der conta*/
+    public void atualiza(int xJogador){
+        int tamanhoTrecho = TRECHO*mb.qualTamanhoDoBloco();
+        int k = Math.max(0, xJogador/tamanhoTrecho);
+
+        /*os pedidos cabem no vetor de pendentes; se o jogador pulou vários trechos de uma vez, os que faltam são
+        pedidos depois que os primeiros forem instalados*/
+        do{
+            while(proximoPedido<=k+ADIANTE && proximoPedido-proximoInstalar<pendentes.size()){
+                final int pedido = proximoPedido++;
+                pendentes.set(pedido%pendentes.size(), gerador.submit(new Callable<Trecho>(){
+                    public Trecho call(){
+                        return geraTrecho(pedido);
+                    }
+                }));
+            }
+
+            while(proximoInstalar<proximoPedido){
+                Future<Trecho> f = pendentes.get(proximoInstalar%pendentes.size());
+                /*o trecho do jogador e o seguinte precisam estar no mapa; os outros só entram quando prontos. Para
+                esses dois o f.get abaixo espera a geração na thread do jogo, se ela ainda não terminou: só acontece
+                quando o jogador anda mais rápido que a geração dos ADIANTE trechos à frente (ou no teleporte)*/
+                if(!f.isDone() && proximoInstalar>k+1) break;
+                pendentes.set(proximoInstalar%pendentes.size(), null);
+                try{
+                    instala(f.get());
+                }
+                catch(InterruptedException | ExecutionException e){
+                    //se a geração falhou, gera de novo aqui mesmo
+                    e.printStackTrace();
+                    instala(geraTrecho(proximoInstalar));
+                }
+                proximoInstalar++;
+            }
+        } while(proximoPedido<=k+ADIANTE && proximoPedido-proximoInstalar<pendentes.size());
+
+        if(k!=trechoDoJogador){
+            trechoDoJogador = k;
+            mb.descartaAte((k-ATRAS)*TRECHO);
+            //o começo de cada trecho sempre tem chão, na altura da borda
+            int tamanho = mb.qualTamanhoDoBloco();
+            int c = k==0 ? 4 : 2;
+            retornoX = (k*TRECHO+c)*tamanho+tamanho/2;
+            retornoY = GeradorDeTerreno.alturaDaBorda(semente, linhas, k)*tamanho-20;
+        }
+    }
+
+    public int quantidadeDeSpawns(){return quantidadeDeSpawns;}
+    public int spawnX(int i){return spawnX[i];}
+    public int spawnY(int i){return spawnY[i];}
+    public void limpaSpawns(){quantidadeDeSpawns = 0;}
+
+    //lugar seguro no começo do trecho do jogador, para onde ele volta quando cai em um buraco
+    public int qualRetornoX(){return retornoX;}
+    public int qualRetornoY(){return retornoY;}
+
+    public int trechosInstalados(){return proximoInstalar;}
+    public int trechosPendentes(){return proximoPedido-proximoInstalar;}
+}
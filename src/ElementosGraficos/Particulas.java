@@ -0,0 +1,181 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import Principal.JogoPanel;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class Particulas {
+    /*Efeitos visuais da fase (fumaça, poeira, faíscas e rastro de flecha) guardados em vetores, um por campo, em
+    vez de um objeto por efeito. A capacidade é fixa e decidida na criação: emitir não aloca nada, e quando os
+    vetores estão cheios as partículas novas são descartadas (e contadas em quantidadeDePerdidas). Uma partícula
+    que termina é trocada pela última, então as vivas ficam sempre nas primeiras posições.
+
+    O atualiza move todas de uma vez, e o desenha passa uma vez por tipo, para trocar a cor do Java2D só uma vez
+    por tipo. A FUMACA é o sprite de /Imagens/Explosao.gif tocado uma vez; as outras são quadrados de uma cor só.
+    POEIRA e FAISCA caem e param ao encostar em um bloco bloqueado*/
+
+    public static final int FUMACA = 0, POEIRA = 1, FAISCA = 2, RASTRO = 3;
+    private static final int TIPOS = 4;
+
+    public static final int CAPACIDADE_PADRAO = 4096;
+
+    //tabela de tipos: gravidade, duração em ticks, lado do quadrado (ou do sprite) e cor
+    private static final float[] GRAVIDADE = {0, 0.08f, 0.15f, 0};
+    private static final int[] DURACAO = {0, ClipeAnimacao.ticksDe(400), ClipeAnimacao.ticksDe(250), ClipeAnimacao.ticksDe(150)};
+    private static final int[] LADO = {30, 3, 2, 2};
+    private static final int[] COR = {0, 0xA08560, 0xFFE070, 0xD8D8D8};
+    private static final Color[] CORES = {null, new Color(COR[1]), new Color(COR[2]), new Color(COR[3])};
+
+    //o clipe da fumaça é carregado uma vez só, por qualquer uma das threads que montam fases
+    private static ClipeAnimacao clipeFumaca;
+    private static final Object travaDoClipe = new Object();
+
+    private final MapaDeBlocos mb;
+    private final int tamanhoBloco;
+
+    private final float[] x, y, vx, vy;
+    //ticks que faltam para a partícula sumir
+    private final short[] vida;
+    private final byte[] tipo;
+    private int quantidade, perdidas;
+    //partículas vivas de cada tipo, para pular a passada de desenho dos tipos sem nenhuma
+    private final int[] porTipo = new int[TIPOS];
+
+    //estado do sorteio das velocidades (xorshift), para não depender de um Random compartilhado
+    private int semente = 0x2545F491;
+
+    public Particulas(MapaDeBlocos mb, int capacidade){
+        this.mb = mb;
+        tamanhoBloco = mb.qualTamanhoDoBloco();
+        x = new float[capacidade];
+        y = new float[capacidade];
+        vx = new float[capacidade];
+        vy = new float[capacidade];
+        vida = new short[capacidade];
+        tipo = new byte[capacidade];
+        synchronized(travaDoClipe){
+            if(clipeFumaca==null){
+                try{
+                    BufferedImage sprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/Explosao.gif"));
+                    BufferedImage[] sprites = new BufferedImage[3];
+                    for(int i=0;i<sprites.length;i++){
+                        sprites[i] = sprite.getSubimage(LADO[FUMACA]*i, 0, LADO[FUMACA], LADO[FUMACA]);
+                    }
+                    clipeFumaca = new ClipeAnimacao(sprites, ClipeAnimacao.ticksDe(100));
+                }
+                catch(Exception e){
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /*emite n partículas do tipo em (px, py), com a velocidade (pvx, pvy) mais um sorteio de até espalhamento
+    pixels por tick em cada eixo*/
+    public void emite(int t, double px, double py, int n, double pvx, double pvy, double espalhamento){
+        int duracao = t==FUMACA ? clipeFumaca.qualDuracao() : DURACAO[t];
+        for(int k=0;k<n;k++){
+            if(quantidade==x.length){
+                perdidas += n-k;
+                return;
+            }
+            int i = quantidade++;
+            x[i] = (float)px;
+            y[i] = (float)py;
+            vx[i] = (float)(pvx + espalhamento*sorteia());
+            vy[i] = (float)(pvy + espalhamento*sorteia());
+            vida[i] = (short)duracao;
+            tipo[i] = (byte)t;
+            porTipo[t]++;
+        }
+    }
+
+    //número entre -1 e 1
+    private float sorteia(){
+        semente ^= semente<<13;
+        semente ^= semente>>>17;
+        semente ^= semente<<5;
+        return semente*(1f/Integer.MAX_VALUE);
+    }
+
+    public void atualiza(){
+        for(int i=0;i<quantidade;i++){
+            int t = tipo[i];
+            if(--vida[i]<=0){
+                porTipo[t]--;
+                remove(i);
+                i--;
+                continue;
+            }
+            if(GRAVIDADE[t]==0){
+                x[i] += vx[i];
+                y[i] += vy[i];
+                continue;
+            }
+            vy[i] += GRAVIDADE[t];
+            float nx = x[i]+vx[i], ny = y[i]+vy[i];
+            if(mb.estaBloqueado((int)ny/tamanhoBloco, (int)nx/tamanhoBloco)){
+                vx[i] = vy[i] = 0;
+                continue;
+            }
+            x[i] = nx;
+            y[i] = ny;
+        }
+    }
+
+    //troca a partícula i pela última
+    private void remove(int i){
+        int u = --quantidade;
+        x[i] = x[u];
+        y[i] = y[u];
+        vx[i] = vx[u];
+        vy[i] = vy[u];
+        vida[i] = vida[u];
+        tipo[i] = tipo[u];
+    }
+
+    public void desenha(Graphics2D g){
+        Rasterizador r = Rasterizador.atual();
+        int xmapa = mb.posX(), ymapa = mb.posY();
+        int larguraTela = JogoPanel.qualLargura(), alturaTela = JogoPanel.qualAltura();
+        for(int t=0;t<TIPOS;t++){
+            if(porTipo[t]==0) continue;
+            int lado = LADO[t];
+            if(r==null && t!=FUMACA) g.setColor(CORES[t]);
+            for(int i=0;i<quantidade;i++){
+                if(tipo[i]!=t) continue;
+                int px = (int)x[i] + xmapa - lado/2, py = (int)y[i] + ymapa - lado/2;
+                if(px>=larguraTela || py>=alturaTela || px+lado<=0 || py+lado<=0) continue;
+                if(t==FUMACA){
+                    int quadro = clipeFumaca.frame(clipeFumaca.qualDuracao()-vida[i]);
+                    if(r!=null) r.desenha(clipeFumaca.raster(quadro), px, py, false);
+                    else g.drawImage(clipeFumaca.imagem(quadro), px, py, null);
+                }
+                else if(r!=null) r.preenche(px, py, lado, lado, COR[t]);
+                else g.fillRect(px, py, lado, lado);
+            }
+        }
+    }
+
+    public void limpa(){
+        quantidade = 0;
+        for(int t=0;t<TIPOS;t++) porTipo[t] = 0;
+    }
+
+    public int quantidade(){return quantidade;}
+    public int qualCapacidade(){return x.length;}
+    //partículas descartadas por falta de espaço desde a criação
+    public int quantidadeDePerdidas(){return perdidas;}
+}
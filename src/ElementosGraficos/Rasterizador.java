@@ -0,0 +1,98 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class Rasterizador {
+    /*Desenho por software direto nos pixels da imagem principal (TYPE_INT_RGB), sem passar pelo drawImage do
+    Java2D. Serve para blocos opacos e sprites com transparência de 1 bit (veja ImagemRaster), onde o custo de
+    cada chamada do Java2D é maior que a cópia em si. É opcional: os métodos de desenho dos objetos usam o
+    rasterizador ativo na thread atual, caso exista, e o drawImage caso contrário*/
+    
+    //rasterizador ativo em cada thread
+    private static final ThreadLocal<Rasterizador> ativo = new ThreadLocal<>();
+    
+    //pixels da imagem de destino e sua largura (distância entre linhas)
+    private final int[] destino;
+    private final int largura, altura;
+    //área em que é permitido desenhar (recorte), com o fim exclusivo
+    private int xmin, ymin, xmax, ymax;
+    
+    public Rasterizador(BufferedImage imagem){
+        if(imagem.getType()!=BufferedImage.TYPE_INT_RGB){
+            throw new IllegalArgumentException("O rasterizador precisa de uma imagem TYPE_INT_RGB");
+        }
+        destino = ((DataBufferInt)imagem.getRaster().getDataBuffer()).getData();
+        largura = imagem.getWidth();
+        altura = imagem.getHeight();
+        mudarRecortePara(0, 0, largura, altura);
+    }
+    
+    //torna este rasterizador o ativo da thread atual
+    public void ativa(){ativo.set(this);}
+    //deixa a thread atual sem rasterizador, voltando a desenhar pelo Java2D
+    public static void desativa(){ativo.remove();}
+    //retorna o rasterizador ativo da thread atual, ou null
+    public static Rasterizador atual(){return ativo.get();}
+    
+    //muda a área em que é permitido desenhar
+    public void mudarRecortePara(int x, int y, int l, int a){
+        xmin = Math.max(0, x);
+        ymin = Math.max(0, y);
+        xmax = Math.min(largura, x+l);
+        ymax = Math.min(altura, y+a);
+    }
+    
+    //desenha a imagem com o canto superior esquerdo em (x, y), espelhada ou não
+    public void desenha(ImagemRaster img, int x, int y, boolean espelhado){
+        int l = img.qualLargura(), a = img.qualAltura();
+        if(x>=xmax || y>=ymax || x+l<=xmin || y+a<=ymin) return;
+        
+        int[] origem = img.pixels(espelhado);
+        int linhaInicio = Math.max(0, ymin-y);
+        int linhaFim = Math.min(a, ymax-y);
+        
+        //imagem opaca e inteira na horizontal: uma cópia por linha
+        if(img.ehOpaca() && x>=xmin && x+l<=xmax){
+            for(int linha=linhaInicio;linha<linhaFim;linha++){
+                System.arraycopy(origem, linha*l, destino, (y+linha)*largura+x, l);
+            }
+            return;
+        }
+        
+        int[] inicio = img.inicioLinha(espelhado);
+        int[] trechos = img.trechos(espelhado);
+        for(int linha=linhaInicio;linha<linhaFim;linha++){
+            int base = (y+linha)*largura;
+            for(int t=inicio[linha];t<inicio[linha+1];t+=2){
+                //recorta o trecho na horizontal
+                int c0 = x+trechos[t];
+                int c1 = c0+trechos[t+1];
+                if(c0<xmin) c0 = xmin;
+                if(c1>xmax) c1 = xmax;
+                if(c1<=c0) continue;
+                System.arraycopy(origem, linha*l+(c0-x), destino, base+c0, c1-c0);
+            }
+        }
+    }
+    
+    //preenche o retângulo com o canto superior esquerdo em (x, y) com a cor (0xRRGGBB)
+    public void preenche(int x, int y, int l, int a, int cor){
+        int c0 = Math.max(x, xmin), c1 = Math.min(x+l, xmax);
+        int l0 = Math.max(y, ymin), l1 = Math.min(y+a, ymax);
+        for(int linha=l0;linha<l1;linha++){
+            int base = linha*largura;
+            for(int c=c0;c<c1;c++) destino[base+c] = cor;
+        }
+    }
+}
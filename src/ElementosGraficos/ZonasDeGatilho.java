@@ -0,0 +1,237 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ElementosGraficos;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class ZonasDeGatilho {
+    /*Zonas da fase que disparam alguma coisa quando o jogador entra nelas: a saída (o portal), os checkpoints, a
+    queda (abaixo dela o jogador perde uma vida) e os ativadores, que criam inimigos. Quem usa só consulta quando o
+    objeto muda de bloco (veja celula e consulta). As zonas são guardadas de três jeitos, conforme a forma:
+        retângulo - (a saída) cada bloco coberto guarda a lista das zonas que o cobrem, em uma tabela de
+                    espalhamento só dos blocos cobertos, então a memória cresce com a área das zonas e não com
+                    o tamanho do mapa
+        limiar    - (checkpoints e ativadores) cobre da coluna do x até o fim do mapa, nas linhas do mapa. Os
+                    limiares ficam ordenados pela coluna, com um cursor que anda junto com a maior coluna já
+                    consultada; cada limiar dispara uma vez só, ao ser passado pelo cursor, e então é desativado
+        queda     - todas as colunas, da linha da queda para baixo; há uma ou duas por fase
+    Assim o custo da consulta não cresce com a quantidade de zonas da fase nem com as que já foram passadas, só
+    com as que cobrem o bloco novo.
+
+    O índice vai ABAIXO linhas além do fim do mapa, para a queda ficar abaixo do último bloco; posições fora do
+    índice contam como o bloco mais próximo dentro dele*/
+
+    public static final int SAIDA = 0, CHECKPOINT = 1, QUEDA = 2, ATIVADOR = 3;
+    //linhas do índice abaixo do mapa
+    public static final int ABAIXO = 10;
+
+    private final int colunas, linhas, tamanhoBloco;
+
+    /*tabela de espalhamento (endereçamento aberto) dos blocos cobertos por retângulos: o bloco, na posição
+    linha*colunas+coluna (ou -1 nas posições vazias), e a primeira entrada da lista dele*/
+    private int[] blocoDaTabela = vazia(16), primeiraEntrada = new int[16];
+    private int quantBlocos;
+    //cada entrada liga um bloco a uma zona; a lista de um bloco segue por proximaEntrada
+    private int[] zonaDaEntrada = new int[16], proximaEntrada = new int[16];
+    private int quantEntradas;
+
+    //limiares em ordem de coluna (a coluna nos 32 bits de cima e a zona nos de baixo) e o primeiro ainda não passado
+    private long[] limiares = new long[8];
+    private int quantLimiares, cursor;
+    private boolean limiaresOrdenados = true;
+
+    //zonas de queda
+    private int[] quedas = new int[2];
+    private int quantQuedas;
+
+    //tipo, ponto (onde o jogador volta, no checkpoint), primeira linha (da queda) e estado de cada zona
+    private int[] tipo = new int[8], pontoX = new int[8], pontoY = new int[8], linhaDaZona = new int[8];
+    private boolean[] ativa = new boolean[8];
+    private int quantZonas;
+
+    //zonas encontradas pela última consulta
+    private int[] encontradas = new int[8];
+    private int quantEncontradas;
+
+    public ZonasDeGatilho(int colunas, int linhas, int tamanhoBloco){
+        this.colunas = colunas;
+        this.linhas = linhas+ABAIXO;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    //índice com o tamanho do mapa
+    public ZonasDeGatilho(MapaDeBlocos mb){
+        this(mb.qualNumDeCols(), mb.qualNumDeLinhas(), mb.qualTamanhoDoBloco());
+    }
+
+    private static int[] vazia(int n){
+        int[] v = new int[n];
+        Arrays.fill(v, -1);
+        return v;
+    }
+
+    private int novaZona(int tipoDaZona, int x, int y, int linha){
+        if(quantZonas==tipo.length){
+            tipo = Arrays.copyOf(tipo, quantZonas*2);
+            pontoX = Arrays.copyOf(pontoX, quantZonas*2);
+            pontoY = Arrays.copyOf(pontoY, quantZonas*2);
+            linhaDaZona = Arrays.copyOf(linhaDaZona, quantZonas*2);
+            ativa = Arrays.copyOf(ativa, quantZonas*2);
+        }
+        int zona = quantZonas++;
+        tipo[zona] = tipoDaZona;
+        pontoX[zona] = x;
+        pontoY[zona] = y;
+        linhaDaZona[zona] = linha;
+        ativa[zona] = true;
+        return zona;
+    }
+
+    /*cria uma zona do tipo cobrindo os blocos do retângulo (em blocos, com o fim incluído, e cortado no tamanho do
+    índice), com o ponto associado a ela; retorna o número da zona. Serve para zonas pequenas, como a saída*/
+    public int adiciona(int tipoDaZona, int colunaInicio, int linhaInicio, int colunaFim, int linhaFim, int x, int y){
+        int zona = novaZona(tipoDaZona, x, y, linhaInicio);
+        colunaInicio = Math.max(0, colunaInicio);
+        linhaInicio = Math.max(0, linhaInicio);
+        colunaFim = Math.min(colunas-1, colunaFim);
+        linhaFim = Math.min(linhas-1, linhaFim);
+        for(int linha=linhaInicio;linha<=linhaFim;linha++){
+            for(int coluna=colunaInicio;coluna<=colunaFim;coluna++){
+                if(quantEntradas==zonaDaEntrada.length){
+                    zonaDaEntrada = Arrays.copyOf(zonaDaEntrada, quantEntradas*2);
+                    proximaEntrada = Arrays.copyOf(proximaEntrada, quantEntradas*2);
+                }
+                int i = posicaoNaTabela(linha*colunas+coluna, true);
+                zonaDaEntrada[quantEntradas] = zona;
+                proximaEntrada[quantEntradas] = primeiraEntrada[i];
+                primeiraEntrada[i] = quantEntradas++;
+            }
+        }
+        return zona;
+    }
+
+    /*posição do bloco na tabela, ou -1 se ele não estiver nela; com cria, acrescenta o bloco (com a lista vazia)
+    quando ele não está*/
+    private int posicaoNaTabela(int bloco, boolean cria){
+        if(cria && (quantBlocos+1)*2>blocoDaTabela.length) aumentaTabela();
+        int mascara = blocoDaTabela.length-1;
+        int h = bloco*0x9E3779B1;
+        for(int i=(h^h>>>16)&mascara;;i=(i+1)&mascara){
+            if(blocoDaTabela[i]==bloco) return i;
+            if(blocoDaTabela[i]<0){
+                if(!cria) return -1;
+                blocoDaTabela[i] = bloco;
+                primeiraEntrada[i] = -1;
+                quantBlocos++;
+                return i;
+            }
+        }
+    }
+
+    private void aumentaTabela(){
+        int[] blocos = blocoDaTabela, primeiras = primeiraEntrada;
+        blocoDaTabela = vazia(blocos.length*2);
+        primeiraEntrada = new int[blocos.length*2];
+        quantBlocos = 0;
+        for(int i=0;i<blocos.length;i++){
+            if(blocos[i]<0) continue;
+            primeiraEntrada[posicaoNaTabela(blocos[i], true)] = primeiras[i];
+        }
+    }
+
+    //limiar que cobre da coluna do x (em pixels) até o fim do mapa, nas linhas do mapa, com o ponto (x, y)
+    public int adicionaLimiar(int tipoDaZona, int x, int y){
+        int zona = novaZona(tipoDaZona, x, y, 0);
+        if(quantLimiares==limiares.length) limiares = Arrays.copyOf(limiares, quantLimiares*2);
+        long coluna = Math.max(0, x/tamanhoBloco);
+        limiares[quantLimiares] = coluna<<32 | zona;
+        if(quantLimiares>0 && limiares[quantLimiares-1]>limiares[quantLimiares]) limiaresOrdenados = false;
+        quantLimiares++;
+        return zona;
+    }
+
+    //queda em todas as colunas, do bloco que contém a altura y (em pixels) para baixo
+    public int adicionaQueda(int y){
+        int zona = novaZona(QUEDA, 0, y, Math.max(0, y/tamanhoBloco));
+        if(quantQuedas==quedas.length) quedas = Arrays.copyOf(quedas, quantQuedas*2);
+        quedas[quantQuedas++] = zona;
+        return zona;
+    }
+
+    //bloco do índice que contém a posição (em pixels); posições fora do índice contam como o bloco mais próximo
+    public int celula(double x, double y){
+        int coluna = (int)Math.floor(x/tamanhoBloco), linha = (int)Math.floor(y/tamanhoBloco);
+        if(coluna<0) coluna = 0;
+        if(coluna>=colunas) coluna = colunas-1;
+        if(linha<0) linha = 0;
+        if(linha>=linhas) linha = linhas-1;
+        return linha*colunas+coluna;
+    }
+
+    /*procura as zonas ativas que cobrem o bloco, que depois são lidas com encontrada; retorna quantas são. Os
+    limiares que o cursor passa são desativados*/
+    public int consulta(int celula){
+        quantEncontradas = 0;
+        int linha = celula/colunas, coluna = celula-linha*colunas;
+
+        int i = posicaoNaTabela(celula, false);
+        if(i>=0){
+            for(int e=primeiraEntrada[i];e>=0;e=proximaEntrada[e]){
+                if(ativa[zonaDaEntrada[e]]) encontrou(zonaDaEntrada[e]);
+            }
+        }
+
+        if(!limiaresOrdenados){
+            //limiares criados fora de ordem: os já passados continuam desativados, então o cursor volta ao começo
+            Arrays.sort(limiares, 0, quantLimiares);
+            limiaresOrdenados = true;
+            cursor = 0;
+        }
+        //abaixo do mapa (caindo) o cursor não anda
+        for(;linha<linhas-ABAIXO && cursor<quantLimiares && (int)(limiares[cursor]>>>32)<=coluna;cursor++){
+            int zona = (int)limiares[cursor];
+            if(!ativa[zona]) continue;
+            ativa[zona] = false;
+            encontrou(zona);
+        }
+
+        for(int q=0;q<quantQuedas;q++){
+            int zona = quedas[q];
+            if(ativa[zona] && linha>=linhaDaZona[zona]) encontrou(zona);
+        }
+        return quantEncontradas;
+    }
+
+    private void encontrou(int zona){
+        if(quantEncontradas==encontradas.length) encontradas = Arrays.copyOf(encontradas, quantEncontradas*2);
+        encontradas[quantEncontradas++] = zona;
+    }
+
+    public int encontrada(int i){return encontradas[i];}
+
+    //a zona para de disparar (por exemplo, um ativador que já criou seus inimigos)
+    public void desativa(int zona){ativa[zona] = false;}
+
+    public int qualTipo(int zona){return tipo[zona];}
+    public int qualPontoX(int zona){return pontoX[zona];}
+    public int qualPontoY(int zona){return pontoY[zona];}
+    public int quantidadeDeZonas(){return quantZonas;}
+
+    //primeira zona ativa do tipo cujo ponto fica depois do x, ou -1 (usado para pular pela fase)
+    public int proximaZona(int tipoDaZona, double x){
+        int melhor = -1;
+        for(int zona=0;zona<quantZonas;zona++){
+            if(!ativa[zona] || tipo[zona]!=tipoDaZona || pontoX[zona]<=x) continue;
+            if(melhor<0 || pontoX[zona]<pontoX[melhor]) melhor = zona;
+        }
+        return melhor;
+    }
+}
@@ -7,6 +7,7 @@
 package GerenciadorDeEstados;
 
 import java.awt.Graphics2D;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
@@ -16,6 +17,25 @@ public abstract class Estado {//Classe genérica abstrata para a criação de es
     
     protected GerenciadorEstado ge;
     
+    /*se o que o estado desenha mudou desde o último frame desenhado. Estados que ficam parados por muito tempo
+    marcam isso só quando algo muda, e o jogo reaproveita o frame anterior em vez de desenhar de novo. As teclas
+    chegam pela thread do Swing, então a marca é lida e apagada de uma vez antes de desenhar (veja
+    consomeMudanca): uma tecla que chega durante o desenho marca de novo e gera outro frame*/
+    protected final AtomicBoolean mudou = new AtomicBoolean(true);
+    
+    //quantas vezes por segundo o estado precisa ser atualizado; 0 faz o jogo esperar por uma tecla
+    public int qualTaxaDeAtualizacao(){return 60;}
+    /*se precisa desenhar de novo, apagando a marca de mudança; por padrão sempre, como em uma fase. Estados que
+    usam a marca retornam mudou.getAndSet(false)*/
+    public boolean consomeMudanca(){return true;}
+    
+    //se o estado é desenhado por cima do último frame do estado de baixo (como a pausa) em vez de cobrir a tela
+    public boolean ehSobreposicao(){return false;}
+    //se as animações andam enquanto este estado está na pilha (no topo ou coberto por outro)
+    public boolean avancaRelogio(){return true;}
+    //chamado quando outro estado é empilhado por cima, para soltar as teclas que estavam apertadas
+    public void perdeFoco(){}
+    
     public void inicializa(){}
     public void atualiza(){}
     public void desenha(Graphics2D g){}
@@ -12,6 +12,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 
 /**
  *
@@ -27,14 +28,18 @@ public class EstadoAjuda extends Estado {//Estado de ajuda
     //declara as cores dos elementos
     private Color corTitulo, corTexto, corControles;
     
+    //todo o texto da ajuda, desenhado uma vez só em uma imagem transparente
+    private BufferedImage texto;
+    
     //construtor, que é construído a partir de um gerenciador de estados
     public EstadoAjuda(GerenciadorEstado ge){
         this.ge=ge;
         try{
             //carrega a imagem de fundo (mesmo fundo do menu)
             fundo = new ImagemDeFundo("/Imagens/menubg.gif",1);
-            //coloca um movimento automático de 0.1 pixel a cada execução do thread
-            fundo.mudarMovimentoAutomatico(-0.1, 0);
+            /*coloca um movimento automático de 0.3 pixel a cada atualização; com 20 atualizações por segundo dá a
+            mesma velocidade de antes (0.1 pixel a 60 por segundo)*/
+            fundo.mudarMovimentoAutomatico(-0.3, 0);
             
             //define as fontes
             fonteTitulo = new Font("Arial",Font.PLAIN,16);
@@ -45,6 +50,13 @@ public class EstadoAjuda extends Estado {//Estado de ajuda
             corTitulo = Color.RED.darker();
             corTexto = Color.BLACK;
             corControles = Color.BLUE.darker();
+            
+            /*o texto não muda, então é desenhado uma vez e depois só a imagem é desenhada por cima do fundo. Ele é
+            montado na resolução padrão, e centralizado caso a resolução em uso seja outra*/
+            texto = new BufferedImage(JogoPanel.LARGURA, JogoPanel.ALTURA, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D gt = texto.createGraphics();
+            desenhaTexto(gt);
+            gt.dispose();
         }
         catch(Exception e){
             e.printStackTrace();
@@ -60,12 +72,23 @@ public class EstadoAjuda extends Estado {//Estado de ajuda
     public void atualiza(){
         //somente as coordenadas do fundo devem ser atualizadas pelo thread
         fundo.atualiza();
+        //o fundo anda menos de um pixel por atualização, então só é preciso desenhar quando ele muda de pixel
+        if(fundo.mudouDePixel()) mudou.set(true);
     }
     
+    //a tela só tem o fundo andando devagar, então não precisa de 60 atualizações por segundo
+    public int qualTaxaDeAtualizacao(){return 20;}
+    public boolean consomeMudanca(){return mudou.getAndSet(false);}
+    
     //método que desenha o estado
     public void desenha(Graphics2D g){
         fundo.desenha(g);//desenha o fundo
-        
+        //desenha o texto já pronto
+        g.drawImage(texto, (JogoPanel.qualLargura()-texto.getWidth())/2, (JogoPanel.qualAltura()-texto.getHeight())/2, null);
+    }
+    
+    //método auxiliar que escreve o texto da ajuda, usado só para montar a imagem do texto
+    private void desenhaTexto(Graphics2D g){
         //define a cor e a fonte do título
         g.setColor(corTitulo);
         g.setFont(fonteTitulo);
@@ -99,8 +122,9 @@ public class EstadoAjuda extends Estado {//Estado de ajuda
     //sistema de key listener
     public void keyPressed(int k){
         if(k==KeyEvent.VK_ENTER){
-            //volta para o menu principal
-            ge.mudarEstado(GerenciadorEstado.ESTADO_MENU);
+            //volta para a pausa, caso a ajuda tenha sido aberta por ela, ou para o menu principal
+            if(ge.podeDesempilhar()) ge.desempilhaEstado();
+            else ge.mudarEstado(GerenciadorEstado.ESTADO_MENU);
         }
     }
     
@@ -6,6 +6,7 @@
 
 package GerenciadorDeEstados;
 
+import ElementosGraficos.FonteBitmap;
 import ElementosGraficos.ImagemDeFundo;
 import ElementosGraficos.MapaDeBlocos;
 import Principal.JogoPanel;
@@ -27,28 +28,37 @@ public class EstadoMenu extends Estado {//Estado de menu
     private String[] opcoes = {"Jogar", "Ajuda","Sair"};
     //declara o valor da escolha atual
     private int escolhaAtual;
-    //declara as fontes que serão escritas os dados do menu
-    private Font fonteTitulo, fonteOpcoes;
+    //declara as fontes que serão escritas os dados do menu, uma para cada cor
+    private FonteBitmap fonteTitulo, fonteOpcoes, fonteSelecionado;
     //declara as cores dos elementos
     private Color corTitulo, corOpcao, corSelecionado;
+    /*coordenadas do triângulo que aponta para a opção selecionada, uma linha de y por opção, calculadas uma vez só
+    para que o desenho não escreva nada (com o desenho em faixas, várias threads desenham ao mesmo tempo)*/
+    private final int[] setaX = {135,135,140};
+    private final int[][] setaY = new int[opcoes.length][];
     
     //construtor, que é construído a partir de um gerenciador de estados
     public EstadoMenu(GerenciadorEstado ge){
         this.ge=ge;
+        for(int i=0;i<opcoes.length;i++){
+            setaY[i] = new int[]{130+15*i-10, 130+15*i, 130+15*i-5};
+        }
         try{
             //carrega a imagem de fundo
             fundo = new ImagemDeFundo("/Imagens/menubg.gif",1);
-            //coloca um movimento automático de 0.1 pixel a cada execução do thread
-            fundo.mudarMovimentoAutomatico(-0.1, 0);
+            /*coloca um movimento automático de 0.3 pixel a cada atualização; com 20 atualizações por segundo dá a
+            mesma velocidade de antes (0.1 pixel a 60 por segundo)*/
+            fundo.mudarMovimentoAutomatico(-0.3, 0);
             
-            //define as fontes
-            fonteTitulo = new Font("Arial",Font.PLAIN,16);
-            fonteOpcoes = new Font("Arial",Font.PLAIN,12);
-
             //define as cores
             corTitulo = Color.RED.darker();
             corOpcao = Color.BLACK;
             corSelecionado = Color.RED;
+
+            //define as fontes, que já ficam desenhadas em imagem com sua cor
+            fonteTitulo = new FonteBitmap(new Font("Arial",Font.PLAIN,16), corTitulo);
+            fonteOpcoes = new FonteBitmap(new Font("Arial",Font.PLAIN,12), corOpcao);
+            fonteSelecionado = new FonteBitmap(new Font("Arial",Font.PLAIN,12), corSelecionado);
         }
         catch(Exception e){
             e.printStackTrace();
@@ -64,36 +74,38 @@ public class EstadoMenu extends Estado {//Estado de menu
     public void atualiza(){
         //somente as coordenadas do fundo devem ser atualizadas pelo thread
         fundo.atualiza();
+        //o fundo anda menos de um pixel por atualização, então só é preciso desenhar quando ele muda de pixel
+        if(fundo.mudouDePixel()) mudou.set(true);
     }
     
+    //a tela só tem o fundo andando devagar, então não precisa de 60 atualizações por segundo
+    public int qualTaxaDeAtualizacao(){return 20;}
+    public boolean consomeMudanca(){return mudou.getAndSet(false);}
+    
     //método que desenha o estado
     public void desenha(Graphics2D g){
         fundo.desenha(g);//desenha o fundo
-        //define a cor e a fonte do título
-        g.setColor(corTitulo);
-        g.setFont(fonteTitulo);
+        //o menu é montado para a resolução padrão e centralizado na resolução em uso
+        int ox = (JogoPanel.qualLargura()-JogoPanel.LARGURA)/2, oy = (JogoPanel.qualAltura()-JogoPanel.ALTURA)/2;
+        g.translate(ox, oy);
         //escreve o título na tela
-        g.drawString("O explorador", 120, 100);
+        fonteTitulo.desenha(g, "O explorador", 120, 100);
         
-        //muda a fonte para fonte de opções
-        g.setFont(fonteOpcoes);
         //enquanto i for menor que o número da array da string de opções
         for(int i=0;i<opcoes.length;i++){
             if(escolhaAtual==i){/*se a string for a opção atual, então desenhar ela com uma cor diferenciada
                 e desenhar um triângulo que aponte para a opção
                 */
                 g.setColor(corSelecionado);
-                int[] x = {135,135,140};
-                int[] y = {130+15*i-10,130+15*i,130+15*i-5};
-                g.fillPolygon(x,y,3);
+                g.fillPolygon(setaX,setaY[i],3);
+                fonteSelecionado.desenha(g, opcoes[i], 150, 130+15*i);
             }
             else{
-                //caso contrário, simplemente dar a cor padrão de opções
-                g.setColor(corOpcao);
+                //caso contrário, simplemente desenhar com a fonte padrão de opções
+                fonteOpcoes.desenha(g, opcoes[i], 150, 130+15*i);
             }
-            //desenha a string da opção
-            g.drawString(opcoes[i], 150, 130+15*i);
         }
+        g.translate(-ox, -oy);
     }
     
     
@@ -113,6 +125,7 @@ public class EstadoMenu extends Estado {//Estado de menu
     
     //sistema de key listener
     public void keyPressed(int k){
+        mudou.set(true);
         if(k==KeyEvent.VK_UP){
             //caso a tecla pressionada seja cima, então decrementar escolha atual
             escolhaAtual--;
@@ -0,0 +1,93 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package GerenciadorDeEstados;
+
+import ElementosGraficos.FonteBitmap;
+import Principal.JogoPanel;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class EstadoPausa extends Estado {//Estado de pausa, empilhado por cima da fase
+    /*A fase continua na pilha do gerenciador, congelada, e o último frame dela é desenhado por baixo da pausa.
+    Continuar só desempilha a pausa, sem carregar nada de novo*/
+    
+    //declara as opções da pausa
+    private String[] opcoes = {"Continuar", "Ajuda", "Sair para o menu"};
+    private int escolhaAtual;
+    //declara as fontes, uma para cada cor, como no menu
+    private FonteBitmap fonteTitulo, fonteOpcoes, fonteSelecionado;
+    //cor que escurece a fase por baixo da pausa
+    private Color corFundo;
+    
+    public EstadoPausa(GerenciadorEstado ge){
+        this.ge=ge;
+        corFundo = new Color(0, 0, 0, 140);
+        fonteTitulo = new FonteBitmap(new Font("Arial",Font.PLAIN,16), Color.WHITE);
+        fonteOpcoes = new FonteBitmap(new Font("Arial",Font.PLAIN,12), Color.LIGHT_GRAY);
+        fonteSelecionado = new FonteBitmap(new Font("Arial",Font.PLAIN,12), Color.RED);
+    }
+    
+    //sempre começa pela opção de continuar
+    public void inicializa(){
+        escolhaAtual = 0;
+    }
+    
+    //nada se move na pausa, então o jogo só acorda com uma tecla
+    public int qualTaxaDeAtualizacao(){return 0;}
+    public boolean consomeMudanca(){return mudou.getAndSet(false);}
+    public boolean ehSobreposicao(){return true;}
+    public boolean avancaRelogio(){return false;}
+    
+    public void desenha(Graphics2D g){
+        int largura = JogoPanel.qualLargura(), altura = JogoPanel.qualAltura();
+        g.setColor(corFundo);
+        g.fillRect(0, 0, largura, altura);
+        
+        int y = altura/2 - 30;
+        fonteTitulo.desenha(g, "Pausado", (largura-fonteTitulo.larguraDe("Pausado"))/2, y);
+        for(int i=0;i<opcoes.length;i++){
+            FonteBitmap fonte = escolhaAtual==i ? fonteSelecionado : fonteOpcoes;
+            fonte.desenha(g, opcoes[i], (largura-fonte.larguraDe(opcoes[i]))/2, y+25+15*i);
+        }
+    }
+    
+    public void keyPressed(int k){
+        mudou.set(true);
+        if(k==KeyEvent.VK_UP){
+            escolhaAtual--;
+            if(escolhaAtual<0) escolhaAtual=opcoes.length-1;
+        }
+        if(k==KeyEvent.VK_DOWN){
+            escolhaAtual++;
+            if(escolhaAtual==opcoes.length) escolhaAtual=0;
+        }
+        //ESC ou P de novo também continuam
+        if(k==KeyEvent.VK_ESCAPE || k==KeyEvent.VK_P){
+            continua();
+            return;
+        }
+        if(k==KeyEvent.VK_ENTER){
+            if(escolhaAtual==0) continua();
+            else if(escolhaAtual==1) ge.empilhaEstado(GerenciadorEstado.ESTADO_AJUDA);
+            else{
+                escolhaAtual = 0;
+                ge.mudarEstado(GerenciadorEstado.ESTADO_MENU);
+            }
+        }
+    }
+    
+    private void continua(){
+        escolhaAtual = 0;
+        ge.desempilhaEstado();
+    }
+}
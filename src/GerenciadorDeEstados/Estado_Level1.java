@@ -6,13 +6,19 @@
 
 package GerenciadorDeEstados;
 
-import ElementosGraficos.ImagemDeFundo;
+import ElementosGraficos.Animacao;
+import ElementosGraficos.CamadaDeBlocos;
+import ElementosGraficos.CampoDeFluxo;
+import ElementosGraficos.FundoParallax;
 import ElementosGraficos.MapaDeBlocos;
-import ObjetosDoMapa.Explosao;
+import ElementosGraficos.MundoInfinito;
+import ElementosGraficos.Particulas;
+import ElementosGraficos.ZonasDeGatilho;
+import ObjetosDoMapa.AgendaDeIA;
+import ObjetosDoMapa.BandoDeInimigos;
 import ObjetosDoMapa.Inimigo;
 import ObjetosDoMapa.Jogador;
 import ObjetosDoMapa.LoboCinza;
-import ObjetosDoMapa.LoboVermelho;
 import ObjetosDoMapa.Portal;
 import Principal.JogoPanel;
 import java.awt.Graphics2D;
@@ -27,11 +33,33 @@ import java.util.ArrayList;
 public class Estado_Level1 extends Estado {//classe do estado de level 1
     
     private MapaDeBlocos mb;//cria um novo mapa
-    private ImagemDeFundo ceu, terra;//cria um novo fundo
+    private FundoParallax fundo;//cria um novo fundo, com as camadas de céu e terra
     private Jogador jogador;//cria um novo jogador
     private ArrayList<Inimigo> inimigos;
-    private ArrayList<Explosao> explosoes;
+    /*quando a propriedade explorador.bando for true, os inimigos são guardados em vetores no bando em vez de
+    objetos na lista acima*/
+    private BandoDeInimigos bando;
+    /*quando a propriedade explorador.horda for true, os inimigos das fases de arquivo perseguem o jogador por este
+    campo em vez de patrulhar*/
+    private CampoDeFluxo campo;
+    //fumaça, poeira e faíscas da fase atual
+    private Particulas particulas;
     private Portal portal;
+    private Fase fase;
+    //mundo sem fim da fase atual, ou null nas fases que vêm de arquivo
+    private MundoInfinito mundo;
+    //zonas da fase atual e o bloco em que o jogador estava na última consulta
+    private ZonasDeGatilho zonas;
+    private int celulaDoJogador;
+    //se o bloco do jogador está na zona de saída, e o x do último checkpoint alcançado
+    private boolean naSaida;
+    private int xDoCheckpoint;
+    //camadas de enfeite da fase, atrás e na frente dos blocos de colisão
+    private ArrayList<CamadaDeBlocos> camadasDeFundo, camadasDeFrente;
+    /*frequência das decisões dos inimigos pela distância ao jogador: todo tick até uma tela de distância, e mais
+    espaçadas até duas telas e além. Com -Dexplorador.relatorioIA=true o custo delas é mostrado uma vez por segundo*/
+    private final AgendaDeIA agenda = new AgendaDeIA(JogoPanel.qualLargura(), 2*JogoPanel.qualLargura());
+    private final boolean relatorioIA = Boolean.getBoolean("explorador.relatorioIA");
     
     private int contadorFase;
     private ArrayList<Rectangle> tb;
@@ -39,167 +67,236 @@ public class Estado_Level1 extends Estado {//classe do estado de level 1
     
     
     
+    /*ordem das fases, que pode ser mudada com -Dexplorador.fases=fase1,fase2,... (nomes dos arquivos em /Mapas).
+    A fase seguinte é montada em segundo plano quando o jogador passa do ponto de prefetch da fase atual*/
+    private SequenciaDeFases sequencia;
+    private int faseAtual;
+    
     //construtor
     public Estado_Level1(GerenciadorEstado ge){
         this.ge = ge;
+        sequencia = new SequenciaDeFases(System.getProperty("explorador.fases", "level1-1").split(","));
         inicializa();
     }
     
     public void inicializa(){
-        //cria um novo mapa de blocos, onde cada bloco é 30x30 pixels
-        mb = new MapaDeBlocos(30);
-        //carrega a imagem de blocos e define o número de cada bloco
-        mb.carregarBlocos("/Imagens/blocos.gif");
-        //carrega o mapa e define o que será desenhado, e atualizado
-        mb.carregarMapa("/Mapas/level1-1.mapa");
-        //muda a velocidade em que a tela muda de posição
-        mb.mudarVelocidadeDeTela(0.05);
-        
-        //define uma nova imagem de fundo
-        ceu = new ImagemDeFundo("/Imagens/Ceu.gif", 0);
-        ceu.mudarMovimentoAutomatico(-0.2, 0);
-        terra = new ImagemDeFundo("/Imagens/Terra.gif",0.1);
-        
-        //define um novo jogador
-        jogador = new Jogador(mb);
-        //a posição inicial do jogador, será na posição 100,100
-        jogador.mudarPosicaoPara(100, 160);
-        inicializaMonstros();
+        faseAtual = 0;
+        entraNaFase(sequencia.monta(faseAtual), null);
         
-        
-        explosoes = new ArrayList<>();
-        
-        portal = new Portal(mb);
-        portal.mudarPosicaoPara(4875, 165);
+        //define o fundo: o céu anda sozinho e a terra acompanha a tela devagar
+        fundo = new FundoParallax();
+        fundo.adicionaCamada("/Imagens/Ceu.gif", 0).mudarMovimentoAutomatico(-0.2, 0);
+        fundo.adicionaCamada("/Imagens/Terra.gif", 0.1);
         
         contadorFase=0;
         tb = new ArrayList<>();
         
     }
     
-    public void inicializaMonstros(){
-        inimigos = new ArrayList<>();
+    /*passa a jogar a fase já montada, trocando o mapa, o portal e os inimigos. O jogador da fase anterior, se houver,
+    continua (com as vidas que tinha) no lugar do jogador criado pela fase*/
+    private void entraNaFase(Fase fase, Jogador anterior){
+        this.fase = fase;
+        mb = fase.qualMapa();
+        jogador = fase.qualJogador();
+        if(anterior!=null){
+            anterior.continuaNaFase(jogador);
+            jogador = anterior;
+        }
+        portal = fase.qualPortal();
+        inimigos = fase.quaisInimigos();
+        mundo = fase.qualMundo();
+        zonas = fase.qualZonas();
+        celulaDoJogador = -1;
+        naSaida = false;
+        xDoCheckpoint = Integer.MIN_VALUE;
+        camadasDeFundo = fase.camadasDeFundo();
+        camadasDeFrente = fase.camadasDeFrente();
+        particulas = fase.qualParticulas();
         
-        Inimigo lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(730, 140);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(1680, 80);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2000, 80);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(1725, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2000, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2275, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2500, 80);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2760, 110);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(2950, 140);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3045, 140);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3150, 80);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3480, 200);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3765, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3815, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3930, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(3970, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(4010, 170);
-        inimigos.add(lobo);
-        lobo = new LoboCinza(mb);
-        lobo.mudarPosicaoPara(4050, 170);
-        inimigos.add(lobo);
-        lobo = new LoboVermelho(mb);
-        lobo.mudarPosicaoPara(4590, 50);
-        inimigos.add(lobo);
-        lobo = new LoboVermelho(mb);
-        lobo.mudarPosicaoPara(4660, 50);
-        inimigos.add(lobo);
+        bando = null;
+        if(Boolean.getBoolean("explorador.bando")){
+            bando = new BandoDeInimigos(mb, inimigos.size());
+            for(int i=0;i<inimigos.size();i++){
+                bando.adiciona(inimigos.get(i));
+            }
+            inimigos.clear();
+        }
         
+        campo = null;
+        if(Boolean.getBoolean("explorador.horda") && mundo==null){
+            campo = new CampoDeFluxo(mb);
+            for(int i=0;i<inimigos.size();i++) inimigos.get(i).mudarCampoDeFluxo(campo);
+            if(bando!=null) bando.mudarCampoDeFluxo(campo);
+        }
     }
+    
     //atualiza o level 1
     public void atualiza(){ 
         
          portal.atualiza();
         if(jogador.terminou() && portal.executou()){
-            ge.mudarEstado(0);
+            //depois da última fase, volta para o menu
+            if(!sequencia.existe(faseAtual+1)){
+                ge.mudarEstado(GerenciadorEstado.ESTADO_MENU);
+                return;
+            }
+            /*a próxima fase é montada em outra thread; enquanto ela não fica pronta, a fase atual continua rodando
+            com o jogador parado no portal*/
+            Fase proxima = sequencia.entregaSePronta(faseAtual+1);
+            if(proxima!=null){
+                faseAtual++;
+                entraNaFase(proxima, jogador);
+            }
         }
+        if(jogador.posX()>=fase.qualPontoDePrefetch()) sequencia.prepara(faseAtual+1);
         
-        if(portal.checaColisao(jogador)){
-            portal.trocaAnimacao();
-            jogador.termina();
-        }
         if(jogador.estaMorto()){
             ge.mudarEstado(GerenciadorEstado.ESTADO_MENU);
         }
-        ceu.atualiza();
+        fundo.atualiza();
         jogador.atualiza();//atualiza o jogador
         
-        // Adiciona explosões de teleporte do jogador
-        explosoes.addAll(jogador.getExplosoesParaCriar());
-        jogador.limparExplosoesParaCriar();
+        if(mundo!=null) atualizaMundo();
+        checaZonas();
         
         jogador.checaColisoes(inimigos);
-        terra.mudarPosicaoPara(mb.posX(), mb.posY());//muda o fundo de acordo com a posição do mapa
-        mb.mudarPosicaoPara(JogoPanel.LARGURA/2 - jogador.posX() ,JogoPanel.ALTURA/2 - jogador.posY());//muda o map de acordo com a posição do jogador
+        if(bando!=null) jogador.checaColisoes(bando);
+        fundo.mudarPosicaoPara(mb.posX(), mb.posY());//muda o fundo de acordo com a posição do mapa
+        mb.mudarPosicaoPara(JogoPanel.qualLargura()/2 - jogador.posX() ,JogoPanel.qualAltura()/2 - jogador.posY());//muda o map de acordo com a posição do jogador
+        mb.atualizaAnimacoes();//um quadro para cada tipo de bloco animado, e não para cada bloco
+        for(int i=0;i<camadasDeFundo.size();i++) camadasDeFundo.get(i).atualiza();
+        for(int i=0;i<camadasDeFrente.size();i++) camadasDeFrente.get(i).atualiza();
         for(int i=0;i<inimigos.size();i++){
             Inimigo in = inimigos.get(i);
-            in.atualiza();
+            in.atualizaFisica();
+            if(mundo!=null && ficouParaTras(in)){
+                int ultimo = inimigos.size()-1;
+                inimigos.set(i, inimigos.get(ultimo));
+                inimigos.remove(ultimo);
+                i--;
+                continue;
+            }
             if(in.estaMorto()) {
-                inimigos.remove(i);
+                //troca o inimigo morto pelo último da lista, para não deslocar todos os outros
+                int ultimo = inimigos.size()-1;
+                inimigos.set(i, inimigos.get(ultimo));
+                inimigos.remove(ultimo);
                 i--;
-                explosoes.add(new Explosao(mb, in.posX(), in.posY()));
+                particulas.emite(Particulas.FUMACA, in.posX(), in.posY(), 1, 0, 0, 0);
             }
         }
-        
-        for(int i=0;i<explosoes.size();i++){
-            explosoes.get(i).atualiza();
-            if(explosoes.get(i).deveRemover()){
-                explosoes.remove(i);
-                i--;
+        //as decisões rodam depois, com a frequência que o agenda escolher pela distância ao jogador
+        agenda.comecaTick(Animacao.tickAtual(), jogador.posX(), jogador.posY());
+        for(int i=0;i<inimigos.size();i++) agenda.decide(inimigos.get(i));
+        agenda.terminaTick();
+        if(relatorioIA && Animacao.tickAtual()%60==0) mostraRelatorioIA();
+        if(bando!=null){
+            bando.atualiza();
+            for(int i=0;i<bando.quantidadeDeMortos();i++){
+                particulas.emite(Particulas.FUMACA, bando.mortoX(i), bando.mortoY(i), 1, 0, 0, 0);
             }
-        }   
+        }
+        
+        particulas.atualiza();
+        //os blocos quebrados nesta atualização viram um lote só
+        mb.fechaMudancas();
+        if(fase.temGrafo()) fase.qualGrafo().atualiza();
+        if(campo!=null) campo.atualiza(jogador.posX(), jogador.posY(), jogador.CAltura()/2);
     }
                 
+    /*no mundo sem fim, instala os trechos já gerados à frente do jogador, cria os lobos deles e leva o ponto de
+    retorno junto com o jogador*/
+    private void atualizaMundo(){
+        mundo.atualiza(jogador.posX());
+        jogador.mudarPontoDeRetorno(mundo.qualRetornoX(), mundo.qualRetornoY());
+        for(int i=0;i<mundo.quantidadeDeSpawns();i++){
+            LoboCinza lobo = new LoboCinza(mb);
+            lobo.mudarPosicaoPara(mundo.spawnX(i), mundo.spawnY(i));
+            lobo.mudarParticulas(particulas);
+            inimigos.add(lobo);
+        }
+        mundo.limpaSpawns();
+    }
+    
+    /*dispara as zonas do bloco do jogador, só quando ele muda de bloco: o checkpoint muda o ponto de retorno, a queda
+    tira uma vida e o ativador coloca seus inimigos na fase. A zona de saída só marca que o jogador está perto do
+    portal; a fase termina quando ele encosta no portal, conferido em todo tick enquanto estiver na zona*/
+    private void checaZonas(){
+        if(jogador.terminou()) return;
+        int celula = zonas.celula(jogador.posX(), jogador.posY());
+        if(celula!=celulaDoJogador){
+            celulaDoJogador = celula;
+            naSaida = false;
+            disparaZonas(celula);
+        }
+        if(naSaida && portal.checaColisao(jogador)){
+            portal.trocaAnimacao();
+            jogador.termina();
+        }
+    }
+    
+    private void disparaZonas(int celula){
+        int n = zonas.consulta(celula);
+        for(int i=0;i<n;i++){
+            int zona = zonas.encontrada(i);
+            switch(zonas.qualTipo(zona)){
+                case ZonasDeGatilho.SAIDA:
+                    naSaida = true;
+                    break;
+                case ZonasDeGatilho.CHECKPOINT:
+                    /*o checkpoint vai até o fim do mapa e dispara uma vez só; se o jogador passar de vários de uma
+                    vez, vale o mais adiantado*/
+                    if(zonas.qualPontoX(zona)>xDoCheckpoint){
+                        xDoCheckpoint = zonas.qualPontoX(zona);
+                        jogador.mudarPontoDeRetorno(xDoCheckpoint, zonas.qualPontoY(zona));
+                    }
+                    zonas.desativa(zona);
+                    break;
+                case ZonasDeGatilho.QUEDA:
+                    jogador.cai();
+                    break;
+                case ZonasDeGatilho.ATIVADOR:
+                    int antes = inimigos.size();
+                    fase.liberaAtivados(zona, inimigos);
+                    for(int j=antes;j<inimigos.size();j++) inimigos.get(j).mudarCampoDeFluxo(campo);
+                    break;
+            }
+        }
+    }
+    
+    //pula para o próximo checkpoint à frente do jogador, se houver
+    private void pulaParaCheckpoint(){
+        int zona = zonas.proximaZona(ZonasDeGatilho.CHECKPOINT, jogador.posX());
+        if(zona>=0) jogador.mudarPosicaoPara(zonas.qualPontoX(zona), zonas.qualPontoY(zona));
+    }
+    
+    //uma linha por segundo com o custo das decisões dos inimigos no último tick e o maior custo no segundo
+    private void mostraRelatorioIA(){
+        System.out.printf("IA: %d inimigos, %d decisoes no tick, %.3f ms (maior no segundo %.3f ms)%n", inimigos.size(),
+                agenda.quantidadeDeDecisoes(), agenda.qualTempoDoTick()/1e6, agenda.qualMaiorTempo()/1e6);
+        agenda.zeraMaior();
+    }
+    
+    //inimigo em colunas já descartadas do mundo sem fim, ou que caiu em um buraco
+    private boolean ficouParaTras(Inimigo in){
+        return in.posX()<mb.qualColunaInicial()*mb.qualTamanhoDoBloco() || in.posY()>mb.qualAlturaDoMapa()+250;
+    }
+    
     //desenha a fase
     public void desenha(Graphics2D g){
         
-        ceu.desenha(g);
-        terra.desenha(g);
+        fundo.desenha(g);
+        for(int i=0;i<camadasDeFundo.size();i++) camadasDeFundo.get(i).desenha(g);
         portal.desenha(g);
         mb.desenha(g);
         jogador.desenha(g);
         for(int i=0;i<inimigos.size();i++){
             inimigos.get(i).desenha(g);
         }
-        for(int i=0;i<explosoes.size();i++){
-            explosoes.get(i).desenha(g);
-        }
+        if(bando!=null) bando.desenha(g);
+        particulas.desenha(g);
+        for(int i=0;i<camadasDeFrente.size();i++) camadasDeFrente.get(i).desenha(g);
     }
     
     public void keyPressed(int k){
@@ -216,7 +313,18 @@ public class Estado_Level1 extends Estado {//classe do estado de level 1
         if(k==KeyEvent.VK_X) jogador.atira();
         if(k==KeyEvent.VK_C) jogador.corre(true);
         if(k==KeyEvent.VK_V) jogador.teleporta();
-        if(k==KeyEvent.VK_B) jogador.mudarPosicaoPara(4800, 50);
+        if(k==KeyEvent.VK_B) pulaParaCheckpoint();
+        //pausa a fase, que fica congelada embaixo da pausa
+        if(k==KeyEvent.VK_ESCAPE || k==KeyEvent.VK_P) ge.empilhaEstado(GerenciadorEstado.ESTADO_PAUSA);
+    }
+    
+    //as teclas soltas durante a pausa não chegam aqui, então o jogador para de se mover ao ser coberto
+    public void perdeFoco(){
+        jogador.Direita(false);
+        jogador.Esquerda(false);
+        jogador.Pulando(false);
+        jogador.Baixo(false);
+        jogador.corre(false);
     }
     
     public void keyReleased(int k){
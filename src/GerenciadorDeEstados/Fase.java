@@ -0,0 +1,246 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package GerenciadorDeEstados;
+
+import ElementosGraficos.CamadaDeBlocos;
+import ElementosGraficos.ClipeAnimacao;
+import ElementosGraficos.GrafoDeNavegacao;
+import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.MundoInfinito;
+import ElementosGraficos.Particulas;
+import ElementosGraficos.ZonasDeGatilho;
+import ObjetosDoMapa.Inimigo;
+import ObjetosDoMapa.Jogador;
+import ObjetosDoMapa.LoboCinza;
+import ObjetosDoMapa.LoboVermelho;
+import ObjetosDoMapa.Portal;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class Fase {
+    /*Uma fase já pronta para jogar: o mapa de blocos carregado, o jogador, o portal e os inimigos criados nas
+    posições do arquivo .spawns. Tudo é montado no construtor, que pode rodar fora da thread do jogo (veja
+    SequenciaDeFases); depois de entregue, a fase só é usada pela thread do jogo*/
+    
+    private final String nome;
+    private final MapaDeBlocos mb;
+    private final Jogador jogador;
+    private final Portal portal;
+    private final ArrayList<Inimigo> inimigos;
+    //camadas de enfeite desenhadas atrás e na frente da camada de colisão, na ordem do arquivo
+    private final ArrayList<CamadaDeBlocos> camadasDeFundo = new ArrayList<>(), camadasDeFrente = new ArrayList<>();
+    //posição x a partir da qual a próxima fase começa a ser carregada
+    private int pontoDePrefetch = -1;
+    //se o .spawns definiu a altura da queda
+    private boolean temQueda;
+    //mundo sem fim, usado no lugar do arquivo .mapa pelas fases "infinito" e "infinito:<semente>"
+    private MundoInfinito mundo;
+    //grafo de navegação das plataformas, criado só quando algum inimigo pede (veja qualGrafo)
+    private GrafoDeNavegacao grafo;
+    //saída, checkpoints, queda e ativadores da fase
+    private ZonasDeGatilho zonas;
+    //efeitos da fase, entregues a todos os objetos criados aqui
+    private final Particulas particulas;
+    //inimigos que só entram na fase quando o jogador chega ao ativador deles, por zona, e a zona de cada x de ativador
+    private final HashMap<Integer, ArrayList<Inimigo>> ativadosDaZona = new HashMap<>();
+    private final HashMap<Integer, Integer> zonaDoX = new HashMap<>();
+    //altura (em pixels) a partir da qual o jogador cai da fase, se o .spawns não disser outra
+    private static final int QUEDA_ABAIXO_DO_MAPA = 250;
+    
+    //prefixo do nome das fases sem fim
+    public static final String INFINITO = "infinito";
+    
+    //carrega /Mapas/<nome>.mapa e /Mapas/<nome>.spawns
+    public Fase(String nome){
+        this.nome = nome;
+        
+        //cria um novo mapa de blocos, onde cada bloco é 30x30 pixels
+        mb = new MapaDeBlocos(30);
+        //carrega a imagem de blocos e define o número de cada bloco
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        //muda a velocidade em que a tela muda de posição
+        mb.mudarVelocidadeDeTela(0.05);
+        particulas = new Particulas(mb, Particulas.CAPACIDADE_PADRAO);
+        
+        inimigos = new ArrayList<>();
+        if(nome.startsWith(INFINITO)){
+            //gera os primeiros trechos, e os demais vão sendo gerados enquanto o jogador anda
+            long semente = sementeDoInfinito(nome);
+            mundo = new MundoInfinito(mb, semente, 8, 0.4, 2);
+            jogador = new Jogador(mb);
+            jogador.mudarParticulas(particulas);
+            jogador.mudarPosicaoPara(mundo.qualRetornoX(), mundo.qualRetornoY());
+            jogador.mudarPontoDeRetorno(mundo.qualRetornoX(), mundo.qualRetornoY());
+            //não há portal nem fase seguinte
+            portal = new Portal(mb);
+            portal.mudarPosicaoPara(-1000, -1000);
+            //só há a queda, que vale para todas as colunas, então o índice tem uma coluna só
+            zonas = new ZonasDeGatilho(1, mb.qualNumDeLinhas(), mb.qualTamanhoDoBloco());
+            zonas.adicionaQueda(mb.qualAlturaDoMapa()+QUEDA_ABAIXO_DO_MAPA);
+            pontoDePrefetch = Integer.MAX_VALUE;
+            return;
+        }
+        
+        //carrega o mapa e define o que será desenhado, e atualizado
+        mb.carregarMapa("/Mapas/"+nome+".mapa");
+        jogador = new Jogador(mb);
+        jogador.mudarParticulas(particulas);
+        portal = new Portal(mb);
+        zonas = new ZonasDeGatilho(mb);
+        carregaSpawns("/Mapas/"+nome+".spawns");
+        //as imagens das camadas são criadas aqui, com os blocos animados já definidos, e não na thread do jogo
+        for(int i=0;i<camadasDeFundo.size();i++) camadasDeFundo.get(i).prepara();
+        for(int i=0;i<camadasDeFrente.size();i++) camadasDeFrente.get(i).prepara();
+        /*a saída são os blocos a até meio bloco do centro do portal, onde o centro do jogador fica ao encostar nele;
+        o Estado_Level1 confere o encosto de verdade enquanto o jogador estiver nesses blocos*/
+        int t = mb.qualTamanhoDoBloco(), px = portal.posX(), py = portal.posY();
+        zonas.adiciona(ZonasDeGatilho.SAIDA, (px-t/2)/t, (py-t/2)/t, (px+t/2)/t, (py+t/2)/t, px, py);
+        if(!temQueda) zonas.adicionaQueda(mb.qualAlturaDoMapa()+QUEDA_ABAIXO_DO_MAPA);
+        if(pontoDePrefetch<0) pontoDePrefetch = mb.qualLarguraDoMapa()/2;
+    }
+    
+    //semente de uma fase "infinito" (0) ou "infinito:<semente>"
+    private static long sementeDoInfinito(String nome){
+        if(nome.equals(INFINITO)) return 0;
+        if(nome.charAt(INFINITO.length())==':'){
+            try{
+                return Long.parseLong(nome.substring(INFINITO.length()+1));
+            }
+            catch(NumberFormatException e){}
+        }
+        throw new IllegalArgumentException("Nome de fase sem fim inválido: \""+nome+"\" (use \""+INFINITO+"\" ou \""+INFINITO+":<semente>\")");
+    }
+    
+    /*lê o arquivo de objetos: em cada linha o tipo e a posição x e y (ou só x, no caso do prefetch, os números
+    dos blocos, no caso do quebravel, o arquivo, a velocidade e o lado, no caso da camada, ou o bloco, o tempo e os
+    quadros, no caso do animado). As linhas de zonas são "checkpoint x y", "queda y" e "ativado <x do ativador>
+    <tipo> x y"; linhas vazias e começadas por # são ignoradas. Uma linha com erro lança IllegalArgumentException
+    com o arquivo e o número da linha, que chega a quem pediu a fase (pelo Future, se ela foi montada em outra
+    thread) em vez de a fase ser montada sem o resto das linhas*/
+    private void carregaSpawns(String s){
+        InputStream in = getClass().getResourceAsStream(s);
+        if(in==null) throw new IllegalArgumentException("Arquivo de objetos não encontrado: "+s);
+        int numero = 0;
+        String linha = null;
+        try(BufferedReader br = new BufferedReader(new InputStreamReader(in))){
+            while((linha = br.readLine())!=null){
+                numero++;
+                linha = linha.trim();
+                if(linha.isEmpty() || linha.startsWith("#")) continue;
+                String[] partes = linha.split("\\s+");
+                //quebravel seguido dos números dos blocos que as flechas quebram
+                if(partes[0].equals("quebravel")){
+                    for(int i=1;i<partes.length;i++) mb.mudarQuebravel(Integer.parseInt(partes[i]), true);
+                    continue;
+                }
+                //animado seguido do bloco, dos milissegundos de cada quadro e dos blocos usados como quadros
+                if(partes[0].equals("animado")){
+                    int[] quadros = new int[partes.length-3];
+                    for(int i=0;i<quadros.length;i++) quadros[i] = Integer.parseInt(partes[i+3]);
+                    mb.defineAnimacao(Integer.parseInt(partes[1]), quadros, ClipeAnimacao.ticksDe(Integer.parseInt(partes[2])));
+                    continue;
+                }
+                //camada seguida do arquivo em /Mapas (sem extensão), da velocidade e de fundo ou frente
+                if(partes[0].equals("camada")){
+                    CamadaDeBlocos camada = new CamadaDeBlocos(mb, "/Mapas/"+partes[1]+".mapa", Double.parseDouble(partes[2]));
+                    if(partes[3].equals("frente")) camadasDeFrente.add(camada);
+                    else camadasDeFundo.add(camada);
+                    continue;
+                }
+                //ativado seguido do x em que o inimigo é criado, do tipo e da posição dele
+                if(partes[0].equals("ativado")){
+                    int xAtivador = Integer.parseInt(partes[1]);
+                    Inimigo inimigo = criaInimigo(partes[2]);
+                    inimigo.mudarPosicaoPara(Integer.parseInt(partes[3]), Integer.parseInt(partes[4]));
+                    ativadosDaZona.get(zonaDoAtivador(xAtivador)).add(inimigo);
+                    continue;
+                }
+                int x = Integer.parseInt(partes[1]);
+                int y = partes.length>2 ? Integer.parseInt(partes[2]) : 0;
+                switch(partes[0]){
+                    case "jogador": jogador.mudarPosicaoPara(x, y); break;
+                    case "portal": portal.mudarPosicaoPara(x, y); break;
+                    case "prefetch": pontoDePrefetch = x; break;
+                    //como o ativador, vai do x até o fim do mapa para que o teleporte não pule o checkpoint
+                    case "checkpoint": zonas.adicionaLimiar(ZonasDeGatilho.CHECKPOINT, x, y); break;
+                    case "queda"://aqui o único número é a altura
+                        zonas.adicionaQueda(x);
+                        temQueda = true;
+                        break;
+                    default:
+                        Inimigo inimigo = criaInimigo(partes[0]);
+                        inimigo.mudarPosicaoPara(x, y);
+                        inimigos.add(inimigo);
+                }
+            }
+        }
+        catch(IOException e){
+            throw new IllegalArgumentException("Erro ao ler "+s, e);
+        }
+        catch(RuntimeException e){
+            throw new IllegalArgumentException("Erro em "+s+", linha "+numero+": \""+linha+"\"", e);
+        }
+    }
+    
+    /*ativador que cobre do x até o fim do mapa, para disparar mesmo se o jogador pular a coluna do x (com o
+    teleporte, por exemplo); é criado na primeira vez em que o x aparece, e os inimigos do mesmo x dividem a zona*/
+    private int zonaDoAtivador(int x){
+        Integer zona = zonaDoX.get(x);
+        if(zona==null){
+            zona = zonas.adicionaLimiar(ZonasDeGatilho.ATIVADOR, x, 0);
+            zonaDoX.put(x, zona);
+            ativadosDaZona.put(zona, new ArrayList<Inimigo>());
+        }
+        return zona;
+    }
+    
+    //passa para a lista os inimigos do ativador, que então deixa de disparar
+    public void liberaAtivados(int zona, ArrayList<Inimigo> destino){
+        ArrayList<Inimigo> daZona = ativadosDaZona.remove(zona);
+        if(daZona!=null) destino.addAll(daZona);
+        zonas.desativa(zona);
+    }
+    
+    private Inimigo criaInimigo(String tipo){
+        Inimigo inimigo;
+        switch(tipo){
+            case "lobocinza": inimigo = new LoboCinza(mb); break;
+            case "lobovermelho": inimigo = new LoboVermelho(mb); break;
+            default: throw new IllegalArgumentException("Tipo de objeto desconhecido: "+tipo);
+        }
+        inimigo.mudarParticulas(particulas);
+        return inimigo;
+    }
+    
+    public String qualNome(){return nome;}
+    public Particulas qualParticulas(){return particulas;}
+    public MapaDeBlocos qualMapa(){return mb;}
+    public Jogador qualJogador(){return jogador;}
+    public Portal qualPortal(){return portal;}
+    public ArrayList<Inimigo> quaisInimigos(){return inimigos;}
+    public ArrayList<CamadaDeBlocos> camadasDeFundo(){return camadasDeFundo;}
+    public ArrayList<CamadaDeBlocos> camadasDeFrente(){return camadasDeFrente;}
+    public int qualPontoDePrefetch(){return pontoDePrefetch;}
+    public ZonasDeGatilho qualZonas(){return zonas;}
+    /*grafo de navegação das plataformas, montado na primeira vez em que é pedido, com pulos de até 2 linhas e
+    3 colunas; null no mundo sem fim*/
+    public GrafoDeNavegacao qualGrafo(){
+        if(grafo==null && mundo==null) grafo = new GrafoDeNavegacao(mb, 2, 3);
+        return grafo;
+    }
+    public boolean temGrafo(){return grafo!=null;}
+    //o mundo sem fim da fase, ou null se a fase vem de um arquivo
+    public MundoInfinito qualMundo(){return mundo;}
+}
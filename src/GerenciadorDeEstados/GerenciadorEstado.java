@@ -6,8 +6,13 @@
 
 package GerenciadorDeEstados;
 
+import ElementosGraficos.Animacao;
+import ElementosGraficos.Rasterizador;
+import Principal.JogoPanel;
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  *
@@ -19,30 +24,108 @@ public class GerenciadorEstado {
     public static final int ESTADO_MENU=0;
     public static final int ESTADO_LEVEL_1=1;
     public static final int ESTADO_AJUDA=2;
+    public static final int ESTADO_PAUSA=3;
     
     private ArrayList<Estado> estados;
-    private int estadoAtual;
+    private volatile int estadoAtual;
+    
+    /*pilha de estados: o do topo (estadoAtual) é o único atualizado e que recebe as teclas. Os de baixo ficam
+    congelados, sem perder nada, até o topo ser desempilhado. A pilha muda pela thread do Swing (teclas) e é lida
+    pela do jogo, então só é mexida com a trava deste objeto*/
+    private int[] pilha = new int[8];
+    private int tamanhoPilha;
+    
+    /*último frame do estado coberto por uma sobreposição (como a pausa), que é desenhado no lugar dele enquanto
+    estiver congelado*/
+    private BufferedImage congelado;
+    /*estado a ser capturado, guardado pela thread do Swing ao empilhar, ou -1. A captura só acontece no próximo
+    atualiza, e só se ele ainda estiver logo abaixo do topo (a pausa pode ter saído antes disso)*/
+    private int capturar = -1;
     
     
     public GerenciadorEstado(){
         estadoAtual=ESTADO_MENU;
+        pilha[0] = estadoAtual;
+        tamanhoPilha = 1;
         
         estados = new ArrayList<>();
         
         estados.add(new EstadoMenu(this));
         estados.add(new Estado_Level1(this));
         estados.add(new EstadoAjuda(this));
+        estados.add(new EstadoPausa(this));
     }
     
+    //troca todos os estados da pilha por um só, que é inicializado do zero
     public void mudarEstado(int estado){
+        synchronized(this){
+            tamanhoPilha = 0;
+            capturar = -1;
+            empilha(estado);
+        }
+        estados.get(estado).inicializa();
+    }
+    
+    /*coloca um estado por cima do atual sem inicializar de novo nenhum dos dois; o de baixo volta exatamente de
+    onde parou com desempilhaEstado*/
+    public synchronized void empilhaEstado(int estado){
+        Estado coberto = estados.get(estadoAtual);
+        coberto.perdeFoco();
+        //o frame é capturado só de um estado que é desenhado por inteiro, e não de outra sobreposição
+        if(!coberto.ehSobreposicao()) capturar = estadoAtual;
+        empilha(estado);
+    }
+    
+    //volta para o estado de baixo, sem inicializá-lo
+    public synchronized void desempilhaEstado(){
+        if(tamanhoPilha<=1) return;
+        tamanhoPilha--;
+        estadoAtual = pilha[tamanhoPilha-1];
+        estados.get(estadoAtual).mudou.set(true);
+    }
+    
+    //se há algum estado abaixo do atual
+    public synchronized boolean podeDesempilhar(){return tamanhoPilha>1;}
+    
+    private void empilha(int estado){
+        if(tamanhoPilha==pilha.length) pilha = Arrays.copyOf(pilha, pilha.length*2);
+        pilha[tamanhoPilha++] = estado;
         estadoAtual = estado;
-        estados.get(estadoAtual).inicializa();
+        estados.get(estadoAtual).mudou.set(true);
+    }
+    
+    public int qualTaxaDeAtualizacao(){
+        return estados.get(estadoAtual).qualTaxaDeAtualizacao();
+    }
+    public boolean consomeMudanca(){
+        return estados.get(estadoAtual).consomeMudanca();
     }
     public void atualiza(){
-        estados.get(estadoAtual).atualiza();
+        int coberto = -1;
+        boolean avancaRelogio = true;
+        synchronized(this){
+            if(capturar>=0 && tamanhoPilha>=2 && pilha[tamanhoPilha-2]==capturar) coberto = capturar;
+            capturar = -1;
+            //o relógio para se algum estado da pilha o congela, como a ajuda aberta por cima da pausa
+            for(int i=0;i<tamanhoPilha;i++){
+                if(!estados.get(pilha[i]).avancaRelogio()) avancaRelogio = false;
+            }
+        }
+        //a captura é feita aqui, em uma thread só, porque o desenho pode estar dividido em faixas
+        if(coberto>=0){
+            capturaCoberto(estados.get(coberto));
+            //a sobreposição pode ter sido desenhada antes da captura, então desenha de novo
+            estados.get(estadoAtual).mudou.set(true);
+        }
+        Estado topo = estados.get(estadoAtual);
+        //um tick a mais para todas as animações, a não ser que o jogo esteja congelado (pausa)
+        if(avancaRelogio) Animacao.avancaTick();
+        topo.atualiza();
     }
     public void desenha(Graphics2D g){
-        estados.get(estadoAtual).desenha(g);
+        Estado topo = estados.get(estadoAtual);
+        if(topo.ehSobreposicao() && congelado!=null) g.drawImage(congelado, 0, 0, null);
+        topo.desenha(g);
     }
     public void keyPressed(int k){
         estados.get(estadoAtual).keyPressed(k);
@@ -50,4 +133,19 @@ public class GerenciadorEstado {
     public void keyReleased(int k){
         estados.get(estadoAtual).keyReleased(k);
     }
+    
+    //desenha o estado que acabou de ser coberto na imagem congelada
+    private void capturaCoberto(Estado coberto){
+        int largura = JogoPanel.qualLargura(), altura = JogoPanel.qualAltura();
+        if(congelado==null || congelado.getWidth()!=largura || congelado.getHeight()!=altura){
+            congelado = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        }
+        //o rasterizador da thread desenha na imagem principal, então fica desligado durante a captura
+        Rasterizador rasterizador = Rasterizador.atual();
+        Rasterizador.desativa();
+        Graphics2D gc = congelado.createGraphics();
+        coberto.desenha(gc);
+        gc.dispose();
+        if(rasterizador!=null) rasterizador.ativa();
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package GerenciadorDeEstados;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Callable;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class SequenciaDeFases {
+    /*Ordem das fases do jogo. Enquanto uma fase é jogada, a seguinte pode ser montada em uma thread separada
+    (prepara), e quando o portal termina ela é entregue pronta (entregaSePronta), então a troca de fase não carrega
+    nada na thread do jogo. Se o portal terminar antes da montagem, a fase atual continua rodando até a próxima
+    ficar pronta; o Future só é lido depois de terminado, então a thread do jogo nunca espera por ele*/
+    
+    private final String[] nomes;
+    //fase sendo preparada em segundo plano, e qual é o seu número
+    private Future<Fase> preparada;
+    private int indicePreparada = -1;
+    
+    //uma thread só para preparar fases, que não impede o jogo de fechar
+    private static final ExecutorService preparador = Executors.newSingleThreadExecutor(new ThreadFactory(){
+        public Thread newThread(Runnable r){
+            Thread t = new Thread(r, "Prepara-fase");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+    
+    //as fases são os nomes dos arquivos em /Mapas, sem extensão
+    public SequenciaDeFases(String... nomes){
+        this.nomes = nomes;
+    }
+    
+    public int quantidadeDeFases(){return nomes.length;}
+    public boolean existe(int indice){return indice>=0 && indice<nomes.length;}
+    
+    //começa a montar a fase em segundo plano, caso ela exista e ainda não esteja sendo montada
+    public void prepara(final int indice){
+        if(!existe(indice) || indicePreparada==indice) return;
+        indicePreparada = indice;
+        preparada = preparador.submit(new Callable<Fase>(){
+            public Fase call(){
+                return new Fase(nomes[indice]);
+            }
+        });
+    }
+    
+    //se a fase já foi montada e pode ser entregue sem esperar
+    public boolean estaPronta(int indice){
+        return indicePreparada==indice && preparada.isDone();
+    }
+    
+    /*monta a fase na thread de quem chama, esperando ela ficar pronta. Só é usada na entrada do estado, quando
+    ainda não há uma fase rodando para esconder a espera. Retorna null caso não exista*/
+    public Fase monta(int indice){
+        if(!existe(indice)) return null;
+        return new Fase(nomes[indice]);
+    }
+    
+    /*entrega a fase preparada sem nunca esperar: enquanto ela ainda está sendo montada retorna null, e quem chama
+    continua com a fase atual e tenta de novo no tick seguinte (se ela não estava sendo preparada, a preparação
+    começa aqui). Caso a preparação tenha falhado, o erro é mostrado e a fase é montada de novo aqui mesmo, na
+    thread do jogo; isso só acontece com um arquivo de fase com problema, que então lança a mesma exceção na
+    thread do jogo em vez de deixar o erro preso no Future*/
+    public Fase entregaSePronta(int indice){
+        if(!existe(indice)) return null;
+        prepara(indice);
+        if(!preparada.isDone()) return null;
+        Future<Fase> f = preparada;
+        preparada = null;
+        indicePreparada = -1;
+        try{
+            return f.get();
+        }
+        catch(InterruptedException | ExecutionException e){
+            e.printStackTrace();
+        }
+        return new Fase(nomes[indice]);
+    }
+}
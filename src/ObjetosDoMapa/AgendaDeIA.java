@@ -0,0 +1,80 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ObjetosDoMapa;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class AgendaDeIA {
+    /*Escolhe em quais ticks cada inimigo roda o decide. O movimento e a colisão (atualizaFisica) continuam em todo
+    tick; só as decisões ficam mais espaçadas quanto mais longe o inimigo está do jogador:
+        até PERTO pixels      - todo tick
+        até LONGE pixels      - a cada INTERVALO_MEIO ticks
+        mais longe que isso   - a cada INTERVALO_LONGE ticks
+    A distância é a maior entre a horizontal e a vertical, e PERTO é a largura da tela, então quem aparece na tela
+    decide sempre. Cada inimigo recebe um turno diferente dentro do intervalo, distribuídos em sequência, para que
+    os longe não decidam todos no mesmo tick.
+
+    O lobo vira quando o canto de baixo da frente sai do chão, mas só cai quando o canto de trás também sai, depois
+    de andar a largura da caixa de colisão (20 pixels) além desse ponto. O mais rápido, o LoboVermelho, anda 1.3
+    pixel por tick, então decidindo INTERVALO_LONGE ticks depois ele anda no máximo 10.4 pixels e ainda não cai;
+    só para um pouco mais perto da beira. Os lobos do BandoDeInimigos não passam por aqui e decidem todo tick.
+
+    O tempo gasto nas decisões de cada tick é medido (veja comecaTick e terminaTick) para o relatório de IA*/
+
+    public static final int INTERVALO_MEIO = 4, INTERVALO_LONGE = 8;
+
+    private final double perto, longe;
+    //próximo turno a ser entregue a um inimigo novo
+    private int proximoTurno;
+    //posição do jogador e tick deste tick
+    private double xJogador, yJogador;
+    private long tick;
+
+    //medição do tick atual e do último tick terminado
+    private long inicio;
+    private int decisoes, decisoesNoTick;
+    private long nanosNoTick, maiorNanos;
+
+    public AgendaDeIA(double perto, double longe){
+        this.perto = perto;
+        this.longe = longe;
+    }
+
+    //guarda a posição do jogador e começa a medir as decisões deste tick
+    public void comecaTick(long tick, double xJogador, double yJogador){
+        this.tick = tick;
+        this.xJogador = xJogador;
+        this.yJogador = yJogador;
+        decisoes = 0;
+        inicio = System.nanoTime();
+    }
+
+    //roda o decide do inimigo se for o tick dele
+    public void decide(Inimigo in){
+        if(in.turnoDaIA<0) in.turnoDaIA = proximoTurno++ & (INTERVALO_LONGE-1);
+        double distancia = Math.max(Math.abs(in.x-xJogador), Math.abs(in.y-yJogador));
+        int intervalo = distancia<=perto ? 1 : distancia<=longe ? INTERVALO_MEIO : INTERVALO_LONGE;
+        if(((tick+in.turnoDaIA) & (intervalo-1))!=0) return;
+        in.decide();
+        decisoes++;
+    }
+
+    public void terminaTick(){
+        nanosNoTick = System.nanoTime()-inicio;
+        if(nanosNoTick>maiorNanos) maiorNanos = nanosNoTick;
+        decisoesNoTick = decisoes;
+    }
+
+    //decisões e tempo delas no último tick
+    public int quantidadeDeDecisoes(){return decisoesNoTick;}
+    public long qualTempoDoTick(){return nanosNoTick;}
+    //maior tempo de um tick desde o último zeraMaior
+    public long qualMaiorTempo(){return maiorNanos;}
+    public void zeraMaior(){maiorNanos = 0;}
+}
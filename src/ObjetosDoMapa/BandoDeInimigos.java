@@ -0,0 +1,388 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ObjetosDoMapa;
+
+import ElementosGraficos.Animacao;
+import ElementosGraficos.CampoDeFluxo;
+import ElementosGraficos.ClipeAnimacao;
+import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Rasterizador;
+import Principal.JogoPanel;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BandoDeInimigos {
+    /*Guarda muitos inimigos que patrulham (como os lobos) em vetores de tipos primitivos, um vetor por atributo,
+    em vez de um objeto por inimigo. O comportamento é o mesmo do LoboCinza/LoboVermelho, mas a atualização é
+    um laço simples sobre os vetores e a remoção troca o inimigo removido pelo último, sem deslocar os outros.
+    Assim dá para simular dezenas de milhares de inimigos por tick*/
+
+    //bits do vetor de estados
+    public static final int ESQUERDA = 1;
+    public static final int DIREITA = 2;
+    public static final int OLHANDO_DIREITA = 4;
+    public static final int CAINDO = 8;
+    public static final int ATINGIDO = 16;
+    public static final int MORTO = 32;
+
+    //bits dos cantos da caixa de colisão que estão em blocos bloqueados
+    private static final int SUPERIOR_ESQUERDO = 1;
+    private static final int SUPERIOR_DIREITO = 2;
+    private static final int INFERIOR_ESQUERDO = 4;
+    private static final int INFERIOR_DIREITO = 8;
+
+    private MapaDeBlocos mb;
+    private int tamanhoBloco;
+
+    //quantidade de inimigos vivos no bando
+    private int quantidade;
+
+    //posição, movimento e dimensões de cada inimigo
+    private double[] x, y, dx, dy;
+    //posição no começo do último tick, para varrer o movimento do tick como o ObjetoMapa.avancaPara
+    private double[] xAnterior, yAnterior;
+    private short[] clargura, caltura;
+    //vida, dano e estados (bits acima)
+    private int[] vida, dano, estado;
+    //momento em que foi atingido, em milissegundos de jogo, e tick em que a animação começou
+    private long[] tempoAtingido, inicioAnimacao;
+    //índice do tipo do inimigo na tabela de tipos
+    private byte[] tipo;
+
+    //tabela de tipos: velocidades, animações e duração do atingido, iguais para todos do mesmo tipo
+    private int quantTipos;
+    private double[] velMovimento = new double[4], velQueda = new double[4], velMaxQueda = new double[4];
+    private int[] duracaoAtingido = new int[4], larguraTipo = new int[4], alturaTipo = new int[4];
+    private ClipeAnimacao[] parado = new ClipeAnimacao[4], andando = new ClipeAnimacao[4];
+
+    //posições dos inimigos que morreram no último tick, para criar as explosões
+    private double[] mortosX = new double[16], mortosY = new double[16];
+    private int quantMortos;
+
+    //tempo de jogo em milissegundos (Animacao.milissegundos), lido uma vez por tick
+    private long agora;
+    //campo de fluxo seguido no modo horda, ou null para só patrulhar
+    private CampoDeFluxo campo;
+
+    public BandoDeInimigos(MapaDeBlocos mb, int capacidade){
+        this.mb = mb;
+        tamanhoBloco = mb.qualTamanhoDoBloco();
+        if(capacidade<1) capacidade = 1;
+        x = new double[capacidade];
+        y = new double[capacidade];
+        dx = new double[capacidade];
+        dy = new double[capacidade];
+        xAnterior = new double[capacidade];
+        yAnterior = new double[capacidade];
+        clargura = new short[capacidade];
+        caltura = new short[capacidade];
+        vida = new int[capacidade];
+        dano = new int[capacidade];
+        estado = new int[capacidade];
+        tempoAtingido = new long[capacidade];
+        inicioAnimacao = new long[capacidade];
+        tipo = new byte[capacidade];
+        agora = Animacao.milissegundos();
+    }
+
+    //dobra a capacidade dos vetores quando estão cheios
+    private void aumentaCapacidade(){
+        int c = x.length*2;
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        dx = Arrays.copyOf(dx, c);
+        dy = Arrays.copyOf(dy, c);
+        xAnterior = Arrays.copyOf(xAnterior, c);
+        yAnterior = Arrays.copyOf(yAnterior, c);
+        clargura = Arrays.copyOf(clargura, c);
+        caltura = Arrays.copyOf(caltura, c);
+        vida = Arrays.copyOf(vida, c);
+        dano = Arrays.copyOf(dano, c);
+        estado = Arrays.copyOf(estado, c);
+        tempoAtingido = Arrays.copyOf(tempoAtingido, c);
+        inicioAnimacao = Arrays.copyOf(inicioAnimacao, c);
+        tipo = Arrays.copyOf(tipo, c);
+    }
+
+    //retorna o índice do tipo do inimigo, registrando o tipo na primeira vez (tipos são identificados pelos clipes)
+    private int tipoDe(Inimigo in){
+        for(int t=0;t<quantTipos;t++){
+            if(andando[t]==in.clipeAndando) return t;
+        }
+        if(quantTipos==velMovimento.length){
+            int c = quantTipos*2;
+            velMovimento = Arrays.copyOf(velMovimento, c);
+            velQueda = Arrays.copyOf(velQueda, c);
+            velMaxQueda = Arrays.copyOf(velMaxQueda, c);
+            duracaoAtingido = Arrays.copyOf(duracaoAtingido, c);
+            larguraTipo = Arrays.copyOf(larguraTipo, c);
+            alturaTipo = Arrays.copyOf(alturaTipo, c);
+            parado = Arrays.copyOf(parado, c);
+            andando = Arrays.copyOf(andando, c);
+        }
+        int t = quantTipos++;
+        velMovimento[t] = in.velMovimento;
+        velQueda[t] = in.velQueda;
+        velMaxQueda[t] = in.velMaxQueda;
+        duracaoAtingido[t] = in.duracaoAtingido;
+        larguraTipo[t] = in.largura;
+        alturaTipo[t] = in.altura;
+        parado[t] = in.clipeParado;
+        andando[t] = in.clipeAndando;
+        return t;
+    }
+
+    //adiciona um inimigo ao bando, copiando seu estado atual. O objeto em si não é usado depois
+    public void adiciona(Inimigo in){
+        if(quantidade==x.length) aumentaCapacidade();
+        int i = quantidade++;
+        tipo[i] = (byte)tipoDe(in);
+        x[i] = in.x;
+        y[i] = in.y;
+        dx[i] = in.dx;
+        dy[i] = in.dy;
+        xAnterior[i] = in.xanterior;
+        yAnterior[i] = in.yanterior;
+        clargura[i] = (short)in.clargura;
+        caltura[i] = (short)in.caltura;
+        vida[i] = in.vida;
+        dano[i] = in.dano;
+        int e = 0;
+        if(in.esquerda) e |= ESQUERDA;
+        if(in.direita) e |= DIREITA;
+        if(in.olhandoDireita) e |= OLHANDO_DIREITA;
+        if(in.caindo) e |= CAINDO;
+        estado[i] = e;
+        inicioAnimacao[i] = Animacao.tickAtual();
+    }
+
+    //remove o inimigo i trocando-o pelo último do bando
+    public void remove(int i){
+        int u = --quantidade;
+        x[i] = x[u];
+        y[i] = y[u];
+        dx[i] = dx[u];
+        dy[i] = dy[u];
+        xAnterior[i] = xAnterior[u];
+        yAnterior[i] = yAnterior[u];
+        clargura[i] = clargura[u];
+        caltura[i] = caltura[u];
+        vida[i] = vida[u];
+        dano[i] = dano[u];
+        estado[i] = estado[u];
+        tempoAtingido[i] = tempoAtingido[u];
+        inicioAnimacao[i] = inicioAnimacao[u];
+        tipo[i] = tipo[u];
+    }
+
+    public void mudarCampoDeFluxo(CampoDeFluxo c){campo = c;}
+    public int quantidade(){return quantidade;}
+    public int posX(int i){return (int)x[i];}
+    public int posY(int i){return (int)y[i];}
+    public int CLargura(int i){return clargura[i];}
+    public int CAltura(int i){return caltura[i];}
+    public int Dano(int i){return dano[i];}
+    public boolean estaMorto(int i){return (estado[i]&MORTO)!=0;}
+
+    /*tempo de impacto (de 0 a 1) entre o último movimento do objeto o e o do inimigo i, como o
+    ObjetoMapa.tempoDeImpacto entre dois objetos; retorna ColisaoVarrida.SEM_IMPACTO caso não se toquem*/
+    public double tempoDeImpacto(ObjetoMapa o, int i){
+        return o.tempoDeImpacto(xAnterior[i], yAnterior[i], x[i]-xAnterior[i], y[i]-yAnterior[i], clargura[i], caltura[i]);
+    }
+
+    //mesmos efeitos do Inimigo.hitFlecha
+    public void hitFlecha(int i){
+        vida[i] -= 2;
+        if(vida[i]<0) vida[i] = 0;
+        estado[i] |= ATINGIDO;
+        tempoAtingido[i] = Animacao.milissegundos();
+    }
+
+    //mesmos efeitos do Inimigo.hitEspada, seguido do empurrão para o lado em que o jogador está olhando
+    public void hitEspada(int i, boolean paraDireita){
+        if((estado[i]&ATINGIDO)==0){
+            vida[i] -= 3;
+            if(vida[i]<=0) vida[i] = 0;
+            dy[i] = -1.5;
+            estado[i] |= ATINGIDO;
+            tempoAtingido[i] = Animacao.milissegundos();
+        }
+        if(paraDireita) estado[i] = (estado[i]|DIREITA) & ~ESQUERDA;
+        else estado[i] = (estado[i]|ESQUERDA) & ~DIREITA;
+    }
+
+    //retorna os bits dos cantos bloqueados da caixa de colisão centrada em (px, py), como o calculaLimites
+    private int cantos(double px, double py, int cl, int ca){
+        int blocoEsquerda = (int)(px - cl / 2) / tamanhoBloco;
+        int blocoDireita = (int)(px + cl / 2 - 1) / tamanhoBloco;
+        int blocoCima = (int)(py - ca / 2) / tamanhoBloco;
+        int blocoBaixo = (int)(py + ca / 2 - 1) / tamanhoBloco;
+        if(blocoEsquerda<0 || blocoDireita>=mb.qualNumDeCols() || blocoCima<0 || blocoBaixo>=mb.qualNumDeLinhas()) return 0;
+        int c = 0;
+        if(mb.estaBloqueado(blocoCima, blocoEsquerda)) c |= SUPERIOR_ESQUERDO;
+        if(mb.estaBloqueado(blocoCima, blocoDireita)) c |= SUPERIOR_DIREITO;
+        if(mb.estaBloqueado(blocoBaixo, blocoEsquerda)) c |= INFERIOR_ESQUERDO;
+        if(mb.estaBloqueado(blocoBaixo, blocoDireita)) c |= INFERIOR_DIREITO;
+        return c;
+    }
+
+    //atualiza todos os inimigos e remove os que morreram, guardando onde morreram
+    public void atualiza(){
+        agora = Animacao.milissegundos();
+        quantMortos = 0;
+        for(int i=0;i<quantidade;i++){
+            atualiza(i);
+            if((estado[i]&MORTO)!=0){
+                if(quantMortos==mortosX.length){
+                    mortosX = Arrays.copyOf(mortosX, quantMortos*2);
+                    mortosY = Arrays.copyOf(mortosY, quantMortos*2);
+                }
+                mortosX[quantMortos] = x[i];
+                mortosY[quantMortos] = y[i];
+                quantMortos++;
+                remove(i);
+                i--;
+            }
+        }
+    }
+
+    //o mesmo que o atualiza do LoboCinza/LoboVermelho, para o inimigo i
+    private void atualiza(int i){
+        long tick = Animacao.tickAtual();
+        int t = tipo[i];
+        int e = estado[i];
+        int cl = clargura[i], ca = caltura[i];
+        double px = x[i], py = y[i];
+        double vx, vy = dy[i];
+
+        //próxima posição
+        if((e&ESQUERDA)!=0) vx = -velMovimento[t];
+        else if((e&DIREITA)!=0) vx = velMovimento[t];
+        else vx = 0;
+        if((e&CAINDO)!=0){
+            vy += velQueda[t];
+            if(vy>velMaxQueda[t]) vy = velMaxQueda[t];
+        }
+
+        //colisão com o mapa, igual ao ObjetoMapa.checaColisaoComMapa
+        int coluna = (int)px/tamanhoBloco;
+        int linha = (int)py/tamanhoBloco;
+        double xdest = px+vx, ydest = py+vy;
+        double xtemp = px, ytemp = py;
+
+        int c = cantos(px, ydest, cl, ca);
+        if(vy<0){
+            if((c&(SUPERIOR_ESQUERDO|SUPERIOR_DIREITO))!=0){
+                vy = 0;
+                ytemp = linha*tamanhoBloco + ca/2;
+            }
+            else ytemp += vy;
+        }
+        if(vy>0){
+            if((c&(INFERIOR_ESQUERDO|INFERIOR_DIREITO))!=0){
+                vy = 0;
+                e &= ~CAINDO;
+                ytemp = (linha+1)*tamanhoBloco - ca/2;
+            }
+            else ytemp += vy;
+        }
+        c = cantos(xdest, py, cl, ca);
+        if(vx<0){
+            if((c&(SUPERIOR_ESQUERDO|INFERIOR_ESQUERDO))!=0){
+                vx = 0;
+                xtemp = coluna*tamanhoBloco + cl/2;
+            }
+            else xtemp += vx;
+        }
+        if(vx>0){
+            if((c&(SUPERIOR_DIREITO|INFERIOR_DIREITO))!=0){
+                vx = 0;
+                xtemp = (coluna+1)*tamanhoBloco - cl/2;
+            }
+            else xtemp += vx;
+        }
+        if((e&CAINDO)==0){
+            c = cantos(px, ydest+1, cl, ca);
+            if((c&(INFERIOR_ESQUERDO|INFERIOR_DIREITO))==0) e |= CAINDO;
+        }
+        px = xtemp;
+        py = ytemp;
+
+        //no modo horda segue o campo de fluxo, como o Inimigo.seguePeloCampo
+        if(campo!=null && campo.temCaminho(px, py, ca/2)){
+            int d = campo.direcao(px, py, ca/2);
+            if(d<0) e = (e|ESQUERDA) & ~(DIREITA|OLHANDO_DIREITA);
+            else if(d>0) e = (e|DIREITA|OLHANDO_DIREITA) & ~ESQUERDA;
+        }
+        else{
+            //vira ao chegar na beira de uma plataforma ou em uma parede
+            c = cantos(px, ydest+1, cl, ca);
+            boolean olhandoDireita = (e&OLHANDO_DIREITA)!=0;
+            if((c&(INFERIOR_ESQUERDO|INFERIOR_DIREITO))==0){}
+            else if((c&INFERIOR_DIREITO)==0 && olhandoDireita) vx = 0;
+            else if((c&INFERIOR_ESQUERDO)==0 && !olhandoDireita) vx = 0;
+            if(vx==0){
+                e ^= ESQUERDA;
+                if((e&DIREITA)!=0) e &= ~(DIREITA|OLHANDO_DIREITA);
+                else e |= DIREITA|OLHANDO_DIREITA;
+            }
+        }
+
+        //enquanto está no ar, a animação fica parada no primeiro quadro
+        if(vy!=0) inicioAnimacao[i] = tick;
+
+        if(vida[i]==0) e |= MORTO;
+
+        //fim do tempo de atingido
+        if((e&ATINGIDO)!=0 && agora-tempoAtingido[i]>duracaoAtingido[t]){
+            e &= ~ATINGIDO;
+            boolean direita = (e&DIREITA)!=0;
+            if(direita!=((e&OLHANDO_DIREITA)!=0)) e ^= ESQUERDA|DIREITA;
+        }
+
+        xAnterior[i] = x[i];
+        yAnterior[i] = y[i];
+        x[i] = px;
+        y[i] = py;
+        dx[i] = vx;
+        dy[i] = vy;
+        estado[i] = e;
+    }
+
+    public int quantidadeDeMortos(){return quantMortos;}
+    public int mortoX(int k){return (int)mortosX[k];}
+    public int mortoY(int k){return (int)mortosY[k];}
+
+    //desenha os inimigos que estão dentro da tela
+    public void desenha(Graphics2D g){
+        int xmapa = mb.posX(), ymapa = mb.posY();
+        long tick = Animacao.tickAtual();
+        Rasterizador r = Rasterizador.atual();
+        int larguraTela = JogoPanel.qualLargura(), alturaTela = JogoPanel.qualAltura();
+        for(int i=0;i<quantidade;i++){
+            int t = tipo[i];
+            int l = larguraTipo[t], a = alturaTipo[t];
+            int sx = (int)(x[i] + xmapa - l/2);
+            int sy = (int)(y[i] + ymapa - a/2);
+            if(sx+l<0 || sx>=larguraTela || sy+a<0 || sy>=alturaTela) continue;
+
+            //pisca enquanto está atingido
+            if((estado[i]&ATINGIDO)!=0 && (agora-tempoAtingido[i])/80%2==0) continue;
+
+            //o frame sai direto do tick global, sem nenhum estado de animação por inimigo além do tick inicial
+            ClipeAnimacao clipe = dy[i]!=0 ? parado[t] : andando[t];
+            int frame = clipe.frame(tick-inicioAnimacao[i]);
+            if(r!=null) r.desenha(clipe.raster(frame), sx, sy, (estado[i]&OLHANDO_DIREITA)==0);
+            else if((estado[i]&OLHANDO_DIREITA)!=0) g.drawImage(clipe.imagem(frame), sx, sy, null);
+            else g.drawImage(clipe.imagemEspelhada(frame), sx, sy, null);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package ObjetosDoMapa;
+
+/**
+ *
+ * @author Gabriel
+ */
+public final class ColisaoVarrida {
+    /*Colisão contínua entre caixas alinhadas aos eixos (swept AABB). Em vez de testar só a posição final,
+    calcula em que fração do movimento (de 0 a 1) a caixa que se move encosta na outra, assim objetos rápidos
+    não atravessam paredes finas nem inimigos pequenos*/
+
+    //valor retornado quando não há impacto durante o movimento
+    public static final double SEM_IMPACTO = 2;
+
+    private ColisaoVarrida(){}
+
+    /*Retorna o tempo de impacto da caixa A (posição ax, ay, dimensões aw, ah) se deslocando vx, vy contra a
+    caixa B parada. As caixas são semiabertas, como o Rectangle, então encostar não é colidir. Caso já
+    estejam sobrepostas no início, retorna 0*/
+    public static double tempoDeImpacto(double ax, double ay, double aw, double ah, double vx, double vy,
+            double bx, double by, double bw, double bh){
+        double entradaX, saidaX, entradaY, saidaY;
+
+        if(vx>0){
+            entradaX = (bx-(ax+aw))/vx;
+            saidaX = (bx+bw-ax)/vx;
+        }
+        else if(vx<0){
+            entradaX = (bx+bw-ax)/vx;
+            saidaX = (bx-(ax+aw))/vx;
+        }
+        else{
+            //parado no eixo x, então só colide se já estiver sobreposto nesse eixo
+            if(ax+aw<=bx || bx+bw<=ax) return SEM_IMPACTO;
+            entradaX = Double.NEGATIVE_INFINITY;
+            saidaX = Double.POSITIVE_INFINITY;
+        }
+
+        if(vy>0){
+            entradaY = (by-(ay+ah))/vy;
+            saidaY = (by+bh-ay)/vy;
+        }
+        else if(vy<0){
+            entradaY = (by+bh-ay)/vy;
+            saidaY = (by-(ay+ah))/vy;
+        }
+        else{
+            if(ay+ah<=by || by+bh<=ay) return SEM_IMPACTO;
+            entradaY = Double.NEGATIVE_INFINITY;
+            saidaY = Double.POSITIVE_INFINITY;
+        }
+
+        double entrada = Math.max(entradaX, entradaY);
+        double saida = Math.min(saidaX, saidaY);
+
+        //se entra depois de sair, ou se o contato fica fora do movimento, então não houve impacto
+        if(entrada>=saida || entrada>1 || saida<=0) return SEM_IMPACTO;
+        if(entrada<0) return 0;
+        return entrada;
+    }
+
+    //retorna se o impacto calculado acima aconteceu no eixo x (caso contrário, foi no eixo y)
+    public static boolean impactoNoEixoX(double ax, double aw, double vx, double bx, double bw,
+            double ay, double ah, double vy, double by, double bh){
+        double entradaX, entradaY;
+        if(vx>0) entradaX = (bx-(ax+aw))/vx;
+        else if(vx<0) entradaX = (bx+bw-ax)/vx;
+        else entradaX = Double.NEGATIVE_INFINITY;
+        if(vy>0) entradaY = (by-(ay+ah))/vy;
+        else if(vy<0) entradaY = (by+bh-ay)/vy;
+        else entradaY = Double.NEGATIVE_INFINITY;
+        return entradaX>entradaY;
+    }
+}
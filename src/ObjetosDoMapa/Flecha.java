@@ -7,10 +7,11 @@
 package ObjetosDoMapa;
 
 import ElementosGraficos.Animacao;
+import ElementosGraficos.ClipeAnimacao;
 import ElementosGraficos.Bloco;
 import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Particulas;
 import Principal.JogoPanel;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 
@@ -23,8 +24,9 @@ public class Flecha extends ObjetoMapa {
     
     private boolean hit, remove;
     
-    private BufferedImage[] flechasprites;
-    private BufferedImage[] hitsprites;
+    //os clipes são criados uma vez só e compartilhados por todas as flechas
+    private static ClipeAnimacao clipeFlecha;
+    private static ClipeAnimacao clipeHit;
     
     public Flecha(MapaDeBlocos mb, boolean direita) {
         super(mb);
@@ -42,18 +44,22 @@ public class Flecha extends ObjetoMapa {
         clargura = caltura = 7;
         
         try{
-            BufferedImage sprites = ImageIO.read(getClass().getResourceAsStream("/Imagens/flechasprite.gif"));
-            
-            flechasprites = new BufferedImage[1];
-            flechasprites[0] = sprites.getSubimage(0, 0, largura, altura);
-            
-            hitsprites = new BufferedImage[3];
-            for(int i=0;i<hitsprites.length;i++){
-                hitsprites[i] = sprites.getSubimage(largura*i, altura, largura, altura);
+            if(clipeFlecha==null){
+                BufferedImage sprites = ImageIO.read(getClass().getResourceAsStream("/Imagens/flechasprite.gif"));
+
+                BufferedImage[] flechasprites = new BufferedImage[1];
+                flechasprites[0] = sprites.getSubimage(0, 0, largura, altura);
+
+                BufferedImage[] hitsprites = new BufferedImage[3];
+                for(int i=0;i<hitsprites.length;i++){
+                    hitsprites[i] = sprites.getSubimage(largura*i, altura, largura, altura);
+                }
+                
+                clipeFlecha = new ClipeAnimacao(flechasprites, -1);
+                clipeHit = new ClipeAnimacao(hitsprites, ClipeAnimacao.ticksDe(60));
             }
             animacao = new Animacao();
-            animacao.mudarFramesPara(flechasprites);
-            animacao.mudarIntervaloPara(-1);
+            animacao.tocar(clipeFlecha);
         }
         catch(Exception e){
             e.printStackTrace();
@@ -93,29 +99,32 @@ public class Flecha extends ObjetoMapa {
     public void hitou(){
         if(hit) return;
         hit = true;
-        animacao.mudarFramesPara(hitsprites);
-        animacao.mudarIntervaloPara(60);
+        emite(Particulas.FAISCA, x, y, 6, 0, -1, 1.5);
+        animacao.tocar(clipeHit);
         dx = dy = 0;
     }
     
     public boolean hit(){ return hit;}
     
     public void atualiza(){
-        checaColisaoComMapa();
-        mudarPosicaoPara(xtemp, ytemp);
+        //a flecha é rápida, então usa a colisão contínua para não atravessar blocos finos
+        checaColisaoComMapaVarrida();
+        avancaPara(xtemp, ytemp);
+        
+        //caso saia do mapa, deve ser removida
+        if(x<0 || x>=mb.qualLarguraDoMapa() || y<0 || y>=mb.qualAlturaDoMapa()){
+            remove = true;
+        }
         
         if((dx==0 || dy==0) && !hit){
+            //o bloco atingido se quebra, caso a fase o marque como quebrável
+            if(linhaDoImpacto>=0) mb.quebraBloco(linhaDoImpacto, colunaDoImpacto);
             hitou();
         }
-        animacao.atualiza();
-        
+        //rastro enquanto voa
+        if(!hit && !remove) emite(Particulas.RASTRO, x-dx, y, 1, 0, 0, 0.1);
         if(hit && animacao.checaFoiExecutado()){
             remove=true;
         }
     }
-    
-    public void desenha(Graphics2D g){
-        this.atualizarPosicaoMapa();
-        super.desenha(g);
-    }
 }
@@ -6,7 +6,11 @@
 
 package ObjetosDoMapa;
 
+import ElementosGraficos.Animacao;
+import ElementosGraficos.CampoDeFluxo;
+import ElementosGraficos.ClipeAnimacao;
 import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Particulas;
 import java.awt.image.BufferedImage;
 
 /**
@@ -21,15 +25,44 @@ public class Inimigo extends ObjetoMapa {
     protected boolean morto;
     
     protected boolean atingido;
+    //momento em que foi atingido, em milissegundos de jogo (veja Animacao.milissegundos)
     protected long tempoAtingido;
     protected int duracaoAtingido=400;
+    //se o inimigo fica escondido neste frame enquanto pisca depois de atingido
+    protected boolean piscando;
+    
+    //tick, entre os intervalos do AgendaDeIA, em que este inimigo decide; -1 até o agenda escolher
+    int turnoDaIA = -1;
     
     protected BufferedImage[] spriteMorre;
+    //clipes das animações, compartilhados entre os inimigos do mesmo tipo
+    protected ClipeAnimacao clipeParado, clipeAndando;
+    
+    //campo de fluxo seguido no modo horda, ou null para só patrulhar
+    protected CampoDeFluxo campo;
     
     public Inimigo(MapaDeBlocos mb) {
         super(mb);
     }
     
+    public void mudarCampoDeFluxo(CampoDeFluxo c){campo = c;}
+    
+    /*no modo horda, vira para o lado que o campo de fluxo indica e, enquanto cai da beira, só continua; retorna
+    false quando não há campo, caminho até o jogador, ou quando já chegou nele, e aí o inimigo patrulha*/
+    protected boolean seguePeloCampo(){
+        if(campo==null || !campo.temCaminho(x, y, caltura/2)) return false;
+        int d = campo.direcao(x, y, caltura/2);
+        if(d<0){
+            esquerda = true;
+            direita = olhandoDireita = false;
+        }
+        else if(d>0){
+            esquerda = false;
+            direita = olhandoDireita = true;
+        }
+        return true;
+    }
+    
     public boolean estaMorto() {
         return morto;
     }
@@ -42,19 +75,29 @@ public class Inimigo extends ObjetoMapa {
     public void hitFlecha(){
         vida-=2;
         if(vida<0) vida = 0;
+        emite(Particulas.POEIRA, x, y, 5, 0, -1, 1);
         atingido = true;
-        tempoAtingido = System.nanoTime();
+        tempoAtingido = Animacao.milissegundos();
     }
     
     public void hitEspada(boolean b){
         if(atingido) return;
         vida -=3;
         if(vida<=0) vida = 0;
+        emite(Particulas.FAISCA, x, y, 8, 0, -1.5, 1.5);
         dy = -1.5;
         atingido = true;
-        tempoAtingido = System.nanoTime();
+        tempoAtingido = Animacao.milissegundos();
     }
     
-    public void atualiza() {}
+    //movimento, colisão com o mapa, animação e estado, que rodam em todo tick
+    public void atualizaFisica() {}
+    //decisões do inimigo, que o AgendaDeIA roda menos vezes quando ele está longe do jogador
+    public void decide() {}
+    
+    public void atualiza() {
+        atualizaFisica();
+        decide();
+    }
     
 }
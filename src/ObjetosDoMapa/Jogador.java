@@ -11,8 +11,10 @@ package ObjetosDoMapa;
  * @author Gabriel
  */
 import ElementosGraficos.Animacao;
-import ElementosGraficos.Bloco;
+import ElementosGraficos.ClipeAnimacao;
+import ElementosGraficos.FonteBitmap;
 import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Particulas;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
@@ -27,6 +29,10 @@ public class Jogador extends ObjetoMapa {
     private int vida, maxVida; 
     private boolean morto, imune;
     private long temporizadorImune;
+    //se o jogador fica escondido neste frame enquanto pisca imune, decidido no atualiza
+    private boolean piscando;
+    //onde o jogador volta depois de cair em um buraco
+    private int retornoX = 100, retornoY = 170;
     
     //atributos do pulo duplo
     private boolean podeUsarPuloDuplo;
@@ -37,11 +43,18 @@ public class Jogador extends ObjetoMapa {
     private boolean teleportando;
     private double atacaAlcance;
     private ArrayList<Flecha> flechas;
-    private ArrayList<Explosao> explosoesParaCriar;
     
-    //Atributos de animação
-    private ArrayList<BufferedImage[]> sprites;
-    private int[] numFrames =  {1, 4, 2, 2, 6, 6, 9};
+    //Fonte do texto de vidas, com as letras já desenhadas em imagem
+    private static final FonteBitmap FONTE_VIDAS = new FonteBitmap(new Font("Arial",Font.PLAIN,14), Color.black);
+    
+    /*Tabela de animações: para cada ação, o número de imagens, o intervalo entre elas em milissegundos e a
+    largura do desenho. Os clipes são criados uma vez só a partir dela e compartilhados*/
+    private static final int[] NUM_FRAMES = {1, 4, 2, 2, 6, 6, 9};
+    private static final int[] INTERVALOS = {400, 140, 100, 100, 65, 80, 60};
+    private static final int[] LARGURAS = {30, 30, 30, 30, 60, 60, 30};
+    private static ClipeAnimacao[] clipes;
+    //os jogadores das fases seguintes são criados pela thread que monta a fase, então a carga é travada
+    private static final Object travaDosClipes = new Object();
     
     
     //ações de animação
@@ -70,7 +83,6 @@ public class Jogador extends ObjetoMapa {
         
         vida = maxVida = 5;
         flechas = new ArrayList<>();
-        explosoesParaCriar = new ArrayList<>();
         atirou = false;
         
         //inicializa pulo duplo
@@ -80,32 +92,39 @@ public class Jogador extends ObjetoMapa {
         atacaAlcance = 35;
         
         try{
-            
-            BufferedImage personagemsprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/personagemsprite.gif"));
-                    
-            sprites = new ArrayList<>();
-            for(int i=0;i<numFrames.length;i++){
-                BufferedImage[] bi = new BufferedImage[numFrames[i]];
-                for(int j=0;j<numFrames[i];j++){
-                    if(i!=ATACANDO && i!=ATIRANDO){
-                        bi[j] = personagemsprite.getSubimage(largura*j, altura*i, largura, altura);
-                    }
-                    else{
-                        bi[j] = personagemsprite.getSubimage(largura*j*2, altura*i, largura*2, altura);
+            synchronized(travaDosClipes){
+                if(clipes==null){
+                    BufferedImage personagemsprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/personagemsprite.gif"));
+
+                    clipes = new ClipeAnimacao[NUM_FRAMES.length];
+                    for(int i=0;i<NUM_FRAMES.length;i++){
+                        BufferedImage[] bi = new BufferedImage[NUM_FRAMES[i]];
+                        for(int j=0;j<NUM_FRAMES[i];j++){
+                            bi[j] = personagemsprite.getSubimage(LARGURAS[i]*j, altura*i, LARGURAS[i], altura);
+                        }
+                        clipes[i] = new ClipeAnimacao(bi, ClipeAnimacao.ticksDe(INTERVALOS[i]));
                     }
                 }
-                sprites.add(bi);
             }
             animacao = new Animacao();
             acaoAtual = PARADO;
-            animacao.mudarFramesPara(sprites.get(PARADO));
-            animacao.mudarIntervaloPara(-1);
+            animacao.tocar(clipes[PARADO]);
         }
         catch(Exception e){
             e.printStackTrace();
         }
     }
     
+    //escolhe a ação de animação a partir do estado do jogador, em ordem de prioridade
+    private int escolheAcao(){
+        if(atacando) return ATACANDO;
+        if(atirando) return ATIRANDO;
+        if(dy>0) return CAINDO;
+        if(dy<0) return PULANDO;
+        if(esquerda || direita) return correndo ? CORRENDO : ANDANDO;
+        return PARADO;
+    }
+    
     public int vidaAtual(){ return vida;}
     public int vidaMaxima(){ return maxVida;}
     public boolean estaAtacando(){ return atacando;}
@@ -119,52 +138,32 @@ public class Jogador extends ObjetoMapa {
     }
     public void corre(boolean b){ correndo = b;}
     
-    public void teleporta(){
-        teleportando = true;
+    //no mundo infinito o ponto de retorno acompanha o jogador (veja MundoInfinito)
+    public void mudarPontoDeRetorno(int x, int y){
+        retornoX = x;
+        retornoY = y;
     }
     
-    public ArrayList<Explosao> getExplosoesParaCriar(){
-        return explosoesParaCriar;
+    //o jogador passou da queda da fase (veja ZonasDeGatilho): perde uma vida e volta ao ponto de retorno
+    public void cai(){
+        mudarPosicaoPara(retornoX, retornoY);
+        vida--;
+        if(vida<0) vida = 0;
+        imune = true;
+        temporizadorImune = Animacao.milissegundos();
     }
     
-    public void limparExplosoesParaCriar(){
-        explosoesParaCriar.clear();
+    public void teleporta(){
+        teleportando = true;
     }
     
     private double checaColisaoTeleporte(double startX, double destX, double posY) {
-        // Calcula a direção do movimento
-        double stepSize = 8; // tamanho do passo para verificar colisões (pequeno para precisão)
-        double currentX = startX;
+        // Lança a caixa de colisão do jogador ao longo do caminho, visitando cada bloco cruzado uma vez
         double direction = destX > startX ? 1 : -1;
+        double distancia = mb.lancaCaixa(startX, posY, clargura / 2, caltura / 2, direction, 0, Math.abs(destX - startX));
         
-        // Percorre o caminho em pequenos passos
-        while (Math.abs(currentX - destX) > stepSize) {
-            currentX += stepSize * direction;
-            
-            // Calcula os blocos ao redor da posição de teste
-            int blocoEsquerda = (int)(currentX - clargura / 2) / mb.qualTamanhoDoBloco();
-            int blocoDireita = (int)(currentX + clargura / 2 - 1) / mb.qualTamanhoDoBloco();
-            int blocoCima = (int)(posY - caltura / 2) / mb.qualTamanhoDoBloco();
-            int blocoBaixo = (int)(posY + caltura / 2 - 1) / mb.qualTamanhoDoBloco();
-            
-            // Verifica se a posição está dentro dos limites do mapa
-            if (blocoEsquerda >= 0 && blocoDireita < mb.qualNumDeCols() && 
-                blocoCima >= 0 && blocoBaixo < mb.qualNumDeLinhas()) {
-                
-                // Verifica se algum dos blocos ao redor está bloqueado
-                if (mb.qualTipo(blocoCima, blocoEsquerda) == Bloco.BLOQUEADO ||
-                    mb.qualTipo(blocoCima, blocoDireita) == Bloco.BLOQUEADO ||
-                    mb.qualTipo(blocoBaixo, blocoEsquerda) == Bloco.BLOQUEADO ||
-                    mb.qualTipo(blocoBaixo, blocoDireita) == Bloco.BLOQUEADO) {
-                    
-                    // Se encontrou colisão, retorna a última posição válida
-                    return currentX - (stepSize * direction);
-                }
-            }
-        }
-        
-        // Se chegou aqui, o caminho está livre até o destino
-        return destX;
+        // Para na última posição livre antes do primeiro bloco bloqueado
+        return startX + distancia * direction;
     }
     
     public void tentarPuloDuplo(){
@@ -260,7 +259,8 @@ public class Jogador extends ObjetoMapa {
             }
             
             for(int j=0;j<flechas.size();j++){
-                if(flechas.get(j).checaColisao(in) && !flechas.get(j).hit()) {
+                //a flecha testa todo o caminho percorrido no tick, e não só a posição final
+                if(!flechas.get(j).hit() && flechas.get(j).checaColisaoVarrida(in)) {
                     flechas.get(j).hitou();
                     in.hitFlecha();
                 }
@@ -270,6 +270,32 @@ public class Jogador extends ObjetoMapa {
             }
         }
     }
+    //mesma coisa que o checaColisoes acima, para os inimigos guardados em um BandoDeInimigos
+    public void checaColisoes(BandoDeInimigos bando){
+        boolean golpeEspada = atacando && animacao.qualFrameAtual()>=3 && animacao.qualFrameAtual()<=5;
+        for(int i=0;i<bando.quantidade();i++){
+            int ix = bando.posX(i), iy = bando.posY(i);
+            
+            if(golpeEspada && iy > y-altura/2 && iy<y+altura/2){
+                if(olhandoDireita ? (ix>x && ix<x+atacaAlcance) : (ix<x && ix>x-atacaAlcance)){
+                    bando.hitEspada(i, olhandoDireita);
+                }
+            }
+            
+            for(int j=0;j<flechas.size();j++){
+                Flecha f = flechas.get(j);
+                //varre o movimento da flecha e o do inimigo no tick, como o checaColisaoVarrida acima
+                if(!f.hit() && bando.tempoDeImpacto(f, i)<=1) {
+                    f.hitou();
+                    bando.hitFlecha(i);
+                }
+            }
+            if(checaColisao(ix, iy, bando.CLargura(i), bando.CAltura(i))){
+                hit(bando.Dano(i));
+            }
+        }
+    }
+    
     public void termina(){
         direita = esquerda = cima = baixo = correndo = atacando = atirando = false;
         dx=dy=0;
@@ -277,6 +303,22 @@ public class Jogador extends ObjetoMapa {
         terminando = true;
     }
     
+    /*leva o jogador que terminou uma fase para a seguinte, já montada: passa a usar o mapa, as partículas, a
+    posição e o ponto de retorno do jogador criado pela fase nova, e mantém as vidas. As flechas no ar ficam na
+    fase anterior*/
+    public void continuaNaFase(Jogador daFase){
+        mb = daFase.mb;
+        tamanhoBloco = daFase.tamanhoBloco;
+        particulas = daFase.particulas;
+        mudarPosicaoPara(daFase.x, daFase.y);
+        retornoX = daFase.retornoX;
+        retornoY = daFase.retornoY;
+        dx = dy = 0;
+        flechas.clear();
+        terminando = teleportando = atirou = false;
+        resetarPuloDuplo();
+    }
+    
     public boolean terminou(){
         return terminando;
     }
@@ -286,7 +328,7 @@ public class Jogador extends ObjetoMapa {
         vida-=dano;
         if(vida<0) vida=0;
         imune = true;
-        temporizadorImune = System.nanoTime();
+        temporizadorImune = Animacao.milissegundos();
         if(olhandoDireita) dx = -3;
         else if(!olhandoDireita) dx = 3;
         dy = -2;
@@ -294,26 +336,25 @@ public class Jogador extends ObjetoMapa {
     public void atualiza(){
         if(terminando) return;
         calculaVelocidade();
+        boolean estavaCaindo = caindo;
+        double velocidadeDaQueda = dy;
         checaColisaoComMapa();
-        mudarPosicaoPara(xtemp, ytemp);
+        avancaPara(xtemp, ytemp);
+        //poeira ao chegar no chão depois de uma queda
+        if(estavaCaindo && !caindo && velocidadeDaQueda>2) emite(Particulas.POEIRA, x, y+caltura/2-1, 6, 0, -0.8, 0.8);
         
         if(imune){
-            long diferencaTempo = (System.nanoTime()-temporizadorImune)/1000000;
+            long diferencaTempo = Animacao.milissegundos()-temporizadorImune;
             if(diferencaTempo>1500){
                 imune = false;
             }
         }
-        if(y>mb.qualNumDeLinhas()*mb.qualTamanhoDoBloco()+250) {
-            mudarPosicaoPara(100, 170);
-            vida--;
-            if(vida<0) vida = 0;
-            imune = true;
-            temporizadorImune = System.nanoTime();
-        }
+        piscando = imune && (Animacao.milissegundos()-temporizadorImune)/70%2==0;
         
         if(atirando && acaoAtual == ATIRANDO && animacao.qualFrameAtual()==4 && atirou==false ){
             Flecha f = new Flecha(mb, olhandoDireita);
             f.mudarPosicaoPara(x, y);
+            f.mudarParticulas(particulas);
             flechas.add(f);
             atirou = true;
         }
@@ -360,77 +401,26 @@ public class Jogador extends ObjetoMapa {
             double teleportFinalX = checaColisaoTeleporte(x, novoX, y);
             
             // Cria efeito de fumaça na posição de partida
-            explosoesParaCriar.add(new Explosao(mb, (int)x, (int)y));
+            emite(Particulas.FUMACA, x, y, 1, 0, 0, 0);
+            emite(Particulas.POEIRA, x, y+caltura/2, 8, 0, -1, 1);
             
             mudarPosicaoPara(teleportFinalX, y);
             
             // Cria efeito de fumaça na posição de chegada
-            explosoesParaCriar.add(new Explosao(mb, (int)teleportFinalX, (int)y));
+            emite(Particulas.FUMACA, teleportFinalX, y, 1, 0, 0, 0);
+            emite(Particulas.POEIRA, teleportFinalX, y+caltura/2, 8, 0, -1, 1);
             
             teleportando = false;
         }
         
-        //animações
-        
-        if(atacando){
-            if(acaoAtual!=ATACANDO){
-                acaoAtual=ATACANDO;
-                animacao.mudarFramesPara(sprites.get(ATACANDO));
-                animacao.mudarIntervaloPara(65);
-                largura=60;
-            }
-        }
-        else if(atirando){
-            if(acaoAtual!=ATIRANDO){
-                acaoAtual=ATIRANDO;
-                animacao.mudarFramesPara(sprites.get(ATIRANDO));
-                animacao.mudarIntervaloPara(80);
-                largura=60;
-            }
-        }
-        else if(dy>0){
-            if(acaoAtual != CAINDO) {
-		acaoAtual = CAINDO;
-                animacao.mudarFramesPara(sprites.get(CAINDO));
-		animacao.mudarIntervaloPara(100);
-		largura = 30;
-            }
-        }
-        else if(dy<0){
-            if(acaoAtual!=PULANDO){
-                acaoAtual=PULANDO;
-                animacao.mudarFramesPara(sprites.get(PULANDO));
-                animacao.mudarIntervaloPara(100);
-                largura=30;
-            }
-        }
-        else if(esquerda || direita){
-            if(correndo){
-                if(acaoAtual!=CORRENDO){
-                    acaoAtual=CORRENDO;
-                    animacao.mudarFramesPara(sprites.get(CORRENDO));
-                    animacao.mudarIntervaloPara(60);
-                    largura=30;
-                }
-            }
-            else if(acaoAtual!=ANDANDO){
-                acaoAtual=ANDANDO;
-                animacao.mudarFramesPara(sprites.get(ANDANDO));
-                animacao.mudarIntervaloPara(140);
-                largura=30;
-            }
-        }
-        else{
-            if(acaoAtual!=PARADO){
-                acaoAtual=PARADO;
-                animacao.mudarFramesPara(sprites.get(PARADO));
-                animacao.mudarIntervaloPara(400);
-                largura=30;
-            }
+        //animações: troca o clipe e a largura de acordo com a tabela quando a ação muda
+        int acao = escolheAcao();
+        if(acao!=acaoAtual){
+            acaoAtual = acao;
+            animacao.tocar(clipes[acao]);
+            largura = LARGURAS[acao];
         }
         
-        animacao.atualiza();
-        
         if(acaoAtual!=ATACANDO && acaoAtual!=ATIRANDO){
             if(direita) olhandoDireita = true;
             if(esquerda) olhandoDireita = false;
@@ -444,15 +434,11 @@ public class Jogador extends ObjetoMapa {
         for(int i=0;i<flechas.size();i++){
             flechas.get(i).desenha(g);
         }
-        g.setColor(Color.black);
-        g.setFont(new Font("Arial",Font.PLAIN,14));
-        g.drawString("Vidas : "+vida, 10, 20);
+        int fimTexto = FONTE_VIDAS.desenha(g, "Vidas : ", 10, 20);
+        FONTE_VIDAS.desenhaNumero(g, vida, fimTexto, 20);
         
         if(terminando) return;
-        if(imune){
-            long diferencaTempo = (System.nanoTime()-temporizadorImune)/1000000;
-            if(diferencaTempo/70%2==0) return;
-        }
+        if(piscando) return;
         super.desenha(g);
     }
 }
@@ -7,6 +7,7 @@
 package ObjetosDoMapa;
 
 import ElementosGraficos.Animacao;
+import ElementosGraficos.ClipeAnimacao;
 import ElementosGraficos.MapaDeBlocos;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
@@ -18,8 +19,12 @@ import javax.imageio.ImageIO;
  */
 public class LoboCinza extends Inimigo {
 
+    //os clipes são criados uma vez só e compartilhados por todos os lobos cinzas
+    private static ClipeAnimacao parado, andando;
+    private static BufferedImage[] morre;
+    //os lobos das fases seguintes são criados pela thread que monta a fase, então a carga é travada
+    private static final Object travaDosClipes = new Object();
     
-    BufferedImage[] spriteParado, spriteAndando;
     public LoboCinza(MapaDeBlocos mb) {
         super(mb);
         velMovimento = velMaxMovimento = 0.8;
@@ -32,30 +37,39 @@ public class LoboCinza extends Inimigo {
         vida = maxVida = 3;
         dano=1;
         
-        try{
-            BufferedImage sprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/LoboCinza.gif"));
-            
-            spriteParado = new BufferedImage[1];
-            spriteParado[0] = sprite.getSubimage(0, 0, largura, altura);
-            
-            spriteAndando = new BufferedImage[4];
-            for(int i=0;i<spriteAndando.length;i++){
-                spriteAndando[i] = sprite.getSubimage(largura*i, altura, largura, altura);
-            }
-            
-            BufferedImage msprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/Explosao.gif"));
-            spriteMorre = new BufferedImage[3];
-            for(int i=0;i<spriteMorre.length;i++){
-                spriteMorre[i] = msprite.getSubimage(largura*i, 0, largura, altura);
+        synchronized(travaDosClipes){
+            if(andando==null){
+                try{
+                    BufferedImage sprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/LoboCinza.gif"));
+
+                    BufferedImage[] framesParado = new BufferedImage[1];
+                    framesParado[0] = sprite.getSubimage(0, 0, largura, altura);
+
+                    BufferedImage[] framesAndando = new BufferedImage[4];
+                    for(int i=0;i<framesAndando.length;i++){
+                        framesAndando[i] = sprite.getSubimage(largura*i, altura, largura, altura);
+                    }
+                
+                    parado = new ClipeAnimacao(framesParado, ClipeAnimacao.ticksDe(110));
+                    andando = new ClipeAnimacao(framesAndando, ClipeAnimacao.ticksDe(110));
+
+                    BufferedImage msprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/Explosao.gif"));
+                    morre = new BufferedImage[3];
+                    for(int i=0;i<morre.length;i++){
+                        morre[i] = msprite.getSubimage(largura*i, 0, largura, altura);
+                    }
+                }
+                catch(Exception e){
+                    e.printStackTrace();
+                }
             }
         }
-        catch(Exception e){
-            e.printStackTrace();
-        }
+        clipeParado = parado;
+        clipeAndando = andando;
+        spriteMorre = morre;
         
         animacao = new Animacao();
-        animacao.mudarFramesPara(spriteAndando);
-        animacao.mudarIntervaloPara(110);
+        animacao.tocar(clipeAndando);
         
         direita = olhandoDireita = true;
     }
@@ -72,31 +86,17 @@ public class LoboCinza extends Inimigo {
         }
     }
     
-    public void atualiza(){
+    public void atualizaFisica(){
         proximaPos();
         checaColisaoComMapa();
-        mudarPosicaoPara(xtemp, ytemp);
-        
-        calculaLimites(x, ydest+1);
-        if(!inferiorEsquerdo && !inferiorDireito){}
-        else if(!inferiorDireito && olhandoDireita){
-            dx=0;
-        }
-        else if(!inferiorEsquerdo && !olhandoDireita){
-            dx=0;
-        }
-        
-        if(dx==0){
-            esquerda = !esquerda;
-            direita = olhandoDireita = !direita;
-        }
+        avancaPara(xtemp, ytemp);
         
 
         if(dy!=0){
-            animacao.mudarFramesPara(spriteParado);
+            animacao.tocar(clipeParado);
         }
-        else if(dy==0 && animacao.quaisSaoOsFrames()!=spriteAndando){
-            animacao.mudarFramesPara(spriteAndando);
+        else if(dy==0 && animacao.qualClipe()!=clipeAndando){
+            animacao.tocar(clipeAndando);
         }
         
         if(vida==0) {
@@ -104,10 +104,10 @@ public class LoboCinza extends Inimigo {
         }
         
         
-        animacao.atualiza();
-        
+        //o pisca é decidido aqui, e não no desenha, para que todas as faixas do desenho vejam o mesmo valor
+        piscando = atingido && (Animacao.milissegundos()-tempoAtingido)/80%2==0;
         if(atingido){
-            long diferencaTempo = (System.nanoTime()-tempoAtingido)/1000000;
+            long diferencaTempo = Animacao.milissegundos()-tempoAtingido;
             if(diferencaTempo > duracaoAtingido) {
                 atingido = false;
                 if(direita!=olhandoDireita){
@@ -119,11 +119,26 @@ public class LoboCinza extends Inimigo {
     }
     
     
-    public void desenha(Graphics2D g){
-        if(atingido){
-            long diferencaTempo = (System.nanoTime()-tempoAtingido)/1000000;
-            if(diferencaTempo/80%2==0) return;
+    //segue o campo de fluxo, no modo horda, ou vira na beira da plataforma ou quando bate numa parede
+    public void decide(){
+        if(seguePeloCampo()) return;
+        calculaLimites(x, ydest+1);
+        if(!inferiorEsquerdo && !inferiorDireito){}
+        else if(!inferiorDireito && olhandoDireita){
+            dx=0;
         }
+        else if(!inferiorEsquerdo && !olhandoDireita){
+            dx=0;
+        }
+        
+        if(dx==0){
+            esquerda = !esquerda;
+            direita = olhandoDireita = !direita;
+        }
+    }
+    
+    public void desenha(Graphics2D g){
+        if(piscando) return;
         super.desenha(g);
     }
     
@@ -9,6 +9,8 @@ package ObjetosDoMapa;
 import ElementosGraficos.Animacao;
 import ElementosGraficos.Bloco;
 import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Particulas;
+import ElementosGraficos.Rasterizador;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 
@@ -22,10 +24,13 @@ public abstract class ObjetoMapa {
     //Atributos relacionando o objeto ao mapa de blocos
     protected MapaDeBlocos mb;
     protected int tamanhoBloco;
-    protected double xmapa, ymapa;
+    //efeitos da fase em que o objeto está, ou null para não emitir nenhum
+    protected Particulas particulas;
     
     //Coordenadas e vetores de movimento do objeto
     protected double x, y, dx, dy;
+    //Posição no começo do último movimento, usada pela colisão contínua
+    protected double xanterior, yanterior;
     
     //Dimensões do objeto, e de sua caixa de colisão
     protected int largura, altura, clargura, caltura;
@@ -34,6 +39,8 @@ public abstract class ObjetoMapa {
     protected int linhaAtual, colunaAtual;
     protected double xdest, ydest, xtemp, ytemp;
     protected boolean superiorDireito, superiorEsquerdo, inferiorDireito, inferiorEsquerdo;
+    //último bloco em que a colisão varrida parou o objeto, ou -1 se ela não encontrou nenhum
+    protected int linhaDoImpacto = -1, colunaDoImpacto = -1;
     
     //Atributos de animação
     protected Animacao animacao;
@@ -58,11 +65,38 @@ public abstract class ObjetoMapa {
         return new Rectangle((int)x-clargura, (int)y-caltura, clargura, caltura);
     }
     
-    //Usa o método do retângulo para ver se intercepta com outro, se sim, então colidiu
+    /*Checa se o retângulo delimitador intercepta o do outro objeto, como o Rectangle.intersects, mas sem
+    criar os retângulos a cada tick*/
     public boolean checaColisao(ObjetoMapa o){
-        Rectangle r1 = extraiRetanguloDelimitador();
-        Rectangle r2 = o.extraiRetanguloDelimitador();
-        return r1.intersects(r2);
+        return checaColisao(o.x, o.y, o.clargura, o.caltura);
+    }
+    
+    //mesma coisa, mas com a caixa de colisão de um objeto na posição ox, oy que não é um ObjetoMapa
+    public boolean checaColisao(double ox, double oy, int ocl, int oca){
+        if(clargura<=0 || caltura<=0 || ocl<=0 || oca<=0) return false;
+        int x1 = (int)x-clargura, y1 = (int)y-caltura;
+        int x2 = (int)ox-ocl, y2 = (int)oy-oca;
+        return x1+clargura>x2 && y1+caltura>y2 && x2+ocl>x1 && y2+oca>y1;
+    }
+    
+    /*Tempo de impacto (de 0 a 1) entre o último movimento deste objeto e o do objeto o, usando as mesmas
+    caixas do retângulo delimitador. Retorna ColisaoVarrida.SEM_IMPACTO caso não se toquem*/
+    public double tempoDeImpacto(ObjetoMapa o){
+        return tempoDeImpacto(o.xanterior, o.yanterior, o.x-o.xanterior, o.y-o.yanterior, o.clargura, o.caltura);
+    }
+    
+    /*mesma coisa, mas contra uma caixa que saiu de oxAnterior, oyAnterior e andou ovx, ovy no tick, para objetos
+    que não são ObjetoMapa*/
+    public double tempoDeImpacto(double oxAnterior, double oyAnterior, double ovx, double ovy, int ocl, int oca){
+        double vx = (x-xanterior) - ovx;
+        double vy = (y-yanterior) - ovy;
+        return ColisaoVarrida.tempoDeImpacto(xanterior-clargura, yanterior-caltura, clargura, caltura, vx, vy,
+                oxAnterior-ocl, oyAnterior-oca, ocl, oca);
+    }
+    
+    //Versão contínua do checaColisao, que não deixa objetos rápidos atravessarem o outro entre dois ticks
+    public boolean checaColisaoVarrida(ObjetoMapa o){
+        return tempoDeImpacto(o)<=1;
     }
     
     /*Calcula se o personagem pode prosseguir para a próxima coordenada ou não, a partir das coordenadas
@@ -150,6 +184,85 @@ public abstract class ObjetoMapa {
         }
     }
     
+    /*Versão contínua do checaColisaoComMapa: em vez de testar só os cantos do destino, varre a caixa de
+    colisão ao longo de dx e dy e para no primeiro bloco bloqueado, no tempo exato de impacto. Só visita os
+    blocos cobertos pelo movimento, então continua barato para muitos projéteis*/
+    public void checaColisaoComMapaVarrida(){
+        xtemp = x;
+        ytemp = y;
+        
+        double vx = dx, vy = dy;
+        int meiaLargura = clargura/2, meiaAltura = caltura/2;
+        linhaDoImpacto = colunaDoImpacto = -1;
+        int larguraCaixa = meiaLargura*2, alturaCaixa = meiaAltura*2;
+        
+        //no máximo dois passos: o primeiro impacto zera um eixo e o resto do movimento desliza pelo outro
+        for(int passo=0;passo<2 && (vx!=0 || vy!=0);passo++){
+            double ax = xtemp-meiaLargura;
+            double ay = ytemp-meiaAltura;
+            
+            //blocos cobertos pela caixa durante todo o movimento
+            int colunaInicio = (int)Math.floor(Math.min(ax, ax+vx)/tamanhoBloco);
+            int colunaFim = (int)Math.floor((Math.max(ax, ax+vx)+larguraCaixa-1)/tamanhoBloco);
+            int linhaInicio = (int)Math.floor(Math.min(ay, ay+vy)/tamanhoBloco);
+            int linhaFim = (int)Math.floor((Math.max(ay, ay+vy)+alturaCaixa-1)/tamanhoBloco);
+            //fora do mapa todos os blocos são normais
+            if(colunaInicio<0) colunaInicio = 0;
+            if(linhaInicio<0) linhaInicio = 0;
+            if(colunaFim>=mb.qualNumDeCols()) colunaFim = mb.qualNumDeCols()-1;
+            if(linhaFim>=mb.qualNumDeLinhas()) linhaFim = mb.qualNumDeLinhas()-1;
+            
+            double tempo = ColisaoVarrida.SEM_IMPACTO;
+            boolean eixoX = false;
+            int linhaImpacto = 0, colunaImpacto = 0;
+            for(int linha=linhaInicio;linha<=linhaFim;linha++){
+                for(int coluna=colunaInicio;coluna<=colunaFim;coluna++){
+                    if(mb.qualTipo(linha, coluna)!=Bloco.BLOQUEADO) continue;
+                    double bx = coluna*tamanhoBloco, by = linha*tamanhoBloco;
+                    double t = ColisaoVarrida.tempoDeImpacto(ax, ay, larguraCaixa, alturaCaixa, vx, vy,
+                            bx, by, tamanhoBloco, tamanhoBloco);
+                    if(t<tempo){
+                        tempo = t;
+                        eixoX = ColisaoVarrida.impactoNoEixoX(ax, larguraCaixa, vx, bx, tamanhoBloco,
+                                ay, alturaCaixa, vy, by, tamanhoBloco);
+                        linhaImpacto = linha;
+                        colunaImpacto = coluna;
+                    }
+                }
+            }
+            
+            //nenhum bloco no caminho, então anda tudo
+            if(tempo>1){
+                xtemp += vx;
+                ytemp += vy;
+                break;
+            }
+            
+            //encosta no bloco, zera a velocidade no eixo do impacto e continua com o resto do movimento
+            linhaDoImpacto = linhaImpacto;
+            colunaDoImpacto = colunaImpacto;
+            if(eixoX){
+                if(vx>0) xtemp = colunaImpacto*tamanhoBloco - meiaLargura;
+                else xtemp = (colunaImpacto+1)*tamanhoBloco + meiaLargura;
+                ytemp += vy*tempo;
+                vy *= 1-tempo;
+                vx = 0;
+                dx = 0;
+            }
+            else{
+                if(vy>0){
+                    ytemp = linhaImpacto*tamanhoBloco - meiaAltura;
+                    caindo = false;
+                }
+                else ytemp = (linhaImpacto+1)*tamanhoBloco + meiaAltura;
+                xtemp += vx*tempo;
+                vx *= 1-tempo;
+                vy = 0;
+                dy = 0;
+            }
+        }
+    }
+    
     public int posX(){return (int)x;}
     public int posY(){return (int)y;}
     public int Largura(){return largura;}
@@ -157,14 +270,25 @@ public abstract class ObjetoMapa {
     public int CLargura(){return clargura;}
     public int CAltura(){return caltura;}
     
+    //Coloca o objeto diretamente na posição, sem movimento a ser varrido (início, teleporte, etc)
     public void mudarPosicaoPara(double x, double y){
+        this.x = xanterior = x;
+        this.y = yanterior = y;
+    }
+    
+    //Move o objeto para a posição calculada no tick, guardando de onde ele saiu
+    public void avancaPara(double x, double y){
+        xanterior = this.x;
+        yanterior = this.y;
         this.x = x;
         this.y = y;
     }
     
-    public void atualizarPosicaoMapa(){
-        xmapa = mb.posX();
-        ymapa = mb.posY();
+    public void mudarParticulas(Particulas p){particulas = p;}
+    
+    //emite partículas nos efeitos da fase, se o objeto tiver recebido algum (veja Particulas.emite)
+    protected void emite(int tipo, double x, double y, int n, double vx, double vy, double espalhamento){
+        if(particulas!=null) particulas.emite(tipo, x, y, n, vx, vy, espalhamento);
     }
     
     public void Esquerda(boolean b) { esquerda = b; }
@@ -173,11 +297,15 @@ public abstract class ObjetoMapa {
     public void Baixo(boolean b) { baixo = b; }
     public void Pulando(boolean b) { pulando = b; }
     
+    //só lê o estado do objeto e do mapa, porque com o desenho em faixas várias threads desenham ao mesmo tempo
     public void desenha(Graphics2D g){
-        atualizarPosicaoMapa();
-        if(olhandoDireita)
+        int xmapa = mb.posX(), ymapa = mb.posY();
+        Rasterizador r = Rasterizador.atual();
+        if(r!=null)
+            r.desenha(animacao.qualClipe().raster(animacao.qualFrameAtual()), (int)(x + xmapa - largura/2), (int)(y + ymapa - altura/2), !olhandoDireita);
+        else if(olhandoDireita)
             g.drawImage(animacao.imagemAtual(), (int)(x + xmapa - largura/2), (int)(y + ymapa - altura/2), null);
         else
-            g.drawImage(animacao.imagemAtual(), (int)(x + xmapa - largura/2 + largura), (int)(y+ymapa-altura/2), -largura, altura, null);
+            g.drawImage(animacao.imagemAtualEspelhada(), (int)(x + xmapa - largura/2), (int)(y+ymapa-altura/2), null);
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@
 package ObjetosDoMapa;
 
 import ElementosGraficos.Animacao;
+import ElementosGraficos.ClipeAnimacao;
 import ElementosGraficos.MapaDeBlocos;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
@@ -19,8 +20,7 @@ import javax.imageio.ImageIO;
 public class Portal extends ObjetoMapa{
 
     
-    private BufferedImage[] portalSprite, finalSprite;
-    private boolean para;
+    private ClipeAnimacao portalClipe, finalClipe;
     public Portal(MapaDeBlocos mb) {
         super(mb);
         largura = 30;
@@ -28,30 +28,30 @@ public class Portal extends ObjetoMapa{
         clargura = 10;
         caltura = 5;
         
-        para = false;
         olhandoDireita = true;
         try{
             BufferedImage sprite = ImageIO.read(getClass().getResourceAsStream("/Imagens/portal.gif"));
             
-            portalSprite = new BufferedImage[1];
+            BufferedImage[] portalSprite = new BufferedImage[1];
             portalSprite[0] = sprite.getSubimage(0, 0, largura, altura);
             
-            finalSprite = new BufferedImage[5];
+            BufferedImage[] finalSprite = new BufferedImage[5];
             for(int i=0;i<finalSprite.length;i++){
                 finalSprite[i] = sprite.getSubimage(largura*i, altura, largura, altura);
             }
+            
+            portalClipe = new ClipeAnimacao(portalSprite, -1);
+            finalClipe = new ClipeAnimacao(finalSprite, ClipeAnimacao.ticksDe(140));
         }
         catch(Exception e){
             e.printStackTrace();
         }
         animacao = new Animacao();
-        animacao.mudarFramesPara(portalSprite);
-        animacao.mudarIntervaloPara(-1);
+        animacao.tocar(portalClipe);
     }
     
+    //a animação anda sozinha com o tick global, então não há nada a atualizar
     public void atualiza(){
-        if(!para)
-        animacao.atualiza();
     }
     
     public void desenha(Graphics2D g){
@@ -59,8 +59,7 @@ public class Portal extends ObjetoMapa{
     }
     
     public void trocaAnimacao(){
-        animacao.mudarFramesPara(finalSprite);
-        animacao.mudarIntervaloPara(140);
+        animacao.tocar(finalClipe);
     }
     
     public boolean executou(){
@@ -0,0 +1,216 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.CampoDeFluxo;
+import ElementosGraficos.GeradorDeTerreno;
+import ElementosGraficos.MapaDeBlocos;
+import ObjetosDoMapa.AgendaDeIA;
+import ObjetosDoMapa.Inimigo;
+import ObjetosDoMapa.LoboCinza;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BenchmarkHorda {
+    /*Roda o modo horda (explorador.horda) sem janela em uma fase gerada grande, com milhares de lobos perseguindo
+    o jogador pelo CampoDeFluxo, e mede o custo de cada tick como o Estado_Level1 faz: física de todos, decisões
+    pelo AgendaDeIA, fechaMudancas e o atualiza do campo, que é onde o campo novo calculado na outra thread é
+    trocado. O jogador anda um bloco a cada poucos ticks e um bloco do chão é quebrado e refeito de tempos em
+    tempos, para que o campo seja recalculado o tempo todo. Termina com erro caso o percentil 99 dos ticks depois
+    do aquecimento passe do orçamento de um quadro (um tick isolado acima dele, como uma pausa do coletor, não
+    conta). Depois o jogador fica parado por PERSEGUICAO ticks, e a distância média até ele dos lobos que têm
+    caminho precisa cair pelo menos pela metade (só patrulhando, sem o campo, ela cai bem menos), o que mostra que
+    o campo está guiando a horda e não só sendo calculado. Assim dá pra rodar pelo ant (alvo benchmark-horda)*/
+
+    //ticks rodados antes de medir, para carregar as classes e aquecer o JIT
+    private static final int AQUECIMENTO = 600;
+    private static final int TICKS_POR_PASSO = 20, TICKS_POR_QUEBRA = 250;
+    //ticks com o jogador parado no fim, para conferir que os lobos com caminho chegam mais perto
+    private static final int PERSEGUICAO = 600;
+    //fração da distância média inicial que ainda pode sobrar no fim da perseguição
+    private static final double DISTANCIA_QUE_SOBRA = 0.5;
+    //orçamento de um quadro a 60 quadros por segundo, cobrado do percentil 99 dos ticks
+    private static final double ORCAMENTO_MS = 16, PERCENTIL = 0.99;
+    //metade da altura da caixa de colisão do jogador
+    private static final int MEIA_ALTURA = 11;
+
+    public static void main(String[] args){
+        /*número de lobos, colunas da fase e ticks medidos, que podem ser mudados pela linha de comando*/
+        int lobos = args.length>0 ? Integer.parseInt(args[0]) : 5000;
+        int colunas = args.length>1 ? Integer.parseInt(args[1]) : 50000;
+        int ticks = args.length>2 ? Integer.parseInt(args[2]) : 3000;
+
+        MapaDeBlocos mb = new MapaDeBlocos(30);
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        mb.carregarMapa(new GeradorDeTerreno(48, 12, 0.5).geraMapa(colunas));
+        int tamanho = mb.qualTamanhoDoBloco(), linhas = mb.qualNumDeLinhas();
+
+        //o jogador vai e volta 60 blocos em torno do meio, sempre em pé no chão mais alto de cada coluna
+        int meio = colunas/2;
+        double[] jogador = new double[2];
+        posicionaJogador(mb, meio-30, jogador);
+
+        /*os lobos só andam e caem, então os degraus do terreno separam a fase em pedaços pequenos. Metade da horda
+        começa no chão espalhada até 2000 blocos para cada lado do meio (quase todos sem caminho, só pagando a
+        física), e a outra metade em blocos que já têm caminho até o jogador no começo*/
+        CampoDeFluxo campo = new CampoDeFluxo(mb);
+        while(campo.quantidadeDeCalculos()==0 || campo.estaCalculando()){
+            campo.atualiza(jogador[0], jogador[1], MEIA_ALTURA);
+            Thread.yield();
+        }
+        ArrayList<Inimigo> inimigos = new ArrayList<>();
+        Random r = new Random(3);
+        while(inimigos.size()<lobos){
+            int c = Math.max(0, Math.min(colunas-1, meio+r.nextInt(4000)-2000));
+            for(int l=0;l<linhas-1;l++){
+                if(!mb.estaBloqueado(l, c) && mb.estaBloqueado(l+1, c)){
+                    if(inimigos.size()%2==1 && campo.distanciaDoBloco(l, c)==CampoDeFluxo.INALCANCAVEL) break;
+                    LoboCinza lobo = new LoboCinza(mb);
+                    lobo.mudarPosicaoPara(c*tamanho+tamanho/2, (l+1)*tamanho-10);
+                    lobo.mudarCampoDeFluxo(campo);
+                    inimigos.add(lobo);
+                    break;
+                }
+            }
+        }
+
+        AgendaDeIA agenda = new AgendaDeIA(JogoPanel.qualLargura(), 2*JogoPanel.qualLargura());
+        System.out.printf("horda: %d lobos em %dx%d (%d blocos, campo %s)%n", lobos, colunas, linhas,
+                (long)colunas*linhas, (long)colunas*linhas>CampoDeFluxo.LIMITE_NA_HORA ? "em outra thread" : "na hora");
+
+        long total = 0, maior = 0, maiorCampo = 0;
+        long[] duracoes = new long[ticks];
+        int calculosAntes = 0, maisPerseguindo = 0;
+        int quebraLinha = -1, quebraColuna = -1, quebraValor = 0;
+        for(int t=0;t<AQUECIMENTO+ticks;t++){
+            if(t==AQUECIMENTO) calculosAntes = campo.quantidadeDeCalculos();
+            int passo = (t/TICKS_POR_PASSO)%120;
+            posicionaJogador(mb, meio + (passo<60 ? passo : 120-passo) - 30, jogador);
+            double x = jogador[0], y = jogador[1];
+
+            //quebra um bloco de chão perto do jogador e, na vez seguinte, o refaz
+            if(t%TICKS_POR_QUEBRA==0){
+                if(quebraLinha>=0){
+                    mb.mudarBloco(quebraLinha, quebraColuna, quebraValor);
+                    quebraLinha = -1;
+                }
+                else{
+                    int c = (int)(x/tamanho)+r.nextInt(20)-10;
+                    for(int l=1;l<linhas;l++){
+                        if(mb.estaBloqueado(l, c) && !mb.estaBloqueado(l-1, c)){
+                            quebraLinha = l;
+                            quebraColuna = c;
+                            quebraValor = mb.qualBloco(l, c);
+                            mb.mudarBloco(l, c, 0);
+                            break;
+                        }
+                    }
+                }
+            }
+
+            long s = System.nanoTime();
+            for(int i=0;i<inimigos.size();i++) inimigos.get(i).atualizaFisica();
+            agenda.comecaTick(t, x, y);
+            for(int i=0;i<inimigos.size();i++) agenda.decide(inimigos.get(i));
+            agenda.terminaTick();
+            mb.fechaMudancas();
+            long sc = System.nanoTime();
+            campo.atualiza(x, y, MEIA_ALTURA);
+            long fim = System.nanoTime();
+
+            if(t<AQUECIMENTO) continue;
+            long d = fim-s;
+            total += d;
+            if(d>maior) maior = d;
+            if(fim-sc>maiorCampo) maiorCampo = fim-sc;
+            duracoes[t-AQUECIMENTO] = d;
+
+            //fora da medição, conta de vez em quando quantos lobos estão seguindo o campo
+            if(t%100==0){
+                int perseguindo = 0;
+                for(int i=0;i<inimigos.size();i++){
+                    Inimigo in = inimigos.get(i);
+                    if(campo.temCaminho(in.posX(), in.posY(), in.CAltura()/2)) perseguindo++;
+                }
+                if(perseguindo>maisPerseguindo) maisPerseguindo = perseguindo;
+            }
+        }
+
+        Arrays.sort(duracoes);
+        double percentil = duracoes[Math.min(ticks-1, (int)(ticks*PERCENTIL))]/1e6;
+        System.out.printf("  %.3f ms por tick em media, %.3f ms no percentil %.0f, %.3f ms no pior tick (%.3f ms no pior atualiza do campo)%n",
+                total/1e6/ticks, percentil, PERCENTIL*100, maior/1e6, maiorCampo/1e6);
+        System.out.printf("  %d campos trocados em %d ticks, ate %d lobos com caminho ate o jogador ao mesmo tempo%n",
+                campo.quantidadeDeCalculos()-calculosAntes, ticks, maisPerseguindo);
+
+        /*o jogador volta para onde começou, perto da metade da horda que nasceu com caminho, o bloco quebrado volta
+        e o campo termina de ser calculado para essa posição; então os lobos que têm caminho andam PERSEGUICAO ticks
+        atrás dele, parado*/
+        if(quebraLinha>=0) mb.mudarBloco(quebraLinha, quebraColuna, quebraValor);
+        mb.fechaMudancas();
+        posicionaJogador(mb, meio-30, jogador);
+        double x = jogador[0], y = jogador[1];
+        do{
+            campo.atualiza(x, y, MEIA_ALTURA);
+            Thread.yield();
+        }while(campo.estaCalculando());
+        ArrayList<Inimigo> comCaminho = new ArrayList<>();
+        for(int i=0;i<inimigos.size();i++){
+            Inimigo in = inimigos.get(i);
+            if(campo.temCaminho(in.posX(), in.posY(), in.CAltura()/2)) comCaminho.add(in);
+        }
+        double distanciaInicial = distanciaMedia(comCaminho, x);
+        for(int t=0;t<PERSEGUICAO;t++){
+            for(int i=0;i<inimigos.size();i++) inimigos.get(i).atualizaFisica();
+            agenda.comecaTick(AQUECIMENTO+ticks+t, x, y);
+            for(int i=0;i<inimigos.size();i++) agenda.decide(inimigos.get(i));
+            agenda.terminaTick();
+            mb.fechaMudancas();
+            campo.atualiza(x, y, MEIA_ALTURA);
+        }
+        double distanciaFinal = distanciaMedia(comCaminho, x);
+        System.out.printf("  %d lobos com caminho e o jogador parado por %d ticks: distancia media de %.0f para %.0f pixels%n",
+                comCaminho.size(), PERSEGUICAO, distanciaInicial, distanciaFinal);
+        boolean falhou = false;
+        if(percentil>ORCAMENTO_MS){
+            System.out.printf("  o percentil %.0f passou do orcamento de %.0f ms%n", PERCENTIL*100, ORCAMENTO_MS);
+            falhou = true;
+        }
+        if(comCaminho.isEmpty() || !(distanciaFinal<=distanciaInicial*DISTANCIA_QUE_SOBRA)){
+            System.out.printf("  os lobos com caminho nao chegaram perto o bastante do jogador (esperado ate %.0f pixels)%n",
+                    distanciaInicial*DISTANCIA_QUE_SOBRA);
+            falhou = true;
+        }
+        if(falhou) System.exit(1);
+        System.out.println("OK");
+    }
+
+    //distância horizontal média, em pixels, entre os lobos e o x do jogador
+    private static double distanciaMedia(ArrayList<Inimigo> lobos, double x){
+        double soma = 0;
+        for(int i=0;i<lobos.size();i++) soma += Math.abs(lobos.get(i).posX()-x);
+        return lobos.isEmpty() ? 0 : soma/lobos.size();
+    }
+
+    //põe o jogador em pé no chão mais alto da coluna; nos buracos ele fica onde estava
+    private static void posicionaJogador(MapaDeBlocos mb, int coluna, double[] jogador){
+        int tamanho = mb.qualTamanhoDoBloco();
+        for(int l=0;l<mb.qualNumDeLinhas()-1;l++){
+            if(mb.estaBloqueado(l, coluna)) return;
+            if(mb.estaBloqueado(l+1, coluna)){
+                jogador[0] = coluna*tamanho + tamanho/2;
+                jogador[1] = (l+1)*tamanho - MEIA_ALTURA;
+                return;
+            }
+        }
+    }
+}
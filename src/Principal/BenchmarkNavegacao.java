@@ -0,0 +1,203 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.GeradorDeTerreno;
+import ElementosGraficos.GrafoDeNavegacao;
+import ElementosGraficos.MapaDeBlocos;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BenchmarkNavegacao {
+    /*Mede o GrafoDeNavegacao no level1-1 e em fases geradas: o tamanho do grafo e o tempo de montagem, o custo por
+    tick de muitos perseguidores consultando o caminho até o jogador em lote (com o jogador trocando de trecho a
+    cada segundo), o custo de uma busca sem caminho guardado (o que cada perseguidor pagaria sozinho) e o de
+    refazer o grafo em volta de um bloco que mudou. Antes de medir, confere se seguir as ligações a partir de um
+    trecho chega ao destino, em pares sorteados entre trechos que se alcançam, e falha se não conseguir conferir
+    PARES pares. Também confere o refeito local contra o grafo montado do zero: em SEMENTES fases geradas, blocos
+    sorteados mudam a cada tick por TICKS_DE_MUDANCA ticks, e depois de cada atualiza os trechos, as ligações e os
+    custos têm que ser iguais aos de um grafo novo do mesmo mapa; qualquer diferença termina com erro*/
+
+    private static final int TICKS = 3000, TICKS_POR_DESTINO = 60;
+    /*pulos de até 2 linhas; o alcance conta da coluna de saída à de chegada, então os buracos de até 3 colunas do
+    GeradorDeTerreno precisam de alcance 4 (o jogador passa por eles com o pulo duplo)*/
+    private static final int ALTURA_PULO = 2, ALCANCE_PULO = 4;
+    private static final int PARES = 500;
+    private static final int SEMENTES = 30, TICKS_DE_MUDANCA = 200;
+    //destinos sorteados a cada tick para comparar os custos dos dois grafos
+    private static final int DESTINOS_POR_TICK = 4;
+
+    public static void main(String[] args) throws IOException{
+        confereRefeitos();
+        mede("level1-1", MapaDeBlocos.leMapa("/Mapas/level1-1.mapa"));
+        mede("gerada 5000x8", new GeradorDeTerreno(47, 8, 0.4).geraMapa(5000));
+        mede("gerada 50000x12", new GeradorDeTerreno(48, 12, 0.5).geraMapa(50000));
+    }
+
+    private static void mede(String nome, int[][] blocos){
+        MapaDeBlocos mb = new MapaDeBlocos(30);
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        mb.carregarMapa(blocos);
+
+        long inicio = System.nanoTime();
+        GrafoDeNavegacao grafo = new GrafoDeNavegacao(mb, ALTURA_PULO, ALCANCE_PULO);
+        int trechos = grafo.quantidadeDeTrechos();
+        double montagem = (System.nanoTime()-inicio)/1e6;
+        System.out.printf("%s: %d trechos, %d ligacoes, montado em %.2f ms%n", nome, trechos, grafo.quantidadeDeLigacoes(), montagem);
+
+        Random r = new Random(5);
+        confere(grafo, r);
+
+        for(int perseguidores : new int[]{100, 1000}){
+            int[] inicios = new int[perseguidores], ligacoes = new int[perseguidores];
+            for(int i=0;i<perseguidores;i++) inicios[i] = r.nextInt(trechos);
+            int destino = 0;
+            long total = 0, maior = 0;
+            //a primeira rodada só aquece o JIT
+            for(int rodada=0;rodada<2;rodada++){
+                total = maior = 0;
+                for(int t=0;t<TICKS;t++){
+                    if(t%TICKS_POR_DESTINO==0) destino = r.nextInt(trechos);
+                    long s = System.nanoTime();
+                    grafo.consultaLote(inicios, perseguidores, destino, ligacoes);
+                    long d = System.nanoTime()-s;
+                    total += d;
+                    if(d>maior) maior = d;
+                }
+            }
+            System.out.printf("  %4d perseguidores: %.4f ms por tick em media, %.3f ms no pior tick%n", perseguidores,
+                    total/1e6/TICKS, maior/1e6);
+        }
+
+        //uma busca por destino novo: o que cada perseguidor pagaria por tick sem os caminhos guardados
+        int buscas = 200;
+        inicio = System.nanoTime();
+        for(int i=0;i<buscas;i++) grafo.proximaLigacao(0, i%trechos);
+        System.out.printf("  busca sem caminho guardado: %.3f ms%n", (System.nanoTime()-inicio)/1e6/buscas);
+
+        //quebra um bloco embaixo de um trecho e o põe de volta, refazendo o grafo em volta dele a cada vez
+        int t = trechos/2;
+        int l = grafo.linhaDoTrecho(t)+1, c = grafo.inicioDoTrecho(t), valor = mb.qualBloco(l, c);
+        int vezes = 1000;
+        long total = 0;
+        //a primeira rodada só aquece o JIT
+        for(int rodada=0;rodada<2;rodada++){
+            total = 0;
+            for(int i=0;i<vezes;i++){
+                mb.mudarBloco(l, c, i%2==0 ? 0 : valor);
+                mb.fechaMudancas();
+                grafo.atualiza();
+                inicio = System.nanoTime();
+                grafo.quantidadeDeTrechos();
+                total += System.nanoTime()-inicio;
+            }
+        }
+        System.out.printf("  refeito em volta de uma mudanca em %.3f ms em media (%d refeitos, %d montagens)%n%n",
+                total/1e6/vezes, grafo.quantidadeDeRefeitos(), grafo.quantidadeDeMontagens());
+    }
+
+    /*sorteia um destino e, entre os trechos que chegam nele, um início, e confere se seguir as ligações a partir do
+    início chega ao destino. Destinos que só alcançam a si mesmos são sorteados de novo*/
+    private static void confere(GrafoDeNavegacao grafo, Random r){
+        int trechos = grafo.quantidadeDeTrechos();
+        int[] chegam = new int[trechos];
+        int chegaram = 0, destinos = 0;
+        while(chegaram<PARES && destinos<PARES*20){
+            int b = r.nextInt(trechos);
+            destinos++;
+            int quantos = 0;
+            for(int a=0;a<trechos;a++){
+                if(a!=b && grafo.custoAte(a, b)!=GrafoDeNavegacao.INALCANCAVEL) chegam[quantos++] = a;
+            }
+            if(quantos==0) continue;
+            int a = chegam[r.nextInt(quantos)];
+            int t = a, passos = 0;
+            while(t!=b){
+                int ligacao = grafo.proximaLigacao(t, b);
+                if(ligacao<0 || ++passos>trechos){
+                    System.out.println("  caminho errado de "+a+" ate "+b);
+                    System.exit(1);
+                }
+                t = grafo.destinoDaLigacao(ligacao);
+            }
+            chegaram++;
+        }
+        if(chegaram<PARES){
+            System.out.println("  so "+chegaram+" pares com caminho em "+destinos+" destinos sorteados");
+            System.exit(1);
+        }
+        System.out.println("  caminhos conferidos: "+chegaram+" pares ("+destinos+" destinos sorteados)");
+    }
+
+    /*em cada semente, muda de 1 a 4 blocos sorteados por tick (e 80 de uma vez a cada 20 ticks, mais que o grafo
+    refaz localmente) e compara o grafo atualizado com um montado do zero sobre uma cópia do mapa*/
+    private static void confereRefeitos(){
+        int colunas = 1500, linhas = 8;
+        long refeitos = 0, montagens = 0;
+        MapaDeBlocos copia = new MapaDeBlocos(30);
+        copia.carregarBlocos("/Imagens/blocos.gif");
+        for(int semente=0;semente<SEMENTES;semente++){
+            int[][] blocos = new GeradorDeTerreno(semente, linhas, 0.4).geraMapa(colunas);
+            MapaDeBlocos mb = new MapaDeBlocos(30);
+            mb.carregarBlocos("/Imagens/blocos.gif");
+            mb.carregarMapa(blocos);
+            GrafoDeNavegacao grafo = new GrafoDeNavegacao(mb, ALTURA_PULO, ALCANCE_PULO);
+            grafo.quantidadeDeTrechos();
+            Random r = new Random(semente);
+            for(int t=0;t<TICKS_DE_MUDANCA;t++){
+                int mudancas = t%20==19 ? 80 : 1+r.nextInt(4);
+                for(int i=0;i<mudancas;i++){
+                    int l = r.nextInt(linhas), c = r.nextInt(colunas);
+                    blocos[l][c] = mb.estaBloqueado(l, c) ? GeradorDeTerreno.VAZIO : GeradorDeTerreno.TERRA;
+                    mb.mudarBloco(l, c, blocos[l][c]);
+                }
+                mb.fechaMudancas();
+                grafo.atualiza();
+
+                copia.carregarMapa(blocos);
+                GrafoDeNavegacao novo = new GrafoDeNavegacao(copia, ALTURA_PULO, ALCANCE_PULO);
+                String diferenca = diferenca(grafo, novo, r);
+                if(diferenca!=null){
+                    System.out.println("  refeito diferente do grafo novo (semente "+semente+", tick "+t+"): "+diferenca);
+                    System.exit(1);
+                }
+            }
+            refeitos += grafo.quantidadeDeRefeitos();
+            montagens += grafo.quantidadeDeMontagens();
+        }
+        System.out.printf("refeitos conferidos: %d sementes x %d ticks iguais ao grafo novo (%d refeitos locais, %d montagens)%n%n",
+                SEMENTES, TICKS_DE_MUDANCA, refeitos, montagens);
+    }
+
+    //primeira diferença entre os dois grafos, ou null se forem iguais
+    private static String diferenca(GrafoDeNavegacao a, GrafoDeNavegacao b, Random r){
+        int trechos = a.quantidadeDeTrechos();
+        if(trechos!=b.quantidadeDeTrechos()) return trechos+" trechos contra "+b.quantidadeDeTrechos();
+        if(a.quantidadeDeLigacoes()!=b.quantidadeDeLigacoes()){
+            return a.quantidadeDeLigacoes()+" ligacoes contra "+b.quantidadeDeLigacoes();
+        }
+        for(int t=0;t<trechos;t++){
+            if(a.linhaDoTrecho(t)!=b.linhaDoTrecho(t) || a.inicioDoTrecho(t)!=b.inicioDoTrecho(t)
+                    || a.fimDoTrecho(t)!=b.fimDoTrecho(t)) return "trecho "+t;
+        }
+        for(int i=0;i<a.quantidadeDeLigacoes();i++){
+            if(a.destinoDaLigacao(i)!=b.destinoDaLigacao(i) || a.colunaDeSaida(i)!=b.colunaDeSaida(i)
+                    || a.colunaDeChegada(i)!=b.colunaDeChegada(i) || a.ehPulo(i)!=b.ehPulo(i)) return "ligacao "+i;
+        }
+        for(int d=0;d<DESTINOS_POR_TICK;d++){
+            int destino = r.nextInt(trechos);
+            for(int t=0;t<trechos;t++){
+                if(a.custoAte(t, destino)!=b.custoAte(t, destino)) return "custo de "+t+" ate "+destino;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.MapaDeBlocos;
+import ElementosGraficos.Rasterizador;
+import ObjetosDoMapa.LoboCinza;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class BenchmarkRasterizador {
+    /*Compara o drawImage do Java2D com o Rasterizador desenhando os blocos do level 1 (MapaDeBlocos.desenha) e uma
+    quantidade de lobos espalhados pela tela (ObjetoMapa.desenha). Antes de medir, confere se os dois caminhos
+    geram exatamente os mesmos pixels*/
+    
+    private static final int AQUECIMENTO = 500;
+    
+    public static void main(String[] args){
+        System.setProperty("java.awt.headless", "true");
+        
+        //número de frames medidos e de lobos na tela, que podem ser mudados pela linha de comando
+        int frames = args.length>0 ? Integer.parseInt(args[0]) : 3000;
+        int quantLobos = args.length>1 ? Integer.parseInt(args[1]) : 200;
+        
+        BufferedImage imagem = new BufferedImage(JogoPanel.qualLargura(), JogoPanel.qualAltura(), TYPE_INT_RGB);
+        Graphics2D g = (Graphics2D) imagem.getGraphics();
+        Rasterizador rasterizador = new Rasterizador(imagem);
+        
+        MapaDeBlocos mb = new MapaDeBlocos(30);
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        mb.carregarMapa("/Mapas/level1-1.mapa");
+        mb.mudarVelocidadeDeTela(1);
+        mb.mudarPosicaoPara(-mb.qualLarguraDoMapa()/2, -mb.qualAlturaDoMapa());
+        
+        //lobos em posições sorteadas dentro da parte visível do mapa, sempre as mesmas
+        Random r = new Random(33);
+        LoboCinza[] lobos = new LoboCinza[quantLobos];
+        for(int i=0;i<quantLobos;i++){
+            lobos[i] = new LoboCinza(mb);
+            lobos[i].mudarPosicaoPara(-mb.posX() + r.nextInt(JogoPanel.qualLargura()+30) - 15,
+                    -mb.posY() + r.nextInt(JogoPanel.qualAltura()+30) - 15);
+        }
+        
+        //confere se os dois caminhos desenham a mesma coisa
+        int[] java2d = desenhaUmFrame(imagem, g, null, mb, lobos);
+        int[] raster = desenhaUmFrame(imagem, g, rasterizador, mb, lobos);
+        int diferentes = 0;
+        for(int i=0;i<java2d.length;i++){
+            if(java2d[i]!=raster[i]) diferentes++;
+        }
+        System.out.println("Pixels diferentes entre Java2D e Rasterizador: "+diferentes);
+        
+        for(int i=0;i<AQUECIMENTO;i++){
+            desenhaBlocos(g, null, mb);
+            desenhaBlocos(g, rasterizador, mb);
+            desenhaLobos(g, null, lobos);
+            desenhaLobos(g, rasterizador, lobos);
+        }
+        
+        long blocosJava2d = 0, blocosRaster = 0, lobosJava2d = 0, lobosRaster = 0;
+        for(int i=0;i<frames;i++){
+            long t0 = System.nanoTime();
+            desenhaBlocos(g, null, mb);
+            long t1 = System.nanoTime();
+            desenhaBlocos(g, rasterizador, mb);
+            long t2 = System.nanoTime();
+            desenhaLobos(g, null, lobos);
+            long t3 = System.nanoTime();
+            desenhaLobos(g, rasterizador, lobos);
+            long t4 = System.nanoTime();
+            blocosJava2d += t1-t0;
+            blocosRaster += t2-t1;
+            lobosJava2d += t3-t2;
+            lobosRaster += t4-t3;
+        }
+        g.dispose();
+        
+        System.out.printf("Blocos: Java2D %.1f us/frame, Rasterizador %.1f us/frame (%.1fx)%n",
+                blocosJava2d/1000.0/frames, blocosRaster/1000.0/frames, (double)blocosJava2d/blocosRaster);
+        System.out.printf("%d lobos: Java2D %.1f us/frame, Rasterizador %.1f us/frame (%.1fx)%n",
+                quantLobos, lobosJava2d/1000.0/frames, lobosRaster/1000.0/frames, (double)lobosJava2d/lobosRaster);
+        if(diferentes>0) System.exit(1);
+    }
+    
+    //desenha o mapa e os lobos por um dos caminhos e retorna uma cópia dos pixels
+    private static int[] desenhaUmFrame(BufferedImage imagem, Graphics2D g, Rasterizador rasterizador,
+            MapaDeBlocos mb, LoboCinza[] lobos){
+        g.setColor(java.awt.Color.BLACK);
+        g.fillRect(0, 0, imagem.getWidth(), imagem.getHeight());
+        desenhaBlocos(g, rasterizador, mb);
+        desenhaLobos(g, rasterizador, lobos);
+        return imagem.getRGB(0, 0, imagem.getWidth(), imagem.getHeight(), null, 0, imagem.getWidth());
+    }
+    
+    private static void desenhaBlocos(Graphics2D g, Rasterizador rasterizador, MapaDeBlocos mb){
+        if(rasterizador!=null) rasterizador.ativa();
+        mb.desenha(g);
+        Rasterizador.desativa();
+    }
+    
+    private static void desenhaLobos(Graphics2D g, Rasterizador rasterizador, LoboCinza[] lobos){
+        if(rasterizador!=null) rasterizador.ativa();
+        for(int i=0;i<lobos.length;i++){
+            lobos[i].desenha(g);
+        }
+        Rasterizador.desativa();
+    }
+}
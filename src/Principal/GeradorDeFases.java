@@ -0,0 +1,126 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.GeradorDeTerreno;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class GeradorDeFases {
+    /*Gera uma fase de teste a partir de uma semente, com o tamanho, a densidade de plataformas e a quantidade de
+    inimigos escolhidos, e grava o .mapa e o .spawns no formato das fases do jogo. Serve para ver como o mapa, a
+    colisão e os inimigos se comportam em fases muito maiores que o level1-1 (163x8 com 20 lobos).
+
+    Uso: GeradorDeFases <nome> <colunas> <linhas> <densidade> <inimigos> <semente> [diretório]
+    Os arquivos vão para <diretório>/Mapas (por padrão, o diretório atual); com esse diretório no classpath, a
+    fase pode ser jogada com -Dexplorador.fases=<nome>*/
+
+    private static final int TAMANHO_BLOCO = 30;
+    /*os inimigos são sorteados entre a coluna 14 e a décima antes do fim, longe do jogador e do portal, então a
+    fase precisa de pelo menos uma coluna entre elas*/
+    private static final int PRIMEIRA_COLUNA_DE_INIMIGO = 14, COLUNAS_DEPOIS_DOS_INIMIGOS = 10;
+    private static final int COLUNAS_MIN = PRIMEIRA_COLUNA_DE_INIMIGO+COLUNAS_DEPOIS_DOS_INIMIGOS+1, LINHAS_MIN = 6;
+    private static final String USO = "Uso: GeradorDeFases <nome> <colunas> <linhas> <densidade> <inimigos> <semente> [diretorio]";
+
+    public static void main(String[] args) throws IOException{
+        if(args.length<6) falha("faltam argumentos");
+        String nome = args[0];
+        int colunas = 0, linhas = 0, inimigos = 0;
+        double densidade = 0;
+        long semente = 0;
+        try{
+            colunas = Integer.parseInt(args[1]);
+            linhas = Integer.parseInt(args[2]);
+            densidade = Double.parseDouble(args[3]);
+            inimigos = Integer.parseInt(args[4]);
+            semente = Long.parseLong(args[5]);
+        }
+        catch(NumberFormatException e){
+            falha("numero invalido ("+e.getMessage()+")");
+        }
+        if(colunas<COLUNAS_MIN) falha("a fase precisa de pelo menos "+COLUNAS_MIN+" colunas");
+        if(linhas<LINHAS_MIN) falha("a fase precisa de pelo menos "+LINHAS_MIN+" linhas");
+        if(densidade<0 || densidade>1) falha("a densidade vai de 0 a 1");
+        if(inimigos<0) falha("a quantidade de inimigos nao pode ser negativa");
+        File diretorio = new File(args.length>6 ? args[6] : ".", "Mapas");
+
+        long inicio = System.nanoTime();
+        int colocados = gera(diretorio, nome, colunas, linhas, densidade, inimigos, semente);
+        System.out.printf("Fase %s (%dx%d, %d inimigos) gerada em %s em %.0f ms%n", nome, colunas, linhas, colocados,
+                diretorio, (System.nanoTime()-inicio)/1e6);
+        if(colocados<inimigos){
+            System.out.printf("Aviso: so %d dos %d inimigos pedidos foram colocados (poucas colunas com chao)%n",
+                    colocados, inimigos);
+        }
+    }
+
+    private static void falha(String motivo){
+        System.out.println("Erro: "+motivo);
+        System.out.println(USO);
+        System.exit(1);
+    }
+
+    /*gera e grava <nome>.mapa e <nome>.spawns no diretório e retorna quantos inimigos foram colocados, que pode
+    ser menos que o pedido quando o sorteio não acha chão (fases com muitos buracos)*/
+    public static int gera(File diretorio, String nome, int colunas, int linhas, double densidade, int inimigos,
+            long semente) throws IOException{
+        if(colunas<COLUNAS_MIN) throw new IllegalArgumentException("A fase precisa de pelo menos "+COLUNAS_MIN+" colunas");
+        GeradorDeTerreno gerador = new GeradorDeTerreno(semente, linhas, densidade);
+        int[] topo = gerador.geraAlturas(colunas);
+        int[][] mapa = new int[linhas][colunas];
+        gerador.montaChao(mapa, topo, 0, colunas);
+        gerador.colocaPlataformas(mapa, topo, 0, colunas);
+
+        diretorio.mkdirs();
+        try(BufferedWriter w = new BufferedWriter(new FileWriter(new File(diretorio, nome+".mapa")))){
+            //mesmo formato do carregarMapa: colunas, linhas e depois uma linha de blocos por linha do mapa
+            w.write(Integer.toString(colunas));
+            w.newLine();
+            w.write(Integer.toString(linhas));
+            w.newLine();
+            for(int l=0;l<linhas;l++){
+                for(int c=0;c<colunas;c++){
+                    if(c>0) w.write(' ');
+                    w.write(Integer.toString(mapa[l][c]));
+                }
+                w.newLine();
+            }
+        }
+
+        Random r = gerador.qualRandom();
+        try(BufferedWriter w = new BufferedWriter(new FileWriter(new File(diretorio, nome+".spawns")))){
+            w.write("# Fase gerada: semente "+semente+", densidade "+densidade);
+            w.newLine();
+            //o jogador começa perto da parede da esquerda, e o portal fica perto da parede da direita
+            escreve(w, "jogador", 4, topo[4], 20);
+            escreve(w, "portal", colunas-6, topo[colunas-6], 15);
+            w.write("prefetch "+(colunas*TAMANHO_BLOCO/2));
+            w.newLine();
+            int colocados = 0;
+            for(int i=0;i<inimigos;i++){
+                int c = gerador.sorteiaColunaComChao(topo, PRIMEIRA_COLUNA_DE_INIMIGO, colunas-COLUNAS_DEPOIS_DOS_INIMIGOS);
+                if(c<0) continue;
+                escreve(w, r.nextInt(10)==0 ? "lobovermelho" : "lobocinza", c, topo[c], 20);
+                colocados++;
+            }
+            return colocados;
+        }
+    }
+
+    //escreve um objeto em cima do chão da coluna
+    private static void escreve(BufferedWriter w, String tipo, int coluna, int topo, int acima) throws IOException{
+        w.write(tipo+" "+(coluna*TAMANHO_BLOCO+TAMANHO_BLOCO/2)+" "+(topo*TAMANHO_BLOCO-acima));
+        w.newLine();
+    }
+}
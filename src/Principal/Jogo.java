@@ -7,6 +7,7 @@
 package Principal;
 
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 /**
  *
@@ -15,13 +16,23 @@ import javax.swing.JFrame;
 public class Jogo {
     //Classe que desenha a janela principal do jogo
     public static void main(String[] args){
+        SondaDePipeline.escolhe();//escolhe o pipeline do Java2D antes de criar a janela
         JFrame jogo = new JFrame("O explorador"); //cria um novo JFrame
-        jogo.setResizable(false);//Não é possível redimensionar
+        jogo.setResizable(true);//Pode redimensionar; a imagem é ampliada pela maior escala inteira que couber
         jogo.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);//Tem a operação padrão de fechar de aplicativos java
-        jogo.setContentPane(new JogoPanel());//A classe JogoPanel será o JPanel padrão do JFrame jogo
+        final JogoPanel painel = new JogoPanel();
+        jogo.setContentPane(painel);//A classe JogoPanel será o JPanel padrão do JFrame jogo
         jogo.pack();//Conserta as posições de desenho na tela
         jogo.setLocationRelativeTo(null);//Desenha o JFrame no centro da tela
         jogo.setVisible(true);//Faz o JFrame ser visível
+        if(Boolean.getBoolean("explorador.telaCheia")){
+            //começa em tela cheia sem bordas; a troca precisa rodar na thread do Swing
+            SwingUtilities.invokeLater(new Runnable(){
+                public void run(){
+                    painel.alternaTelaCheia();
+                }
+            });
+        }
         
     }
 }
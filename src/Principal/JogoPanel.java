@@ -8,19 +8,26 @@ package Principal;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.RenderingHints;
+import java.awt.Window;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.image.BufferedImage;
 import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import java.awt.image.VolatileImage;
 import javax.swing.JPanel;
 import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.Random;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
+import ElementosGraficos.Rasterizador;
 import GerenciadorDeEstados.*;
 /**
  *
@@ -30,11 +37,27 @@ import GerenciadorDeEstados.*;
 //Declara a classe, e implementa as interfaces Runnable, que controla o thread, e KeyListener, para interação com o teclado
 public class JogoPanel extends JPanel implements Runnable,KeyListener {
     
-    public static final int LARGURA = 320;//Largura padrão do JPanel
-    public static final int ALTURA = 240;//Altura padrão do JPanel
-    public static final int ESCALA = 2;/*Escala de multiplicação (Exemplo : ESCALA = 2 então LARGURA e ALTURA serão desenhado
+    public static final int LARGURA = 320;//Largura padrão da resolução interna
+    public static final int ALTURA = 240;//Altura padrão da resolução interna
+    public static final int ESCALA = 2;/*Escala padrão da janela (Exemplo : ESCALA = 2 então LARGURA e ALTURA serão desenhado
     com o dobro de tamanho*/
     
+    /*Resolução interna em uso, em que o jogo é desenhado antes de ser ampliado para a tela. Pode ser escolhida com
+    -Dexplorador.largura e -Dexplorador.altura, ou mudada com mudarResolucaoPara durante o jogo; tudo que depende do
+    tamanho da tela (mapa, fundos, câmera) usa qualLargura e qualAltura em vez das constantes*/
+    private static volatile int largura = Integer.getInteger("explorador.largura", LARGURA);
+    private static volatile int altura = Integer.getInteger("explorador.altura", ALTURA);
+    
+    public static int qualLargura(){return largura;}
+    public static int qualAltura(){return altura;}
+    
+    //muda a resolução interna; a imagem principal é recriada no começo do próximo frame
+    public static void mudarResolucaoPara(int l, int a){
+        if(l<=0 || a<=0) throw new IllegalArgumentException("Resolução inválida: "+l+"x"+a);
+        largura = l;
+        altura = a;
+    }
+    
     //declara thread
     private Thread thread;
     
@@ -45,14 +68,30 @@ public class JogoPanel extends JPanel implements Runnable,KeyListener {
     //declara elementos gráficos
     private BufferedImage imagem;
     private Graphics2D g;
+    //cópia da imagem principal na placa de vídeo, que é a imagem ampliada para a tela
+    private VolatileImage copia;
+    //se o desenho usa o Rasterizador, ligado com -Dexplorador.rasterizador=true
+    private boolean rasterizador;
+    //se a janela está em tela cheia sem bordas
+    private boolean telaCheia;
     
     //declara o gerenciador de estado
     private GerenciadorEstado ge;
+    //desenho em várias threads, ligado com -Dexplorador.faixas=<número de faixas>
+    private RenderizadorEmFaixas faixas;
+    
+    /*controle do ritmo: estados lentos (menu, ajuda) esperam no trava entre as atualizações e são acordados por uma
+    tecla; precisaMostrar pede para mostrar de novo o último frame, por exemplo quando a janela é redesenhada*/
+    private final Object trava = new Object();
+    private boolean entrada, precisaMostrar;
     
     //Construtor padrão
     public JogoPanel(){
-        setPreferredSize(new Dimension(LARGURA*ESCALA, ALTURA*ESCALA));//Ajusta o tamanho do JPanel de acordo com a escala
+        int escala = Integer.getInteger("explorador.escala", ESCALA);
+        setPreferredSize(new Dimension(largura*escala, altura*escala));//Ajusta o tamanho do JPanel de acordo com a escala
+        setBackground(Color.BLACK);//cor das bordas quando a imagem não ocupa a janela inteira
         setFocusable(true);
+        addKeyListener(this);
     }
     
     //Método padrão do JPanel que sempre é chamada ao inicializar
@@ -62,28 +101,84 @@ public class JogoPanel extends JPanel implements Runnable,KeyListener {
             thread = new Thread(this);
             thread.start();
         }
-        addKeyListener(this);
     }
     
     
     //Método que indica ao thread onde começar sua execução
     public void run(){
-        imagem = new BufferedImage(LARGURA, ALTURA, TYPE_INT_RGB);//Define a dimensão e sistema de cores da imagem principal
-        g = (Graphics2D) imagem.getGraphics();//Pega a imagem principal e seta para Graphics, que desenha na tela
-        rodando = true;//Atribui que o thread está rodando
+        /*Com -Dexplorador.rasterizador=true, blocos e sprites são copiados direto nos pixels da imagem principal em
+        vez de passar pelo drawImage (veja BenchmarkRasterizador para comparar os dois caminhos)*/
+        rasterizador = Boolean.getBoolean("explorador.rasterizador");
         ge = new GerenciadorEstado();
+        criaImagem();
+        rodando = true;//Atribui que o thread está rodando
         while(rodando){//Enquanto o thread rodar, vai atualizar e desenhar os elementos gráficos do jogo
+            if(imagem.getWidth()!=largura || imagem.getHeight()!=altura){
+                criaImagem();
+                precisaMostrar = true;
+            }
             atualiza();
-            desenha(g);
-            desenhaNaTela();
-            try{
+            boolean mostra;
+            synchronized(trava){
+                mostra = precisaMostrar;
+                precisaMostrar = false;
+            }
+            /*só desenha quando o estado mudou; caso contrário, o último frame continua valendo. A marca é apagada
+            antes de desenhar, para que uma tecla recebida durante o desenho peça outro frame*/
+            if(ge.consomeMudanca()){
+                desenha(g);
+                mostra = true;
+            }
+            if(mostra) desenhaNaTela();
+            espera(ge.qualTaxaDeAtualizacao());
+        }
+        
+    }
+    
+    /*Espera até a próxima atualização. A 60 por segundo (fases) é um intervalo fixo, como sempre foi; estados mais
+    lentos esperam no máximo o intervalo da sua taxa, ou sem limite com taxa 0, mas acordam na hora com uma tecla*/
+    private void espera(int taxa){
+        try{
+            if(taxa>=60){
                 Thread.sleep(FPS);//Com um intervalo de 60 frames por segundo
+                return;
             }
-            catch(Exception e){
-                e.printStackTrace();//caso algo interrompa o thread, será alertado com exception
+            synchronized(trava){
+                if(!entrada && !precisaMostrar) trava.wait(taxa>0 ? 1000/taxa : 0);
+                entrada = false;
             }
         }
+        catch(Exception e){
+            e.printStackTrace();//caso algo interrompa o thread, será alertado com exception
+        }
+    }
+    
+    //acorda o thread do jogo, que pode estar esperando em um estado lento
+    private void acorda(boolean mostrar){
+        synchronized(trava){
+            entrada = true;
+            if(mostrar) precisaMostrar = true;
+            trava.notifyAll();
+        }
+    }
+    
+    //quando o Swing redesenha o painel (janela exposta ou redimensionada), o último frame é mostrado de novo
+    protected void paintComponent(Graphics g){
+        super.paintComponent(g);
+        acorda(true);
+    }
+    
+    //cria a imagem principal na resolução interna atual, junto com o que desenha nela
+    private void criaImagem(){
+        if(g!=null) g.dispose();
+        if(faixas!=null) faixas.encerra();
+        faixas = null;
         
+        imagem = new BufferedImage(largura, altura, TYPE_INT_RGB);//Define a dimensão e sistema de cores da imagem principal
+        g = (Graphics2D) imagem.getGraphics();//Pega a imagem principal e seta para Graphics, que desenha na tela
+        if(rasterizador) new Rasterizador(imagem).ativa();
+        int quantFaixas = Integer.getInteger("explorador.faixas", 1);
+        if(quantFaixas>1) faixas = new RenderizadorEmFaixas(imagem, ge, quantFaixas, rasterizador);
     }
     
     //Função que atualiza o que será desenhado
@@ -93,23 +188,87 @@ public class JogoPanel extends JPanel implements Runnable,KeyListener {
     
     //Função que define o que será desenhado
     public void desenha(Graphics2D g){
-        ge.desenha(g);
+        if(faixas!=null) faixas.desenha();
+        else ge.desenha(g);
     }
     
-    //Função que desenha no JogoPanel
+    /*Função que desenha no JogoPanel. A imagem é ampliada pela maior escala inteira que cabe no painel, com vizinho
+    mais próximo (sem borrar os pixels), e centralizada com bordas pretas. A imagem principal fica na memória da CPU
+    e muda a cada frame (com o Rasterizador os pixels dela são escritos direto), então o Java2D não guarda uma cópia
+    dela na placa de vídeo, e ampliá-la direto seria feito pela CPU. Por isso ela é copiada, sem ampliar, para uma
+    VolatileImage do mesmo tamanho, e é essa que é ampliada: no OpenGL, XRender ou Direct3D só os pixels da
+    resolução interna sobem para a placa de vídeo e a ampliação acontece lá; no pipeline de software as duas
+    cópias são feitas pela CPU*/
     public void desenhaNaTela(){
-        Graphics g2 = this.getGraphics();
-        g2.drawImage(imagem, 0, 0, LARGURA*ESCALA, ALTURA*ESCALA, null);
+        Graphics2D g2 = (Graphics2D) this.getGraphics();
+        if(g2==null) return;//o painel não está na tela (por exemplo, trocando para tela cheia)
+        int escala = Math.max(1, Math.min(getWidth()/imagem.getWidth(), getHeight()/imagem.getHeight()));
+        int l = imagem.getWidth()*escala, a = imagem.getHeight()*escala;
+        int x = (getWidth()-l)/2, y = (getHeight()-a)/2;
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        do{
+            if(!preparaCopia()){
+                g2.drawImage(imagem, x, y, l, a, null);
+                break;
+            }
+            Graphics2D gc = copia.createGraphics();
+            gc.drawImage(imagem, 0, 0, null);
+            gc.dispose();
+            g2.drawImage(copia, x, y, l, a, null);
+        }while(copia.contentsLost());
         g2.dispose();
     }
     
+    /*deixa a cópia na placa de vídeo pronta para receber a imagem principal, recriando-a quando a resolução
+    interna ou a tela mudam. Retorna false quando ela não pode ser criada, e então a imagem é ampliada direto*/
+    private boolean preparaCopia(){
+        if(copia==null || copia.getWidth()!=imagem.getWidth() || copia.getHeight()!=imagem.getHeight()
+                || copia.validate(getGraphicsConfiguration())==VolatileImage.IMAGE_INCOMPATIBLE){
+            if(copia!=null) copia.flush();
+            copia = createVolatileImage(imagem.getWidth(), imagem.getHeight());
+        }
+        return copia!=null;
+    }
+    
+    /*Alterna entre janela e tela cheia sem bordas. Precisa ser chamado na thread do Swing; a janela é recriada sem
+    a decoração, então o painel some da tela por um instante*/
+    public void alternaTelaCheia(){
+        Window w = SwingUtilities.getWindowAncestor(this);
+        if(!(w instanceof Frame)) return;
+        Frame janela = (Frame) w;
+        GraphicsDevice gd = janela.getGraphicsConfiguration().getDevice();
+        telaCheia = !telaCheia;
+        janela.dispose();
+        janela.setUndecorated(telaCheia);
+        if(telaCheia && gd.isFullScreenSupported()){
+            gd.setFullScreenWindow(janela);
+        }
+        else{
+            if(gd.getFullScreenWindow()==janela) gd.setFullScreenWindow(null);
+            if(telaCheia) janela.setExtendedState(Frame.MAXIMIZED_BOTH);
+            else{
+                janela.setExtendedState(Frame.NORMAL);
+                janela.pack();
+                janela.setLocationRelativeTo(null);
+            }
+        }
+        janela.setVisible(true);
+        requestFocusInWindow();
+    }
+    
     //Sistema de entrada através do teclado
     public void keyPressed(KeyEvent k){
+        if(k.getKeyCode()==KeyEvent.VK_F11){//F11 alterna a tela cheia
+            alternaTelaCheia();
+            return;
+        }
         ge.keyPressed(k.getKeyCode());
+        acorda(false);
         
     }
     public void keyReleased(KeyEvent k){
         ge.keyReleased(k.getKeyCode());
+        acorda(false);
     }
     public void keyTyped(KeyEvent k){
         
@@ -0,0 +1,146 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.ArmazenamentoDeBlocos;
+import ElementosGraficos.GeradorDeTerreno;
+import ElementosGraficos.MapaDeBlocos;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class RelatorioDeMemoria {
+    /*Compara as formas de guardar os blocos (veja ArmazenamentoDeBlocos) no level1-1 e em fases geradas pelo
+    GeradorDeTerreno: a memória ocupada, calculada pelo tamanho dos vetores (a diferença no heap oscila demais com
+    o coletor para mapas pequenos), e o tempo de acesso a um bloco sorteado e a uma linha inteira em sequência (como
+    no desenho). Antes de medir, confere se todas as formas guardam exatamente os mesmos blocos, e depois confere
+    se continuam iguais a uma cópia do mapa depois das mesmas mudanças sorteadas (o muda do rle refaz a linha e
+    desloca as seguintes, então é o caminho mais arriscado)*/
+
+    private static final String[] FORMAS = {ArmazenamentoDeBlocos.MATRIZ, ArmazenamentoDeBlocos.COMPACTO, ArmazenamentoDeBlocos.RLE};
+    private static final int ACESSOS = 2000000;
+    //mudanças sorteadas aplicadas em todas as formas e na cópia do mapa
+    private static final int MUDANCAS = 20000;
+
+    public static void main(String[] args) throws IOException{
+        relatorio("level1-1", MapaDeBlocos.leMapa("/Mapas/level1-1.mapa"));
+        relatorio("gerada 10000x8", new GeradorDeTerreno(41, 8, 0.3).geraMapa(10000));
+        relatorio("gerada 163000x8", new GeradorDeTerreno(42, 8, 0.3).geraMapa(163000));
+        relatorio("gerada 50000x40", new GeradorDeTerreno(43, 40, 0.6).geraMapa(50000));
+    }
+
+    private static void relatorio(String nome, int[][] mapa){
+        int linhas = mapa.length, colunas = mapa[0].length;
+        System.out.printf("%s (%d blocos)%n", nome, (long)linhas*colunas);
+        System.out.printf("  %-9s %12s %10s %11s %12s%n", "forma", "memoria", "por bloco", "sorteado", "sequencial");
+        long matriz = 0;
+        for(int f=0;f<FORMAS.length;f++){
+            ArmazenamentoDeBlocos a = ArmazenamentoDeBlocos.cria(FORMAS[f], mapa);
+
+            for(int l=0;l<linhas;l++){
+                for(int c=0;c<colunas;c++){
+                    if(a.valor(l, c)!=mapa[l][c]){
+                        System.out.println("  "+FORMAS[f]+" guardou um bloco errado na linha "+l+" e coluna "+c);
+                        System.exit(1);
+                    }
+                }
+            }
+
+            long bytes = a.bytesUsados();
+            if(f==0) matriz = bytes;
+            System.out.printf("  %-9s %12s %10.2f %8.1f ns %9.2f ns   (%.0f%% da matriz)%n", FORMAS[f], kb(bytes),
+                    bytes/(double)((long)linhas*colunas), sorteado(a), sequencial(a), 100.0*bytes/matriz);
+        }
+        confereMudancas(mapa);
+        System.out.println();
+    }
+
+    /*aplica as mesmas mudanças sorteadas em todas as formas e em uma cópia do mapa, conferindo cada bloco mudado na
+    hora e o mapa inteiro no fim. Os números novos são tirados do próprio mapa, então o compacto não muda de tamanho
+    de elemento, e metade das mudanças cai ao lado da anterior, para juntar e separar trechos do rle*/
+    private static void confereMudancas(int[][] mapa){
+        int linhas = mapa.length, colunas = mapa[0].length;
+        int[][] copia = new int[linhas][];
+        for(int l=0;l<linhas;l++) copia[l] = mapa[l].clone();
+        ArmazenamentoDeBlocos[] formas = new ArmazenamentoDeBlocos[FORMAS.length];
+        for(int f=0;f<FORMAS.length;f++) formas[f] = ArmazenamentoDeBlocos.cria(FORMAS[f], mapa);
+
+        Random r = new Random(11);
+        int l = 0, c = 0;
+        for(int i=0;i<MUDANCAS;i++){
+            if(i%2==0){
+                l = r.nextInt(linhas);
+                c = r.nextInt(colunas);
+            }
+            else c = Math.min(colunas-1, c+1);
+            int valor = mapa[r.nextInt(linhas)][r.nextInt(colunas)];
+            copia[l][c] = valor;
+            for(int f=0;f<formas.length;f++){
+                formas[f].muda(l, c, valor);
+                if(formas[f].valor(l, c)!=valor) erroNaMudanca(FORMAS[f], l, c);
+            }
+        }
+        for(int f=0;f<formas.length;f++){
+            for(l=0;l<linhas;l++){
+                for(c=0;c<colunas;c++){
+                    if(formas[f].valor(l, c)!=copia[l][c]) erroNaMudanca(FORMAS[f], l, c);
+                }
+            }
+        }
+        System.out.printf("  %d mudancas sorteadas: as tres formas continuam iguais a copia do mapa%n", MUDANCAS);
+    }
+
+    private static void erroNaMudanca(String forma, int l, int c){
+        System.out.println("  "+forma+" ficou com um bloco errado na linha "+l+" e coluna "+c+" depois das mudancas");
+        System.exit(1);
+    }
+
+    //tempo médio de acesso a blocos em posições sorteadas
+    private static double sorteado(ArmazenamentoDeBlocos a){
+        int linhas = a.qualNumDeLinhas(), colunas = a.qualNumDeColunas();
+        Random r = new Random(7);
+        int[] ls = new int[4096], cs = new int[4096];
+        for(int i=0;i<ls.length;i++){
+            ls[i] = r.nextInt(linhas);
+            cs[i] = r.nextInt(colunas);
+        }
+        long soma = 0, inicio = 0;
+        for(int rodada=0;rodada<2;rodada++){
+            inicio = System.nanoTime();
+            for(int i=0;i<ACESSOS;i++) soma += a.valor(ls[i&4095], cs[i&4095]);
+        }
+        double tempo = (System.nanoTime()-inicio)/(double)ACESSOS;
+        if(soma==42) System.out.print("");
+        return tempo;
+    }
+
+    //tempo médio por bloco lendo linhas inteiras da esquerda para a direita
+    private static double sequencial(ArmazenamentoDeBlocos a){
+        int linhas = a.qualNumDeLinhas(), colunas = a.qualNumDeColunas();
+        long soma = 0, inicio = 0, lidos = 0;
+        for(int rodada=0;rodada<2;rodada++){
+            lidos = 0;
+            inicio = System.nanoTime();
+            while(lidos<ACESSOS){
+                for(int l=0;l<linhas;l++){
+                    for(int c=0;c<colunas;c++) soma += a.valor(l, c);
+                }
+                lidos += (long)linhas*colunas;
+            }
+        }
+        double tempo = (System.nanoTime()-inicio)/(double)lidos;
+        if(soma==42) System.out.print("");
+        return tempo;
+    }
+
+    private static String kb(long bytes){
+        return String.format("%.1f KB", bytes/1024.0);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.Rasterizador;
+import GerenciadorDeEstados.GerenciadorEstado;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class RenderizadorEmFaixas {
+    /*Desenha o frame em várias threads: a imagem principal é dividida em faixas horizontais, e cada faixa tem o seu
+    próprio Graphics2D recortado (e o seu Rasterizador, caso esteja ligado). Todas as faixas desenham o estado
+    inteiro na mesma ordem de camadas, mas só os pixels dentro do recorte são escritos, então o resultado é igual ao
+    desenho em uma thread só. A thread do jogo desenha a primeira faixa e espera as outras antes de mostrar o frame.
+    Para isso o desenho não pode mudar o estado do jogo; o que depende do tempo (como o pisca) é decidido no
+    atualiza*/
+    
+    private final GerenciadorEstado ge;
+    private final int quantidade;
+    private final Graphics2D[] graficos;
+    private final Rasterizador[] rasterizadores;
+    //os trabalhadores esperam no início até o frame começar, e no fim até todas as faixas terminarem
+    private final CyclicBarrier inicio, fim;
+    private final Thread[] trabalhadores;
+    private volatile boolean rodando;
+    
+    //cria as faixas sobre a imagem; usaRasterizador liga um Rasterizador recortado para cada faixa
+    public RenderizadorEmFaixas(BufferedImage imagem, GerenciadorEstado ge, int quantidade, boolean usaRasterizador){
+        this.ge = ge;
+        this.quantidade = quantidade = Math.max(1, Math.min(quantidade, imagem.getHeight()));
+        graficos = new Graphics2D[quantidade];
+        rasterizadores = new Rasterizador[quantidade];
+        
+        int largura = imagem.getWidth(), altura = imagem.getHeight();
+        for(int i=0;i<quantidade;i++){
+            //as faixas dividem a altura o mais igualmente possível
+            int y0 = altura*i/quantidade, y1 = altura*(i+1)/quantidade;
+            graficos[i] = imagem.createGraphics();
+            graficos[i].clipRect(0, y0, largura, y1-y0);
+            if(usaRasterizador){
+                rasterizadores[i] = new Rasterizador(imagem);
+                rasterizadores[i].mudarRecortePara(0, y0, largura, y1-y0);
+            }
+        }
+        
+        inicio = new CyclicBarrier(quantidade);
+        fim = new CyclicBarrier(quantidade);
+        rodando = true;
+        trabalhadores = new Thread[quantidade-1];
+        for(int i=1;i<quantidade;i++){
+            final int faixa = i;
+            trabalhadores[i-1] = new Thread(new Runnable(){
+                public void run(){
+                    trabalha(faixa);
+                }
+            }, "Faixa-"+i);
+            trabalhadores[i-1].setDaemon(true);
+            trabalhadores[i-1].start();
+        }
+    }
+    
+    public int quantidadeDeFaixas(){return quantidade;}
+    
+    //desenha o frame em todas as faixas e só retorna quando todas terminarem
+    public void desenha(){
+        espera(inicio);
+        desenhaFaixa(0);
+        espera(fim);
+    }
+    
+    //para os trabalhadores e libera os Graphics2D das faixas
+    public void encerra(){
+        rodando = false;
+        for(int i=0;i<trabalhadores.length;i++){
+            trabalhadores[i].interrupt();
+        }
+        for(int i=0;i<quantidade;i++){
+            graficos[i].dispose();
+        }
+    }
+    
+    private void trabalha(int faixa){
+        while(rodando){
+            if(!espera(inicio)) return;
+            desenhaFaixa(faixa);
+            if(!espera(fim)) return;
+        }
+    }
+    
+    private void desenhaFaixa(int faixa){
+        Rasterizador anterior = Rasterizador.atual();
+        if(rasterizadores[faixa]!=null) rasterizadores[faixa].ativa();
+        else Rasterizador.desativa();
+        try{
+            ge.desenha(graficos[faixa]);
+        }
+        catch(RuntimeException e){
+            //um erro em uma faixa não pode deixar as outras esperando para sempre
+            e.printStackTrace();
+        }
+        if(anterior!=null) anterior.ativa();
+        else Rasterizador.desativa();
+    }
+    
+    //espera na barreira e retorna false caso o renderizador tenha sido encerrado
+    private boolean espera(CyclicBarrier barreira){
+        try{
+            barreira.await();
+            return true;
+        }
+        catch(InterruptedException | BrokenBarrierException e){
+            return false;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.FundoParallax;
+import ElementosGraficos.MapaDeBlocos;
+import ObjetosDoMapa.LoboCinza;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import java.awt.image.VolatileImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class SondaDePipeline {
+    /*Escolhe o pipeline do Java2D (software, XRender, OpenGL, Direct3D) antes de a janela ser criada. O pipeline só
+    pode ser escolhido por propriedades do sistema antes do AWT iniciar, então cada candidato é medido em uma JVM
+    separada, que desenha por um instante um frame como o do jogo (fundos, blocos e lobos na imagem principal, e a
+    ampliação para a tela). O mais rápido é guardado em ~/.explorador/pipeline.properties junto com os números
+    medidos e usado nas próximas vezes, assim a medição só roda de novo quando a máquina ou o Java mudam. Como ela
+    leva alguns segundos, roda em segundo plano enquanto o jogo começa com o pipeline padrão.
+
+    -Dexplorador.pipeline=<nome> força um pipeline (ou "padrao" para não mexer em nada), e "sondar" mede de novo
+    (também em segundo plano, para a próxima vez).
+    -Dexplorador.relatorioPipeline=true mostra no início do jogo o pipeline escolhido. Rodar esta classe
+    diretamente (alvo sonda-pipeline) mede e mostra o relatório*/
+
+    //tempo de cada medição, em milissegundos, depois do aquecimento
+    private static final int AQUECIMENTO = 400, MEDICAO = 1000;
+    //tempo máximo que uma JVM de medição pode levar antes de ser descartada
+    private static final int LIMITE = 15000;
+
+    private static final String PADRAO = "padrao";
+
+    /*chamado pelo Jogo.main antes de qualquer coisa do AWT. Nunca espera pela medição: sem um resultado salvo para
+    esta máquina (ou com "sondar"), o jogo começa com o que já havia (ou o padrão) e a medição roda em segundo
+    plano, valendo a partir da próxima vez*/
+    public static void escolhe(){
+        if(GraphicsEnvironment.isHeadless()) return;
+        String escolha = System.getProperty("explorador.pipeline", "auto");
+        boolean medindo = false;
+
+        if(escolha.equals("auto") || escolha.equals("sondar")){
+            Properties salvo = carrega();
+            boolean valeAqui = salvo!=null && idDaMaquina().equals(salvo.getProperty("maquina"));
+            if(!valeAqui || escolha.equals("sondar")){
+                sondaEmSegundoPlano();
+                medindo = true;
+            }
+            escolha = valeAqui ? salvo.getProperty("pipeline", PADRAO) : PADRAO;
+        }
+
+        aplica(escolha);
+        if(Boolean.getBoolean("explorador.relatorioPipeline")){
+            System.out.println("Pipeline do Java2D: "+escolha+(medindo ? " (medindo em segundo plano para a próxima vez)" : ""));
+        }
+    }
+
+    /*cada candidato leva uma JVM e mais de um segundo, então a medição roda em uma thread que não impede o jogo de
+    fechar. As JVMs de medição disputam a máquina com o jogo, o que pode baixar um pouco os números medidos; se
+    o jogo fechar antes, a que estiver rodando termina sozinha ao fim da sua medição*/
+    private static void sondaEmSegundoPlano(){
+        Thread t = new Thread(new Runnable(){
+            public void run(){
+                sonda(false);
+            }
+        }, "Sonda-pipeline");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    //mede todos os candidatos, guarda o resultado e retorna o mais rápido
+    private static String sonda(boolean relatorio){
+        String[] candidatos = candidatos();
+        Properties p = new Properties();
+        p.setProperty("maquina", idDaMaquina());
+
+        String melhor = PADRAO;
+        double melhorResultado = -1;
+        for(int i=0;i<candidatos.length;i++){
+            double fps = mede(candidatos[i]);
+            p.setProperty("resultado."+candidatos[i], fps<0 ? "falhou" : String.format("%.1f", fps));
+            if(relatorio) System.out.printf("%-10s %s%n", candidatos[i], fps<0 ? "falhou" : String.format("%.1f frames/s", fps));
+            if(fps>melhorResultado){
+                melhorResultado = fps;
+                melhor = candidatos[i];
+            }
+        }
+        p.setProperty("pipeline", melhor);
+        salva(p);
+        return melhor;
+    }
+
+    //pipelines que fazem sentido no sistema atual
+    private static String[] candidatos(){
+        String so = System.getProperty("os.name", "").toLowerCase();
+        if(so.contains("win")) return new String[]{"software", "d3d", "opengl"};
+        if(so.contains("mac")) return new String[]{PADRAO};
+        return new String[]{"software", "xrender", "opengl"};
+    }
+
+    //propriedades do sistema que ligam cada pipeline
+    private static String[] propriedades(String pipeline){
+        switch(pipeline){
+            case "software": return new String[]{"sun.java2d.xrender=false", "sun.java2d.opengl=false", "sun.java2d.d3d=false", "sun.java2d.noddraw=true"};
+            case "xrender": return new String[]{"sun.java2d.xrender=true", "sun.java2d.opengl=false"};
+            case "opengl": return new String[]{"sun.java2d.opengl=true", "sun.java2d.d3d=false"};
+            case "d3d": return new String[]{"sun.java2d.d3d=true", "sun.java2d.opengl=false"};
+            default: return new String[0];
+        }
+    }
+
+    private static void aplica(String pipeline){
+        String[] props = propriedades(pipeline);
+        for(int i=0;i<props.length;i++){
+            int igual = props[i].indexOf('=');
+            System.setProperty(props[i].substring(0, igual), props[i].substring(igual+1));
+        }
+    }
+
+    //roda a medição de um pipeline em outra JVM e retorna os frames por segundo, ou -1 se falhou
+    private static double mede(String pipeline){
+        List<String> comando = new ArrayList<>();
+        comando.add(System.getProperty("java.home")+File.separator+"bin"+File.separator+"java");
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        String[] props = propriedades(pipeline);
+        for(int i=0;i<props.length;i++){
+            comando.add("-D"+props[i]);
+        }
+        comando.add(SondaDePipeline.class.getName());
+        comando.add("--medir");
+
+        Process processo = null;
+        try{
+            processo = new ProcessBuilder(comando).redirectErrorStream(true).start();
+            //lê a saída em outra thread para o processo não travar com o buffer cheio
+            final InputStream saida = processo.getInputStream();
+            final StringBuilder texto = new StringBuilder();
+            Thread leitor = new Thread(new Runnable(){
+                public void run(){
+                    try{
+                        BufferedReader br = new BufferedReader(new InputStreamReader(saida));
+                        String linha;
+                        while((linha = br.readLine())!=null){
+                            synchronized(texto){ texto.append(linha).append('\n'); }
+                        }
+                    }
+                    catch(IOException e){}
+                }
+            });
+            leitor.setDaemon(true);
+            leitor.start();
+
+            long fim = System.currentTimeMillis()+LIMITE;
+            while(true){
+                try{
+                    if(processo.exitValue()!=0) return -1;
+                    break;
+                }
+                catch(IllegalThreadStateException e){
+                    if(System.currentTimeMillis()>fim) return -1;
+                    Thread.sleep(50);
+                }
+            }
+            leitor.join(1000);
+            synchronized(texto){
+                int i = texto.indexOf("RESULTADO ");
+                if(i<0) return -1;
+                int f = texto.indexOf("\n", i);
+                return Double.parseDouble(texto.substring(i+10, f<0 ? texto.length() : f).trim());
+            }
+        }
+        catch(Exception e){
+            e.printStackTrace();
+            return -1;
+        }
+        finally{
+            if(processo!=null) processo.destroy();
+        }
+    }
+
+    //identifica a máquina e o Java, para refazer a medição quando algum deles mudar
+    private static String idDaMaquina(){
+        String nome;
+        try{
+            nome = InetAddress.getLocalHost().getHostName();
+        }
+        catch(UnknownHostException e){
+            //sem resolver o próprio nome, fica com o das variáveis de ambiente, quando existirem
+            nome = System.getenv("HOSTNAME");
+            if(nome==null) nome = System.getenv("COMPUTERNAME");
+        }
+        return (nome==null ? "" : nome)+"|"+System.getProperty("os.name")+"|"+System.getProperty("os.arch")+"|"
+                +System.getProperty("java.version")+"|"+Runtime.getRuntime().availableProcessors();
+    }
+
+    private static File arquivo(){
+        return new File(System.getProperty("user.home"), ".explorador"+File.separator+"pipeline.properties");
+    }
+
+    private static Properties carrega(){
+        File f = arquivo();
+        if(!f.isFile()) return null;
+        try(InputStream in = new FileInputStream(f)){
+            Properties p = new Properties();
+            p.load(in);
+            return p;
+        }
+        catch(IOException e){
+            return null;
+        }
+    }
+
+    private static void salva(Properties p){
+        File f = arquivo();
+        f.getParentFile().mkdirs();
+        try(OutputStream out = new FileOutputStream(f)){
+            p.store(out, "Pipeline do Java2D escolhido pela SondaDePipeline");
+        }
+        catch(IOException e){
+            //sem onde salvar, a medição só roda de novo na próxima vez
+            e.printStackTrace();
+        }
+    }
+
+    /*Sem argumentos, mede todos os pipelines, salva a escolha e mostra o relatório. Com --medir, é a JVM de medição
+    de um pipeline só, e escreve RESULTADO seguido dos frames por segundo*/
+    public static void main(String[] args){
+        if(args.length>0 && args[0].equals("--medir")){
+            System.out.println("RESULTADO "+medeFrame());
+            System.exit(0);
+        }
+        if(GraphicsEnvironment.isHeadless()){
+            System.out.println("Sem tela disponível; o pipeline padrão será usado");
+            return;
+        }
+        System.out.println("Máquina: "+idDaMaquina());
+        String melhor = sonda(true);
+        System.out.println("Escolhido: "+melhor+" (salvo em "+arquivo()+")");
+    }
+
+    //desenha frames como os do jogo pelo tempo de medição e retorna quantos foram desenhados por segundo
+    private static double medeFrame(){
+        int largura = JogoPanel.qualLargura(), altura = JogoPanel.qualAltura();
+        BufferedImage imagem = new BufferedImage(largura, altura, TYPE_INT_RGB);
+        Graphics2D g = imagem.createGraphics();
+
+        //a tela é representada por uma imagem da placa de vídeo no tamanho da janela
+        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        VolatileImage tela = gc.createCompatibleVolatileImage(largura*JogoPanel.ESCALA, altura*JogoPanel.ESCALA);
+        //como no JogoPanel.desenhaNaTela, a imagem principal é copiada sem ampliar e a cópia é que é ampliada
+        VolatileImage copia = gc.createCompatibleVolatileImage(largura, altura);
+
+        FundoParallax fundo = new FundoParallax();
+        fundo.adicionaCamada("/Imagens/Ceu.gif", 0).mudarMovimentoAutomatico(-0.2, 0);
+        fundo.adicionaCamada("/Imagens/Terra.gif", 0.1);
+        MapaDeBlocos mb = new MapaDeBlocos(30);
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        mb.carregarMapa("/Mapas/level1-1.mapa");
+        mb.mudarVelocidadeDeTela(1);
+        Random r = new Random(36);
+        LoboCinza[] lobos = new LoboCinza[30];
+        for(int i=0;i<lobos.length;i++){
+            lobos[i] = new LoboCinza(mb);
+            lobos[i].mudarPosicaoPara(r.nextInt(largura), r.nextInt(altura));
+        }
+
+        long inicio = System.nanoTime();
+        long fimAquecimento = inicio+AQUECIMENTO*1000000L;
+        long fim = fimAquecimento+MEDICAO*1000000L;
+        int frames = 0;
+        for(int i=0;;i++){
+            long agora = System.nanoTime();
+            if(agora>=fim) break;
+            if(agora>=fimAquecimento) frames++;
+
+            //a câmera anda pelo mapa para os fundos e blocos mudarem a cada frame
+            mb.mudarPosicaoPara(-(i%600), 0);
+            fundo.mudarPosicaoPara(mb.posX(), mb.posY());
+            fundo.atualiza();
+            fundo.desenha(g);
+            mb.desenha(g);
+            for(int j=0;j<lobos.length;j++){
+                lobos[j].desenha(g);
+            }
+
+            if(tela.validate(gc)==VolatileImage.IMAGE_INCOMPATIBLE){
+                tela = gc.createCompatibleVolatileImage(largura*JogoPanel.ESCALA, altura*JogoPanel.ESCALA);
+            }
+            if(copia.validate(gc)==VolatileImage.IMAGE_INCOMPATIBLE){
+                copia = gc.createCompatibleVolatileImage(largura, altura);
+            }
+            Graphics2D gc2 = copia.createGraphics();
+            gc2.drawImage(imagem, 0, 0, null);
+            gc2.dispose();
+            Graphics2D gt = tela.createGraphics();
+            gt.drawImage(copia, 0, 0, tela.getWidth(), tela.getHeight(), null);
+            gt.dispose();
+            Toolkit.getDefaultToolkit().sync();
+        }
+        g.dispose();
+        return frames*1000.0/MEDICAO;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.ArmazenamentoDeBlocos;
+import ElementosGraficos.MapaDeBlocos;
+import GerenciadorDeEstados.GerenciadorEstado;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class VerificaAlocacao {
+    /*Roda o level 1 sem janela por alguns ticks (atualiza + desenha, como o JogoPanel) e mede quantos bytes
+    foram alocados por tick. Depois muda blocos do mapa do level 1 em cada forma de ArmazenamentoDeBlocos, como
+    uma flecha quebrando um bloco, e mede os bytes por mudança. Termina com erro caso passe do orçamento, assim dá
+    pra rodar pelo ant (alvo verifica-alocacao) e perceber quando algum caminho do jogo voltou a gerar lixo a cada
+    frame*/
+
+    //ticks rodados antes de medir, para carregar as classes e encher os caches
+    private static final int AQUECIMENTO = 600;
+    //mudanças de bloco medidas em cada forma de armazenamento (metade quebra, metade refaz)
+    private static final int MUDANCAS = 20000;
+    private static final String[] FORMAS = {ArmazenamentoDeBlocos.MATRIZ, ArmazenamentoDeBlocos.COMPACTO, ArmazenamentoDeBlocos.RLE};
+
+    private static com.sun.management.ThreadMXBean mx;
+    private static long idThread;
+    //bytes alocados pela atualização e pelo desenho desde o fim do aquecimento
+    private static long bytesAtualiza, bytesDesenha;
+
+    public static void main(String[] args){
+        System.setProperty("java.awt.headless", "true");
+
+        /*número de ticks medidos e orçamentos de bytes por tick, que podem ser mudados pela linha de comando.
+        A atualização só pode alocar em eventos raros (um inimigo morrendo, uma troca de estado); o desenho tem um
+        orçamento maior porque o próprio Java2D cria alguns retângulos de recorte a cada drawImage*/
+        int ticks = args.length>0 ? Integer.parseInt(args[0]) : 3000;
+        long orcamentoAtualiza = args.length>1 ? Long.parseLong(args[1]) : 8;
+        long orcamentoDesenha = args.length>2 ? Long.parseLong(args[2]) : 1024;
+        long orcamentoMudanca = args.length>3 ? Long.parseLong(args[3]) : 8;
+
+        mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        idThread = Thread.currentThread().getId();
+
+        BufferedImage imagem = new BufferedImage(JogoPanel.qualLargura(), JogoPanel.qualAltura(), TYPE_INT_RGB);
+        Graphics2D g = (Graphics2D) imagem.getGraphics();
+        GerenciadorEstado ge = new GerenciadorEstado();
+        ge.mudarEstado(GerenciadorEstado.ESTADO_LEVEL_1);
+
+        for(int i=0;i<AQUECIMENTO;i++){
+            tick(ge, g, i);
+        }
+
+        bytesAtualiza = bytesDesenha = 0;
+        for(int i=0;i<ticks;i++){
+            tick(ge, g, AQUECIMENTO+i);
+        }
+        g.dispose();
+
+        double atualizaPorTick = (double)bytesAtualiza/ticks;
+        double desenhaPorTick = (double)bytesDesenha/ticks;
+        System.out.printf("Alocacao em %d ticks: atualiza %.1f bytes/tick (orcamento %d), desenha %.1f bytes/tick (orcamento %d)%n",
+                ticks, atualizaPorTick, orcamentoAtualiza, desenhaPorTick, orcamentoDesenha);
+        if(atualizaPorTick>orcamentoAtualiza || desenhaPorTick>orcamentoDesenha){
+            System.out.println("FALHOU: alocacao por tick acima do orcamento");
+            System.exit(1);
+        }
+
+        int[][] mapa;
+        try{
+            mapa = MapaDeBlocos.leMapa("/Mapas/level1-1.mapa");
+        }
+        catch(IOException e){
+            throw new IllegalStateException("Não foi possível ler o mapa do level 1", e);
+        }
+        boolean acima = false;
+        for(int f=0;f<FORMAS.length;f++){
+            ArmazenamentoDeBlocos a = ArmazenamentoDeBlocos.cria(FORMAS[f], mapa);
+            //a primeira rodada só aquece o JIT e deixa os vetores crescerem
+            mudaBlocos(a);
+            long antes = mx.getThreadAllocatedBytes(idThread);
+            mudaBlocos(a);
+            double porMudanca = (double)(mx.getThreadAllocatedBytes(idThread)-antes)/MUDANCAS;
+            System.out.printf("Mudanca de bloco (%s): %.1f bytes/mudanca (orcamento %d)%n", a.qualNome(), porMudanca, orcamentoMudanca);
+            if(porMudanca>orcamentoMudanca) acima = true;
+        }
+        if(acima){
+            System.out.println("FALHOU: alocacao por mudanca de bloco acima do orcamento");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    //quebra um bloco espalhado pelo mapa e o refaz em seguida, MUDANCAS/2 vezes
+    private static void mudaBlocos(ArmazenamentoDeBlocos a){
+        int linhas = a.qualNumDeLinhas(), colunas = a.qualNumDeColunas();
+        for(int i=0;i<MUDANCAS/2;i++){
+            int l = (i*31)%linhas, c = (int)((i*7919L)%colunas);
+            int valor = a.valor(l, c);
+            a.muda(l, c, valor==0 ? 1 : 0);
+            a.muda(l, c, valor);
+        }
+    }
+
+    //um tick do jogo, andando para a direita e pulando de vez em quando para passar por boa parte da fase
+    private static void tick(GerenciadorEstado ge, Graphics2D g, int i){
+        if(i==0) ge.keyPressed(KeyEvent.VK_RIGHT);
+        if(i%90==0) ge.keyPressed(KeyEvent.VK_UP);
+        if(i%90==20) ge.keyReleased(KeyEvent.VK_UP);
+        long antes = mx.getThreadAllocatedBytes(idThread);
+        ge.atualiza();
+        long meio = mx.getThreadAllocatedBytes(idThread);
+        ge.desenha(g);
+        long depois = mx.getThreadAllocatedBytes(idThread);
+        bytesAtualiza += meio-antes;
+        bytesDesenha += depois-meio;
+    }
+}
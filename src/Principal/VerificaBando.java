@@ -0,0 +1,128 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package Principal;
+
+import ElementosGraficos.GeradorDeTerreno;
+import ElementosGraficos.MapaDeBlocos;
+import ObjetosDoMapa.BandoDeInimigos;
+import ObjetosDoMapa.Flecha;
+import ObjetosDoMapa.Inimigo;
+import ObjetosDoMapa.LoboCinza;
+import ObjetosDoMapa.LoboVermelho;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ *
+ * @author Gabriel
+ */
+public class VerificaBando {
+    /*Confere que o BandoDeInimigos (explorador.bando) se comporta como os objetos Inimigo: os mesmos lobos, cinzas e
+    vermelhos, são criados como objetos e copiados para um bando, e os dois caminhos andam lado a lado por alguns
+    ticks em uma fase gerada, com lobos começando no chão e no ar. A cada tick as posições são comparadas, e
+    flechas atiradas perto dos lobos são testadas contra os dois (checaColisaoVarrida de um lado e
+    BandoDeInimigos.tempoDeImpacto do outro), que precisam concordar. Os lobos não são atingidos: só a varredura
+    das flechas é conferida. Termina com erro na primeira diferença, assim dá pra rodar pelo ant (alvo verifica-bando)*/
+
+    //a cada quantos ticks uma flecha é atirada perto de um lobo
+    private static final int TICKS_POR_FLECHA = 5;
+
+    public static void main(String[] args){
+        System.setProperty("java.awt.headless", "true");
+
+        //número de lobos, colunas da fase, ticks e semente, que podem ser mudados pela linha de comando
+        int lobos = args.length>0 ? Integer.parseInt(args[0]) : 400;
+        int colunas = args.length>1 ? Integer.parseInt(args[1]) : 2000;
+        int ticks = args.length>2 ? Integer.parseInt(args[2]) : 3000;
+        long semente = args.length>3 ? Long.parseLong(args[3]) : 31;
+
+        MapaDeBlocos mb = new MapaDeBlocos(30);
+        mb.carregarBlocos("/Imagens/blocos.gif");
+        mb.carregarMapa(new GeradorDeTerreno(semente, 12, 0.5).geraMapa(colunas));
+        int tamanho = mb.qualTamanhoDoBloco(), linhas = mb.qualNumDeLinhas();
+
+        //os lobos são copiados para o bando na hora em que entram, e depois cada caminho anda sozinho
+        Random r = new Random(semente);
+        ArrayList<Inimigo> objetos = new ArrayList<>();
+        BandoDeInimigos bando = new BandoDeInimigos(mb, lobos);
+        while(objetos.size()<lobos){
+            int c = 3+r.nextInt(colunas-6);
+            Inimigo lobo = objetos.size()%3==0 ? new LoboVermelho(mb) : new LoboCinza(mb);
+            if(objetos.size()%4==0){
+                //no ar, para cair até o chão
+                lobo.mudarPosicaoPara(c*tamanho+tamanho/2, tamanho+r.nextInt(2*tamanho));
+            }
+            else{
+                int chao = -1;
+                for(int l=0;l<linhas-1 && chao<0;l++){
+                    if(!mb.estaBloqueado(l, c) && mb.estaBloqueado(l+1, c)) chao = l;
+                }
+                if(chao<0) continue;
+                lobo.mudarPosicaoPara(c*tamanho+tamanho/2, (chao+1)*tamanho-10);
+            }
+            if(r.nextBoolean()){
+                lobo.Direita(false);
+                lobo.Esquerda(true);
+            }
+            objetos.add(lobo);
+            bando.adiciona(lobo);
+        }
+
+        ArrayList<Flecha> flechas = new ArrayList<>();
+        long impactos = 0;
+        for(int t=0;t<ticks;t++){
+            for(int i=0;i<objetos.size();i++) objetos.get(i).atualiza();
+            bando.atualiza();
+
+            for(int i=0;i<objetos.size();i++){
+                Inimigo in = objetos.get(i);
+                if(in.posX()!=bando.posX(i) || in.posY()!=bando.posY(i)){
+                    falha(String.format("tick %d, lobo %d: objeto em (%d, %d), bando em (%d, %d)", t, i,
+                            in.posX(), in.posY(), bando.posX(i), bando.posY(i)));
+                }
+            }
+
+            //uma flecha nova sai um pouco atrás de um lobo, na altura dele, alternando o lado
+            if(t%TICKS_POR_FLECHA==0){
+                Inimigo alvo = objetos.get(r.nextInt(objetos.size()));
+                boolean paraDireita = r.nextBoolean();
+                Flecha f = new Flecha(mb, paraDireita);
+                f.mudarPosicaoPara(alvo.posX()+(paraDireita ? -40 : 40), alvo.posY()+r.nextInt(11)-5);
+                flechas.add(f);
+            }
+            for(int j=0;j<flechas.size();j++){
+                Flecha f = flechas.get(j);
+                f.atualiza();
+                if(f.deveRemover() || f.hit()){
+                    flechas.set(j, flechas.get(flechas.size()-1));
+                    flechas.remove(flechas.size()-1);
+                    j--;
+                    continue;
+                }
+                for(int i=0;i<objetos.size();i++){
+                    boolean peloObjeto = f.checaColisaoVarrida(objetos.get(i));
+                    boolean peloBando = bando.tempoDeImpacto(f, i)<=1;
+                    if(peloObjeto!=peloBando){
+                        falha(String.format("tick %d, lobo %d: a flecha em (%d, %d) %s o objeto e %s o bando", t, i,
+                                f.posX(), f.posY(), peloObjeto ? "acerta" : "erra", peloBando ? "acerta" : "erra"));
+                    }
+                    if(peloObjeto) impactos++;
+                }
+            }
+        }
+
+        System.out.printf("%d lobos em %dx%d por %d ticks: mesmas posicoes nos dois caminhos, %d impactos de flecha iguais%n",
+                lobos, colunas, linhas, ticks, impactos);
+        if(impactos==0) falha("nenhuma flecha acertou um lobo, entao a varredura nao foi conferida");
+        System.out.println("OK");
+    }
+
+    private static void falha(String motivo){
+        System.out.println("FALHOU: "+motivo);
+        System.exit(1);
+    }
+}